@@ -0,0 +1,94 @@
+package ru.skypro.homework.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import ru.skypro.homework.security.AuthenticationCache;
+import ru.skypro.homework.security.CachingAuthenticationProvider;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнивает аутентификацию по логину и паролю через {@link ProviderManager} без кэша и с
+ * {@link CachingAuthenticationProvider}. Провайдеры собираются так же, как в {@code WebSecurityConfig},
+ * но пользователи хранятся в памяти, поэтому замер без кэша не включает SQL-запрос и показывает
+ * только стоимость проверки BCrypt.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthenticationBenchmark {
+
+    /**
+     * Логин пользователя.
+     */
+    private static final String USERNAME = "user@gmail.com";
+
+    /**
+     * Пароль пользователя.
+     */
+    private static final String PASSWORD = "password123";
+
+    /**
+     * Менеджер аутентификации, проверяющий пароль BCrypt при каждом запросе.
+     */
+    private AuthenticationManager uncachedManager;
+
+    /**
+     * Менеджер аутентификации с кэшем проверенных учётных данных.
+     */
+    private AuthenticationManager cachedManager;
+
+    @Setup
+    public void setUp() {
+        PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+        InMemoryUserDetailsManager userDetailsManager = new InMemoryUserDetailsManager(User.withUsername(USERNAME)
+                .password(passwordEncoder.encode(PASSWORD))
+                .authorities("ROLE_USER")
+                .build());
+
+        DaoAuthenticationProvider daoAuthenticationProvider = new DaoAuthenticationProvider();
+        daoAuthenticationProvider.setUserDetailsService(userDetailsManager);
+        daoAuthenticationProvider.setPasswordEncoder(passwordEncoder);
+
+        uncachedManager = new ProviderManager(daoAuthenticationProvider);
+        cachedManager = new ProviderManager(new CachingAuthenticationProvider(daoAuthenticationProvider,
+                new AuthenticationCache(1_000, Duration.ofMinutes(5))));
+        // Первый запрос заполняет кэш, дальше измеряются только попадания
+        cachedManager.authenticate(request());
+    }
+
+    @Benchmark
+    public Authentication uncached() {
+        return uncachedManager.authenticate(request());
+    }
+
+    @Benchmark
+    public Authentication cached() {
+        return cachedManager.authenticate(request());
+    }
+
+    private static Authentication request() {
+        return UsernamePasswordAuthenticationToken.unauthenticated(USERNAME, PASSWORD);
+    }
+}
@@ -0,0 +1,156 @@
+package ru.skypro.homework.benchmark;
+
+import ru.skypro.homework.dto.Ad;
+import ru.skypro.homework.dto.Ads;
+import ru.skypro.homework.dto.Comment;
+import ru.skypro.homework.dto.Comments;
+import ru.skypro.homework.entity.AdEntity;
+import ru.skypro.homework.entity.CommentEntity;
+import ru.skypro.homework.entity.UserEntity;
+import ru.skypro.homework.image.ImageVariant;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Тестовые данные для бенчмарков.
+ * Значения полей близки к реальным: длины строк соответствуют ограничениям столбцов,
+ * а пути изображений имеют вид, в котором их сохраняет сервис изображений.
+ */
+final class BenchmarkData {
+
+    /**
+     * Время создания первого комментария.
+     */
+    private static final long CREATED_AT = 1_735_689_600_000L;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Создает пользователя с заполненными полями профиля.
+     *
+     * @param id идентификатор пользователя
+     * @return сущность пользователя
+     */
+    static UserEntity user(int id) {
+        UserEntity user = new UserEntity();
+        user.setId(id);
+        user.setUsername("user" + id + "@mail.ru");
+        user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOa6yXZz1Ttm7yBi6Xa1ZJt2cPNXkxfOa");
+        user.setFirstName("Александр");
+        user.setLastName("Константинов");
+        user.setPhone("+7981" + String.format("%07d", id % 10_000_000));
+        user.setAuthority("ROLE_USER");
+        user.setImage(imagePath(id));
+        user.setAdEntities(new ArrayList<>());
+        return user;
+    }
+
+    /**
+     * Создает объявление автора с комментариями других пользователей.
+     *
+     * @param pk       идентификатор объявления
+     * @param author   автор объявления
+     * @param comments количество комментариев
+     * @return сущность объявления
+     */
+    static AdEntity ad(int pk, UserEntity author, int comments) {
+        AdEntity ad = new AdEntity();
+        ad.setPk(pk);
+        ad.setTitle("Продам велосипед Stels " + pk);
+        ad.setDescription("Горный велосипед, 21 скорость, рама 18 дюймов, почти новый");
+        ad.setPrice(15_000 + pk % 1_000);
+        ad.setImage(imagePath(pk));
+        ad.setAuthor(author);
+        author.getAdEntities().add(ad);
+
+        List<CommentEntity> commentEntities = new ArrayList<>(comments);
+        for (int i = 0; i < comments; i++) {
+            commentEntities.add(comment(pk * comments + i, ad, user(author.getId() + i + 1)));
+        }
+        ad.setCommentEntities(commentEntities);
+        return ad;
+    }
+
+    /**
+     * Создает комментарий пользователя к объявлению.
+     *
+     * @param pk     идентификатор комментария
+     * @param ad     объявление
+     * @param author автор комментария
+     * @return сущность комментария
+     */
+    static CommentEntity comment(int pk, AdEntity ad, UserEntity author) {
+        CommentEntity comment = new CommentEntity();
+        comment.setPk(pk);
+        comment.setText("Добрый день! Велосипед ещё продаётся? Готов забрать завтра");
+        comment.setCreatedAt(CREATED_AT + pk * 60_000L);
+        comment.setAuthor(author);
+        comment.setAdEntity(ad);
+        return comment;
+    }
+
+    /**
+     * Создает страницу объявлений с указанным количеством элементов.
+     *
+     * @param size количество объявлений
+     * @return DTO списка объявлений
+     */
+    static Ads ads(int size) {
+        List<Ad> results = new ArrayList<>(size);
+        for (int pk = 1; pk <= size; pk++) {
+            Ad ad = new Ad();
+            ad.setPk(pk);
+            ad.setAuthor(pk % 1_000 + 1);
+            ad.setTitle("Продам велосипед Stels " + pk);
+            ad.setPrice(15_000 + pk % 1_000);
+            ad.setImage(imagePath(pk));
+            ad.setImageThumbnail(ImageVariant.THUMBNAIL.path(ad.getImage()));
+            results.add(ad);
+        }
+
+        Ads ads = new Ads();
+        ads.setCount(size);
+        ads.setResults(results);
+        ads.setNext(String.valueOf(size));
+        return ads;
+    }
+
+    /**
+     * Создает страницу комментариев с указанным количеством элементов.
+     *
+     * @param size количество комментариев
+     * @return DTO списка комментариев
+     */
+    static Comments comments(int size) {
+        List<Comment> results = new ArrayList<>(size);
+        for (int pk = 1; pk <= size; pk++) {
+            Comment comment = new Comment();
+            comment.setPk(pk);
+            comment.setAuthor(pk % 1_000 + 1);
+            comment.setAuthorFirstName("Александр");
+            comment.setAuthorImage(imagePath(pk % 1_000 + 1));
+            comment.setCreatedAt(CREATED_AT + pk * 60_000L);
+            comment.setText("Добрый день! Велосипед ещё продаётся? Готов забрать завтра");
+            results.add(comment);
+        }
+
+        Comments comments = new Comments();
+        comments.setCount(size);
+        comments.setResults(results);
+        comments.setNext(CREATED_AT + "_" + size);
+        return comments;
+    }
+
+    /**
+     * Возвращает путь к изображению в формате, в котором его сохраняет сервис изображений.
+     *
+     * @param seed число, из которого строится имя файла
+     * @return путь к изображению
+     */
+    private static String imagePath(int seed) {
+        String hash = String.format("%064x", seed);
+        return "/images/" + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + ".jpg";
+    }
+}
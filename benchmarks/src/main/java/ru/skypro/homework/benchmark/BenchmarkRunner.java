@@ -0,0 +1,44 @@
+package ru.skypro.homework.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Точка входа для запуска бенчмарков.
+ * Принимает те же аргументы, что и JMH, но по умолчанию сохраняет результаты в JSON,
+ * чтобы их можно было сравнивать между релизами.
+ */
+public final class BenchmarkRunner {
+
+    /**
+     * Файл результатов, если он не указан аргументом {@code -rff}.
+     */
+    private static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    private BenchmarkRunner() {
+    }
+
+    /**
+     * Запускает бенчмарки с аргументами командной строки JMH.
+     *
+     * @param args аргументы JMH, например {@code MapperBenchmark -f 1}
+     * @throws CommandLineOptionException если аргументы указаны неверно
+     * @throws RunnerException            если запуск бенчмарков завершился ошибкой
+     */
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions options = new CommandLineOptions(args);
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(options);
+        if (!options.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!options.getResult().hasValue()) {
+            builder.result(DEFAULT_RESULT_FILE);
+        }
+        new Runner(builder.build()).run();
+    }
+}
@@ -0,0 +1,108 @@
+package ru.skypro.homework.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+import ru.skypro.homework.image.StagedImage;
+import ru.skypro.homework.metrics.ImageMetrics;
+import ru.skypro.homework.service.impl.ImageServiceImpl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Измеряет запись загруженного изображения на диск и чтение сохранённого изображения.
+ * Запись включает вычисление SHA-256 содержимого и не обращается к базе данных,
+ * поэтому сервис создается без репозиториев. Файлы сохраняются в {@value #IMAGE_PATH}
+ * относительно текущей папки и удаляются после завершения бенчмарка.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageServiceBenchmark {
+
+    /**
+     * Папка изображений относительно текущей папки.
+     */
+    private static final String IMAGE_PATH = "/target/benchmark-images/";
+
+    /**
+     * Путь к изображению, которое читает бенчмарк {@link #getImage()}.
+     */
+    private static final String STORED_IMAGE = "/images/stored/image.jpg";
+
+    /**
+     * Размер файла изображения в байтах: 50 КБ, 1 МБ, 5 МБ и 20 МБ.
+     */
+    @Param({"51200", "1048576", "5242880", "20971520"})
+    private int size;
+
+    /**
+     * Сервис изображений.
+     */
+    private ImageServiceImpl imageService;
+
+    /**
+     * Загружаемый файл изображения.
+     */
+    private MockMultipartFile multipartFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        imageService = new ImageServiceImpl(null, null, null, new ImageMetrics(new SimpleMeterRegistry()), null);
+        ReflectionTestUtils.setField(imageService, "imagePath", IMAGE_PATH);
+
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        multipartFile = new MockMultipartFile("image", "image.jpg", "image/jpeg", content);
+
+        Path storedImage = root().resolve(STORED_IMAGE.replace("/images/", ""));
+        Files.createDirectories(storedImage.getParent());
+        Files.write(storedImage, content);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(root());
+    }
+
+    @Benchmark
+    public String stageImage() throws IOException {
+        try (StagedImage stagedImage = imageService.stageImage(multipartFile)) {
+            return stagedImage.path();
+        }
+    }
+
+    @Benchmark
+    public byte[] getImage() throws IOException {
+        return imageService.getImage(STORED_IMAGE);
+    }
+
+    /**
+     * Возвращает корневую папку изображений.
+     *
+     * @return путь к папке изображений
+     */
+    private static Path root() {
+        return Path.of(System.getProperty("user.dir") + IMAGE_PATH);
+    }
+}
@@ -0,0 +1,78 @@
+package ru.skypro.homework.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.skypro.homework.dto.Ad;
+import ru.skypro.homework.dto.Comment;
+import ru.skypro.homework.dto.ExtendedAd;
+import ru.skypro.homework.entity.AdEntity;
+import ru.skypro.homework.entity.CommentEntity;
+import ru.skypro.homework.mapper.AdEntityMapper;
+import ru.skypro.homework.mapper.AdEntityMapperImpl;
+import ru.skypro.homework.mapper.CommentEntityMapper;
+import ru.skypro.homework.mapper.CommentEntityMapperImpl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Измеряет преобразование сущностей в DTO мапперами MapStruct.
+ * Сущности связаны так же, как после загрузки из базы данных: у объявления есть автор и комментарии,
+ * у комментария — автор и объявление.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MapperBenchmark {
+
+    /**
+     * Маппер объявлений.
+     */
+    private final AdEntityMapper adEntityMapper = new AdEntityMapperImpl();
+
+    /**
+     * Маппер комментариев.
+     */
+    private final CommentEntityMapper commentEntityMapper = new CommentEntityMapperImpl();
+
+    /**
+     * Объявление с автором и комментариями.
+     */
+    private AdEntity adEntity;
+
+    /**
+     * Комментарий к объявлению.
+     */
+    private CommentEntity commentEntity;
+
+    @Setup
+    public void setUp() {
+        adEntity = BenchmarkData.ad(1, BenchmarkData.user(1), 20);
+        commentEntity = adEntity.getCommentEntities().get(0);
+    }
+
+    @Benchmark
+    public Ad adToDto() {
+        return adEntityMapper.toDto(adEntity);
+    }
+
+    @Benchmark
+    public ExtendedAd adToExtendedAd() {
+        return adEntityMapper.toExtendedAd(adEntity);
+    }
+
+    @Benchmark
+    public Comment commentToDto() {
+        return commentEntityMapper.toDto(commentEntity);
+    }
+}
@@ -0,0 +1,71 @@
+package ru.skypro.homework.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.skypro.homework.dto.Ads;
+import ru.skypro.homework.dto.Comments;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Измеряет сериализацию списков объявлений и комментариев в JSON.
+ * {@link ObjectMapper} создается так же, как в приложении, через {@link Jackson2ObjectMapperBuilder}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SerializationBenchmark {
+
+    /**
+     * Количество элементов в списке.
+     */
+    @Param({"10", "1000", "100000"})
+    private int size;
+
+    /**
+     * Сериализатор JSON с настройками Spring Boot по умолчанию.
+     */
+    private ObjectMapper objectMapper;
+
+    /**
+     * Список объявлений.
+     */
+    private Ads ads;
+
+    /**
+     * Список комментариев.
+     */
+    private Comments comments;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        ads = BenchmarkData.ads(size);
+        comments = BenchmarkData.comments(size);
+    }
+
+    @Benchmark
+    public byte[] serializeAds() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(ads);
+    }
+
+    @Benchmark
+    public byte[] serializeComments() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(comments);
+    }
+}
@@ -0,0 +1,55 @@
+package ru.skypro.homework.loadtest;
+
+/**
+ * Вызовы API из {@code example-requests.http} и их доля в нагрузке.
+ * Выгрузка {@code GET /ads/stream} не входит в смесь: она читает всю таблицу объявлений
+ * и измеряется отдельно, а не в потоке пользовательских запросов.
+ */
+public enum Call {
+
+    GET_ADS("GET /ads", 20),
+    GET_ADS_PAGE("GET /ads?cursor&limit", 15),
+    SEARCH_ADS("GET /ads/search?q", 5),
+    GET_COMMENTS("GET /ads/{id}/comments", 20),
+    GET_COMMENTS_PAGE("GET /ads/{id}/comments?limit&before", 5),
+    GET_ADS_ME("GET /ads/me", 8),
+    GET_USERS_ME("GET /users/me", 12),
+    PATCH_USERS_ME("PATCH /users/me", 4),
+    LOGIN("POST /login", 10),
+    REGISTER("POST /register", 2),
+    SET_PASSWORD("POST /users/set_password", 1),
+    ADD_AD("POST /ads", 3);
+
+    /**
+     * Название вызова в отчёте.
+     */
+    private final String endpoint;
+
+    /**
+     * Относительная частота вызова.
+     */
+    private final int weight;
+
+    Call(String endpoint, int weight) {
+        this.endpoint = endpoint;
+        this.weight = weight;
+    }
+
+    /**
+     * Возвращает название вызова в отчёте.
+     *
+     * @return название вызова
+     */
+    public String endpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Возвращает относительную частоту вызова.
+     *
+     * @return вес вызова
+     */
+    public int weight() {
+        return weight;
+    }
+}
@@ -0,0 +1,145 @@
+package ru.skypro.homework.loadtest;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.SplittableRandom;
+import java.util.function.IntFunction;
+
+/**
+ * Заполняет базу данных синтетическими пользователями, объявлениями и комментариями через {@code COPY}.
+ * Количество объявлений у пользователей и комментариев у объявлений распределено по закону Ципфа.
+ * У всех пользователей пароль {@value #PASSWORD}, логин пользователя {@code id} — {@code user<id>@mail.ru}.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class DatasetGenerator {
+
+    /**
+     * Пароль всех сгенерированных пользователей.
+     */
+    public static final String PASSWORD = "password";
+
+    /**
+     * Время создания первого комментария.
+     */
+    public static final long FIRST_COMMENT_AT = 1_735_689_600_000L;
+
+    /**
+     * Слова заголовков объявлений, по ним выполняется полнотекстовый поиск.
+     */
+    public static final String[] ITEMS = {"велосипед", "телефон", "ноутбук", "диван", "холодильник",
+            "куртка", "коляска", "гитара", "палатка", "самокат"};
+
+    /**
+     * Описания объявлений.
+     */
+    private static final String[] DESCRIPTIONS = {"В хорошем состоянии, есть небольшие царапины",
+            "Почти новый, использовался пару месяцев", "Продаю в связи с переездом, торг уместен",
+            "Полностью исправен, самовывоз из центра города"};
+
+    /**
+     * Тексты комментариев.
+     */
+    private static final String[] COMMENTS = {"Добрый день! Ещё продаётся?", "Готов забрать завтра утром",
+            "Возможен торг? Могу подъехать сегодня", "Пришлите, пожалуйста, больше фотографий"};
+
+    /**
+     * Количество строк, передаваемых в {@code COPY} за одну запись.
+     */
+    private static final int CHUNK_ROWS = 10_000;
+
+    /**
+     * Источник соединений приложения.
+     */
+    private final DataSource dataSource;
+
+    /**
+     * Параметры нагрузочного теста.
+     */
+    private final LoadTestSettings settings;
+
+    /**
+     * Заполняет таблицы, обновляет последовательности идентификаторов и статистику планировщика.
+     *
+     * @throws SQLException если загрузка данных завершилась ошибкой
+     */
+    public void generate() throws SQLException {
+        SplittableRandom random = new SplittableRandom(settings.seed());
+        ZipfSampler userSampler = new ZipfSampler(settings.users(), settings.skew());
+        ZipfSampler adSampler = new ZipfSampler(settings.ads(), settings.skew());
+        String password = new BCryptPasswordEncoder().encode(PASSWORD);
+
+        try (Connection connection = dataSource.getConnection()) {
+            copy(connection, "COPY user_entities (id, username, password, first_name, last_name, phone, authority) FROM STDIN",
+                    settings.users(), id -> id + "\t" + username(id) + "\t" + password + "\tИван\tПетров\t+7981"
+                            + String.format("%07d", id % 10_000_000) + "\tROLE_USER\n");
+
+            copy(connection, "COPY ad_entities (pk, title, description, price, image, author) FROM STDIN",
+                    settings.ads(), pk -> pk + "\tПродам " + ITEMS[random.nextInt(ITEMS.length)] + "\t"
+                            + DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)] + "\t" + random.nextInt(100, 200_000)
+                            + "\t/images/" + pk + ".jpg\t" + userSampler.next(random) + "\n");
+
+            copy(connection, "COPY comment_entities (pk, text, created_at, author, ad_entity) FROM STDIN",
+                    settings.comments(), pk -> pk + "\t" + COMMENTS[random.nextInt(COMMENTS.length)] + "\t"
+                            + (FIRST_COMMENT_AT + pk * 1_000L) + "\t" + userSampler.next(random) + "\t"
+                            + adSampler.next(random) + "\n");
+
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SELECT setval(pg_get_serial_sequence('user_entities', 'id'), " + settings.users() + ")");
+                statement.execute("SELECT setval(pg_get_serial_sequence('ad_entities', 'pk'), " + settings.ads() + ")");
+                statement.execute("SELECT setval(pg_get_serial_sequence('comment_entities', 'pk'), " + settings.comments() + ")");
+                statement.execute("ANALYZE");
+            }
+        }
+    }
+
+    /**
+     * Возвращает логин сгенерированного пользователя.
+     *
+     * @param id идентификатор пользователя
+     * @return логин пользователя
+     */
+    public static String username(int id) {
+        return "user" + id + "@mail.ru";
+    }
+
+    /**
+     * Передает строки в таблицу через {@code COPY} частями по {@value #CHUNK_ROWS} строк.
+     *
+     * @param connection соединение с базой данных
+     * @param sql        команда {@code COPY ... FROM STDIN}
+     * @param rows       количество строк
+     * @param row        строка в текстовом формате {@code COPY} по её номеру, начиная с 1
+     * @throws SQLException если загрузка данных завершилась ошибкой
+     */
+    private void copy(Connection connection, String sql, int rows, IntFunction<String> row) throws SQLException {
+        long started = System.nanoTime();
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+        try {
+            StringBuilder chunk = new StringBuilder();
+            for (int i = 1; i <= rows; i++) {
+                chunk.append(row.apply(i));
+                if (i % CHUNK_ROWS == 0 || i == rows) {
+                    byte[] bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+                    copyIn.writeToCopy(bytes, 0, bytes.length);
+                    chunk.setLength(0);
+                }
+            }
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+        log.info("Загружено {} строк за {} мс: {}", rows, (System.nanoTime() - started) / 1_000_000, sql);
+    }
+}
@@ -0,0 +1,76 @@
+package ru.skypro.homework.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Задержки и ошибки одного вызова API.
+ * Задержки хранятся в гистограмме HdrHistogram в микросекундах с точностью до трёх значащих цифр.
+ */
+public class EndpointStats {
+
+    /**
+     * Наибольшая учитываемая задержка: время ожидания ответа клиента.
+     */
+    private static final long MAX_LATENCY_MICROS = TimeUnit.SECONDS.toMicros(60);
+
+    /**
+     * Гистограмма задержек.
+     */
+    private final Histogram latencies = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+
+    /**
+     * Количество ответов с кодом 4xx и 5xx и запросов, завершившихся исключением.
+     */
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * Учитывает выполненный запрос.
+     *
+     * @param latencyNanos задержка в наносекундах
+     * @param error        {@code true}, если запрос завершился ошибкой
+     */
+    public void record(long latencyNanos, boolean error) {
+        latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY_MICROS));
+        if (error) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * Формирует строку отчёта.
+     *
+     * @param endpoint       название вызова
+     * @param elapsedSeconds длительность измерения в секундах
+     * @return строка отчёта
+     */
+    public EndpointReport report(String endpoint, double elapsedSeconds) {
+        long requests = latencies.getTotalCount();
+        return new EndpointReport(endpoint, requests, errors.sum(), requests / elapsedSeconds,
+                millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(99)),
+                millis(latencies.getValueAtPercentile(99.9)), millis(latencies.getMaxValue()));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1_000.0;
+    }
+
+    /**
+     * Пропускная способность и задержки вызова.
+     *
+     * @param endpoint   название вызова
+     * @param requests   количество запросов
+     * @param errors     количество ошибок
+     * @param throughput запросов в секунду
+     * @param p50        медиана задержки в миллисекундах
+     * @param p99        99-й перцентиль задержки в миллисекундах
+     * @param p999       99,9-й перцентиль задержки в миллисекундах
+     * @param max        наибольшая задержка в миллисекундах
+     */
+    public record EndpointReport(String endpoint, long requests, long errors, double throughput,
+                                 double p50, double p99, double p999, double max) {
+    }
+}
@@ -0,0 +1,57 @@
+package ru.skypro.homework.loadtest;
+
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * Отчёт нагрузочного теста.
+ *
+ * @param settings  параметры нагрузочного теста
+ * @param total     пропускная способность и задержки всех вызовов вместе
+ * @param endpoints пропускная способность и задержки каждого вызова
+ * @param pool      состояние пула соединений во время измерения
+ */
+public record LoadTestReport(LoadTestSettings settings,
+                             EndpointStats.EndpointReport total,
+                             List<EndpointStats.EndpointReport> endpoints,
+                             List<PoolSampler.PoolSample> pool) {
+
+    /**
+     * Доля снимков, в которых все соединения пула были заняты.
+     *
+     * @return доля от 0 до 1
+     */
+    public double poolSaturation() {
+        return pool.isEmpty() ? 0 : (double) pool.stream().filter(PoolSampler.PoolSample::saturated).count() / pool.size();
+    }
+
+    /**
+     * Наибольшее количество потоков, одновременно ожидавших соединения.
+     *
+     * @return количество потоков
+     */
+    public int maxPending() {
+        return pool.stream().mapToInt(PoolSampler.PoolSample::pending).max().orElse(0);
+    }
+
+    /**
+     * Выводит отчёт в виде таблицы.
+     *
+     * @param out поток вывода
+     */
+    public void print(PrintStream out) {
+        String format = "%-40s %10s %8s %10s %10s %10s %10s %10s%n";
+        out.printf(format, "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (EndpointStats.EndpointReport endpoint : endpoints) {
+            print(out, endpoint);
+        }
+        print(out, total);
+        out.printf("%nПул соединений: все соединения заняты в %.1f%% снимков, ожидали соединения до %d потоков%n",
+                poolSaturation() * 100, maxPending());
+    }
+
+    private static void print(PrintStream out, EndpointStats.EndpointReport report) {
+        out.printf("%-40s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n", report.endpoint(), report.requests(),
+                report.errors(), report.throughput(), report.p50(), report.p99(), report.p999(), report.max());
+    }
+}
@@ -0,0 +1,177 @@
+package ru.skypro.homework.loadtest;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.testcontainers.containers.PostgreSQLContainer;
+import ru.skypro.homework.HomeworkApplication;
+import ru.skypro.homework.cache.AdCountCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Нагрузочный тест приложения.
+ * Запускает PostgreSQL в Testcontainers и приложение в том же процессе, заполняет базу синтетическими данными
+ * и в течение заданного времени выполняет вызовы выбранного сценария параллельными клиентами: смесь вызовов
+ * из {@code example-requests.http} или только поиск объявлений.
+ * Отчёт с пропускной способностью, перцентилями задержки по каждому вызову и состоянием пула соединений
+ * выводится в консоль и сохраняется в JSON.
+ * Свойства приложения, например {@code spring.datasource.hikari.maximum-pool-size}, можно переопределить
+ * системными свойствами JVM.
+ */
+@Slf4j
+public final class LoadTestRunner {
+
+    /**
+     * Папка изображений относительно текущей папки.
+     */
+    private static final String IMAGE_PATH = "/target/loadtest-images/";
+
+    private LoadTestRunner() {
+    }
+
+    /**
+     * Запускает нагрузочный тест.
+     *
+     * @param args параметры теста, см. {@link LoadTestSettings}
+     * @throws SQLException         если загрузка данных завершилась ошибкой
+     * @throws IOException          если не удалось сохранить отчёт
+     * @throws InterruptedException если ожидание клиентов было прервано
+     */
+    public static void main(String[] args) throws SQLException, IOException, InterruptedException {
+        LoadTestSettings settings = LoadTestSettings.parse(args);
+
+        try (PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15")
+                .withDatabaseName("ads_db")
+                .withUsername("user")
+                .withPassword("password")
+                .withCommand("postgres", "-c", "max_connections=200");
+             ConfigurableApplicationContext context = start(postgres)) {
+
+            log.info("Генерация данных: {} пользователей, {} объявлений, {} комментариев",
+                    settings.users(), settings.ads(), settings.comments());
+            HikariDataSource dataSource = context.getBean(HikariDataSource.class);
+            new DatasetGenerator(dataSource, settings).generate();
+            context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getCache().evictAllRegions();
+            context.getBean(AdCountCache.class).invalidate();
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadTestReport report = run(settings, new RequestFactory("http://localhost:" + port, settings),
+                    new PoolSampler(dataSource.getHikariPoolMXBean()));
+
+            report.print(System.out);
+            Jackson2ObjectMapperBuilder.json().indentOutput(true).build()
+                    .writeValue(new File(settings.report()), report);
+            log.info("Отчёт сохранён в {}", settings.report());
+        }
+    }
+
+    /**
+     * Запускает PostgreSQL и приложение, подключённое к нему.
+     *
+     * @param postgres контейнер PostgreSQL
+     * @return контекст приложения
+     */
+    private static ConfigurableApplicationContext start(PostgreSQLContainer<?> postgres) {
+        postgres.start();
+        return new SpringApplicationBuilder(HomeworkApplication.class)
+                .properties(
+                        "spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword(),
+                        "spring.liquibase.url=" + postgres.getJdbcUrl(),
+                        "spring.liquibase.user=" + postgres.getUsername(),
+                        "spring.liquibase.password=" + postgres.getPassword(),
+                        "server.port=0",
+                        "management.server.port=0",
+                        "path.dir.image=" + IMAGE_PATH,
+                        "logging.level.root=WARN",
+                        "logging.level.ru.skypro.homework.loadtest=INFO")
+                .run();
+    }
+
+    /**
+     * Выполняет прогрев и измерение.
+     *
+     * @param settings       параметры нагрузочного теста
+     * @param requestFactory фабрика запросов
+     * @param poolSampler    сборщик состояния пула соединений
+     * @return отчёт нагрузочного теста
+     * @throws InterruptedException если ожидание клиентов было прервано
+     */
+    private static LoadTestReport run(LoadTestSettings settings, RequestFactory requestFactory, PoolSampler poolSampler)
+            throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        Map<Call, EndpointStats> stats = new EnumMap<>(Call.class);
+        for (Call call : settings.scenario().calls()) {
+            stats.put(call, new EndpointStats());
+        }
+        EndpointStats total = new EndpointStats();
+
+        long warmupEnd = System.nanoTime() + settings.warmup().toNanos();
+        long end = warmupEnd + settings.duration().toNanos();
+        SplittableRandom seeds = new SplittableRandom(settings.seed());
+
+        log.info("Сценарий {}, прогрев {}, измерение {}, клиентов: {}", settings.scenario(), settings.warmup(),
+                settings.duration(), settings.concurrency());
+        ExecutorService clients = Executors.newFixedThreadPool(settings.concurrency());
+        try (poolSampler) {
+            for (int i = 0; i < settings.concurrency(); i++) {
+                SplittableRandom random = seeds.split();
+                clients.execute(() -> {
+                    long now;
+                    while ((now = System.nanoTime()) < end) {
+                        Call call = requestFactory.nextCall(random);
+                        HttpRequest request = requestFactory.create(call, random);
+                        boolean error;
+                        try {
+                            error = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() >= 400;
+                        } catch (IOException e) {
+                            error = true;
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        if (now >= warmupEnd) {
+                            long latency = System.nanoTime() - now;
+                            stats.get(call).record(latency, error);
+                            total.record(latency, error);
+                        }
+                    }
+                });
+            }
+
+            TimeUnit.NANOSECONDS.sleep(warmupEnd - System.nanoTime());
+            poolSampler.start(settings.sampleInterval());
+            clients.shutdown();
+            clients.awaitTermination(settings.duration().toMillis() + 60_000, TimeUnit.MILLISECONDS);
+
+            double elapsedSeconds = settings.duration().toNanos() / 1e9;
+            List<EndpointStats.EndpointReport> endpoints = new ArrayList<>();
+            for (Call call : settings.scenario().calls()) {
+                endpoints.add(stats.get(call).report(call.endpoint(), elapsedSeconds));
+            }
+            return new LoadTestReport(settings, total.report("ALL", elapsedSeconds), endpoints, poolSampler.stop());
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+}
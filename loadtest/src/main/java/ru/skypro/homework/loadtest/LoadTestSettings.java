@@ -0,0 +1,70 @@
+package ru.skypro.homework.loadtest;
+
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+
+import java.time.Duration;
+
+/**
+ * Параметры нагрузочного теста.
+ * Задаются аргументами командной строки вида {@code --ads=1000000}, неуказанные параметры берутся по умолчанию.
+ *
+ * @param scenario       сценарий нагрузки
+ * @param users          количество пользователей
+ * @param ads            количество объявлений, по умолчанию зависит от сценария
+ * @param comments       количество комментариев
+ * @param skew           показатель распределения Ципфа для популярности пользователей и объявлений
+ * @param concurrency    количество параллельных клиентов
+ * @param warmup         длительность прогрева, результаты которого не учитываются
+ * @param duration       длительность измерения
+ * @param sampleInterval интервал снятия состояния пула соединений
+ * @param report         файл отчёта в формате JSON
+ * @param seed           начальное значение генератора случайных чисел
+ */
+public record LoadTestSettings(Scenario scenario,
+                               int users,
+                               int ads,
+                               int comments,
+                               double skew,
+                               int concurrency,
+                               Duration warmup,
+                               Duration duration,
+                               Duration sampleInterval,
+                               String report,
+                               long seed) {
+
+    /**
+     * Разбирает аргументы командной строки.
+     *
+     * @param args аргументы командной строки
+     * @return параметры нагрузочного теста
+     */
+    public static LoadTestSettings parse(String[] args) {
+        SimpleCommandLinePropertySource source = new SimpleCommandLinePropertySource(args);
+        Scenario scenario = Scenario.valueOf(value(source, "scenario", "mixed").toUpperCase());
+        return new LoadTestSettings(
+                scenario,
+                Integer.parseInt(value(source, "users", "100000")),
+                Integer.parseInt(value(source, "ads", String.valueOf(scenario.defaultAds()))),
+                Integer.parseInt(value(source, "comments", "5000000")),
+                Double.parseDouble(value(source, "skew", "1.1")),
+                Integer.parseInt(value(source, "concurrency", "64")),
+                Duration.parse(value(source, "warmup", "PT30S")),
+                Duration.parse(value(source, "duration", "PT2M")),
+                Duration.parse(value(source, "sample-interval", "PT1S")),
+                value(source, "report", "loadtest-report.json"),
+                Long.parseLong(value(source, "seed", "42")));
+    }
+
+    /**
+     * Возвращает значение параметра или значение по умолчанию.
+     *
+     * @param source       аргументы командной строки
+     * @param name         имя параметра
+     * @param defaultValue значение по умолчанию
+     * @return значение параметра
+     */
+    private static String value(SimpleCommandLinePropertySource source, String name, String defaultValue) {
+        String value = source.getProperty(name);
+        return value == null ? defaultValue : value;
+    }
+}
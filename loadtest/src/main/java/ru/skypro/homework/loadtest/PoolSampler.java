@@ -0,0 +1,97 @@
+package ru.skypro.homework.loadtest;
+
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Периодически снимает состояние пула соединений Hikari.
+ * По снимкам видно, в какие моменты все соединения заняты и запросы ждут соединения.
+ */
+public class PoolSampler implements AutoCloseable {
+
+    /**
+     * Состояние пула соединений.
+     */
+    private final HikariPoolMXBean pool;
+
+    /**
+     * Поток, снимающий состояние пула.
+     */
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    /**
+     * Снятые состояния пула.
+     */
+    private final List<PoolSample> samples = new ArrayList<>();
+
+    /**
+     * Время запуска в наносекундах.
+     */
+    private long started;
+
+    public PoolSampler(HikariPoolMXBean pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Начинает снимать состояние пула с указанным интервалом.
+     *
+     * @param interval интервал между снимками
+     */
+    public void start(Duration interval) {
+        started = System.nanoTime();
+        scheduler.scheduleAtFixedRate(this::sample, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Останавливает снятие состояния и возвращает снимки.
+     *
+     * @return снимки состояния пула в порядке времени
+     */
+    public List<PoolSample> stop() {
+        close();
+        synchronized (samples) {
+            return List.copyOf(samples);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void sample() {
+        PoolSample sample = new PoolSample((System.nanoTime() - started) / 1_000_000, pool.getActiveConnections(),
+                pool.getIdleConnections(), pool.getTotalConnections(), pool.getThreadsAwaitingConnection());
+        synchronized (samples) {
+            samples.add(sample);
+        }
+    }
+
+    /**
+     * Снимок состояния пула соединений.
+     *
+     * @param elapsedMillis время от начала измерения в миллисекундах
+     * @param active        занятые соединения
+     * @param idle          свободные соединения
+     * @param total         все соединения пула
+     * @param pending       потоки, ожидающие соединения
+     */
+    public record PoolSample(long elapsedMillis, int active, int idle, int total, int pending) {
+
+        /**
+         * Проверяет, заняты ли все соединения пула.
+         *
+         * @return {@code true}, если свободных соединений нет
+         */
+        public boolean saturated() {
+            return idle == 0 && active == total;
+        }
+    }
+}
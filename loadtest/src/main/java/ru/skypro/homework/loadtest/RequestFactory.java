@@ -0,0 +1,197 @@
+package ru.skypro.homework.loadtest;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Создает HTTP-запросы нагрузочного теста из вызовов выбранного сценария.
+ * Пользователи и объявления выбираются по закону Ципфа, как и при генерации данных,
+ * поэтому популярные объявления чаще попадают в кэши приложения.
+ */
+public class RequestFactory {
+
+    /**
+     * Граница частей запроса {@code multipart/form-data}.
+     */
+    private static final String BOUNDARY = "loadtest-boundary";
+
+    /**
+     * Время ожидания ответа.
+     */
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * Адрес приложения.
+     */
+    private final String baseUrl;
+
+    /**
+     * Параметры нагрузочного теста.
+     */
+    private final LoadTestSettings settings;
+
+    /**
+     * Выбор активного пользователя.
+     */
+    private final ZipfSampler userSampler;
+
+    /**
+     * Выбор просматриваемого объявления.
+     */
+    private final ZipfSampler adSampler;
+
+    /**
+     * Вызовы, повторённые по своему весу, для выбора вызова одним случайным числом.
+     */
+    private final Call[] mix;
+
+    /**
+     * Изображение для новых объявлений. Изображения хранятся по хешу содержимого,
+     * поэтому файл записывается на диск только при первом добавлении.
+     */
+    private final byte[] image;
+
+    /**
+     * Номер следующего регистрируемого пользователя.
+     */
+    private final AtomicInteger registrations = new AtomicInteger();
+
+    public RequestFactory(String baseUrl, LoadTestSettings settings) {
+        this.baseUrl = baseUrl;
+        this.settings = settings;
+        this.userSampler = new ZipfSampler(settings.users(), settings.skew());
+        this.adSampler = new ZipfSampler(settings.ads(), settings.skew());
+        this.mix = settings.scenario().calls().stream()
+                .flatMap(call -> Collections.nCopies(call.weight(), call).stream())
+                .toArray(Call[]::new);
+        this.image = jpeg();
+    }
+
+    /**
+     * Выбирает следующий вызов согласно весам.
+     *
+     * @param random генератор случайных чисел клиента
+     * @return вызов
+     */
+    public Call nextCall(SplittableRandom random) {
+        return mix[random.nextInt(mix.length)];
+    }
+
+    /**
+     * Создает запрос для вызова.
+     *
+     * @param call   вызов
+     * @param random генератор случайных чисел клиента
+     * @return HTTP-запрос
+     */
+    public HttpRequest create(Call call, SplittableRandom random) {
+        int user = userSampler.next(random);
+        return switch (call) {
+            case GET_ADS -> get("/ads").build();
+            case GET_ADS_PAGE -> get("/ads?cursor=" + random.nextInt(settings.ads()) + "&limit=50").build();
+            case SEARCH_ADS -> get("/ads/search?q=" + URLEncoder.encode(
+                    DatasetGenerator.ITEMS[random.nextInt(DatasetGenerator.ITEMS.length)], StandardCharsets.UTF_8)).build();
+            case GET_COMMENTS -> authorized(get("/ads/" + adSampler.next(random) + "/comments"), user).build();
+            case GET_COMMENTS_PAGE -> {
+                int before = random.nextInt(1, settings.comments() + 1);
+                String cursor = (DatasetGenerator.FIRST_COMMENT_AT + before * 1_000L) + "_" + before;
+                yield authorized(get("/ads/" + adSampler.next(random) + "/comments?limit=20&before=" + cursor), user).build();
+            }
+            case GET_ADS_ME -> authorized(get("/ads/me"), user).build();
+            case GET_USERS_ME -> authorized(get("/users/me"), user).build();
+            case PATCH_USERS_ME -> authorized(json("/users/me", "PATCH",
+                    "{\"phone\":\"+79813333333\",\"lastName\":\"Ivanov\",\"firstName\":\"Ivan\"}"), user).build();
+            case LOGIN -> json("/login", "POST", "{\"username\":\"" + DatasetGenerator.username(user)
+                    + "\",\"password\":\"" + DatasetGenerator.PASSWORD + "\"}").build();
+            case REGISTER -> json("/register", "POST", "{\"username\":\"load" + registrations.incrementAndGet()
+                    + "@mail.ru\",\"password\":\"" + DatasetGenerator.PASSWORD
+                    + "\",\"firstName\":\"Иван\",\"lastName\":\"Петров\",\"phone\":\"+79811234567\",\"role\":\"USER\"}").build();
+            case SET_PASSWORD -> authorized(json("/users/set_password", "POST", "{\"newPassword\":\""
+                    + DatasetGenerator.PASSWORD + "\",\"currentPassword\":\"" + DatasetGenerator.PASSWORD + "\"}"), user).build();
+            case ADD_AD -> authorized(multipart("/ads", random), user).build();
+        };
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(TIMEOUT).GET();
+    }
+
+    private HttpRequest.Builder json(String path, String method, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(TIMEOUT)
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    /**
+     * Создает запрос добавления объявления с данными объявления и изображением.
+     *
+     * @param path   путь запроса
+     * @param random генератор случайных чисел клиента
+     * @return построитель запроса
+     */
+    private HttpRequest.Builder multipart(String path, SplittableRandom random) {
+        String item = DatasetGenerator.ITEMS[random.nextInt(DatasetGenerator.ITEMS.length)];
+        String properties = "{\"price\":" + random.nextInt(100, 200_000)
+                + ",\"description\":\"Почти новый, использовался пару месяцев\",\"title\":\"Продам " + item + "\"}";
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes(("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"properties\"\r\n"
+                + "Content-Type: application/json\r\n\r\n" + properties + "\r\n").getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"image\"; filename=\"image.jpg\"\r\n"
+                + "Content-Type: image/jpeg\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(image);
+        body.writeBytes(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(TIMEOUT)
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()));
+    }
+
+    /**
+     * Добавляет заголовок HTTP Basic сгенерированного пользователя.
+     *
+     * @param builder построитель запроса
+     * @param user    идентификатор пользователя
+     * @return построитель запроса
+     */
+    private static HttpRequest.Builder authorized(HttpRequest.Builder builder, int user) {
+        String credentials = DatasetGenerator.username(user) + ":" + DatasetGenerator.PASSWORD;
+        return builder.header("Authorization", "Basic "
+                + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Создает изображение JPEG размером 640x480 для новых объявлений.
+     *
+     * @return содержимое изображения
+     */
+    private static byte[] jpeg() {
+        BufferedImage picture = new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = picture.createGraphics();
+        graphics.setColor(Color.ORANGE);
+        graphics.fillRect(0, 0, 640, 480);
+        graphics.dispose();
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(picture, "jpg", output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return output.toByteArray();
+    }
+}
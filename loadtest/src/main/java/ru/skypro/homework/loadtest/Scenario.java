@@ -0,0 +1,53 @@
+package ru.skypro.homework.loadtest;
+
+import java.util.List;
+
+/**
+ * Сценарий нагрузочного теста: набор вызовов и количество объявлений по умолчанию.
+ */
+public enum Scenario {
+
+    /**
+     * Смесь всех вызовов API по их весам.
+     */
+    MIXED(List.of(Call.values()), 1_000_000),
+
+    /**
+     * Только полнотекстовый поиск по большой таблице объявлений: задержка поиска растёт с количеством
+     * совпадений, поэтому он измеряется отдельно от смеси и на 5 млн объявлений.
+     */
+    SEARCH(List.of(Call.SEARCH_ADS), 5_000_000);
+
+    /**
+     * Вызовы сценария.
+     */
+    private final List<Call> calls;
+
+    /**
+     * Количество объявлений, если оно не задано аргументом {@code --ads}.
+     */
+    private final int defaultAds;
+
+    Scenario(List<Call> calls, int defaultAds) {
+        this.calls = calls;
+        this.defaultAds = defaultAds;
+    }
+
+    /**
+     * Возвращает вызовы сценария.
+     *
+     * @return вызовы
+     */
+    public List<Call> calls() {
+        return calls;
+    }
+
+    /**
+     * Возвращает количество объявлений по умолчанию.
+     *
+     * @return количество объявлений
+     */
+    public int defaultAds() {
+        return defaultAds;
+    }
+}
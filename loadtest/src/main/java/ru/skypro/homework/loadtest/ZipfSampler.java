@@ -0,0 +1,68 @@
+package ru.skypro.homework.loadtest;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Выбирает идентификаторы от 1 до {@code n} по закону Ципфа: небольшая часть пользователей и объявлений
+ * получает большую часть комментариев и запросов.
+ * Ранги перемешиваются умножением на простое число, поэтому популярные идентификаторы
+ * разбросаны по всему диапазону, а не собраны в начале таблицы.
+ */
+public class ZipfSampler {
+
+    /**
+     * Множитель для перемешивания рангов.
+     */
+    private static final long SCATTER = 2_654_435_761L;
+
+    /**
+     * Накопленные вероятности рангов.
+     */
+    private final double[] cumulative;
+
+    /**
+     * Множитель, взаимно простой с количеством идентификаторов.
+     */
+    private final long scatter;
+
+    /**
+     * @param n    количество идентификаторов
+     * @param skew показатель распределения, чем он больше, тем сильнее перекос
+     */
+    public ZipfSampler(int n, double skew) {
+        cumulative = new double[n];
+        double sum = 0;
+        for (int rank = 0; rank < n; rank++) {
+            sum += 1 / Math.pow(rank + 1, skew);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < n; rank++) {
+            cumulative[rank] /= sum;
+        }
+
+        long multiplier = SCATTER % n;
+        while (multiplier == 0 || gcd(multiplier, n) != 1) {
+            multiplier++;
+        }
+        scatter = multiplier;
+    }
+
+    /**
+     * Выбирает идентификатор.
+     *
+     * @param random генератор случайных чисел
+     * @return идентификатор от 1 до {@code n}
+     */
+    public int next(RandomGenerator random) {
+        int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+        if (rank < 0) {
+            rank = Math.min(-rank - 1, cumulative.length - 1);
+        }
+        return (int) (rank * scatter % cumulative.length) + 1;
+    }
+
+    private static long gcd(long a, long b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+}
@@ -4,8 +4,10 @@ import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.info.Info;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @OpenAPIDefinition(info = @Info(title = "Ad API", version = "1.0", description = "Платформа для перепродажи вещей"))
+@EnableScheduling
 @SpringBootApplication
 public class HomeworkApplication {
     public static void main(String[] args) {
@@ -0,0 +1,78 @@
+package ru.skypro.homework.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.skypro.homework.repository.AdEntityRepository;
+
+import java.time.Duration;
+
+/**
+ * Кэш общего количества объявлений.
+ * Для небольших таблиц хранит точное значение {@code count(*)}, для больших — оценку
+ * из статистики PostgreSQL, чтобы не сканировать всю таблицу при каждом запросе списка.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AdCountCache {
+
+    /**
+     * Репозиторий для работы с сущностями объявлений в базе данных.
+     */
+    private final AdEntityRepository adEntityRepository;
+
+    /**
+     * Время жизни закэшированного значения.
+     */
+    @Value("${ads.count.ttl}")
+    private Duration ttl;
+
+    /**
+     * Порог оценочного количества строк, начиная с которого точный подсчёт не выполняется.
+     */
+    @Value("${ads.count.estimate-threshold}")
+    private long estimateThreshold;
+
+    /**
+     * Текущее закэшированное значение или null, если его нужно пересчитать.
+     */
+    private volatile Entry entry;
+
+    /**
+     * Возвращает закэшированное количество объявлений, при необходимости обновляя его.
+     *
+     * @return количество объявлений
+     */
+    public long get() {
+        Entry current = entry;
+        if (current != null && System.nanoTime() - current.expiresAt() < 0) {
+            return current.count();
+        }
+        synchronized (this) {
+            current = entry;
+            if (current == null || System.nanoTime() - current.expiresAt() >= 0) {
+                long estimate = adEntityRepository.estimateCount();
+                long count = estimate >= estimateThreshold ? estimate : adEntityRepository.count();
+                current = new Entry(count, System.nanoTime() + ttl.toNanos());
+                entry = current;
+                log.debug("Количество объявлений обновлено: {}", count);
+            }
+            return current.count();
+        }
+    }
+
+    /**
+     * Сбрасывает закэшированное значение после добавления или удаления объявлений.
+     */
+    public void invalidate() {
+        entry = null;
+    }
+
+    /**
+     * Закэшированное количество объявлений и момент его устаревания по {@link System#nanoTime()}.
+     */
+    private record Entry(long count, long expiresAt) {
+    }
+}
@@ -0,0 +1,22 @@
+package ru.skypro.homework.cache;
+
+/**
+ * Имена регионов кэша второго уровня Hibernate.
+ *
+ * @see SecondLevelCacheConfig
+ */
+public final class CacheRegions {
+
+    /**
+     * Регион сущностей объявлений.
+     */
+    public static final String AD = "ads";
+
+    /**
+     * Регион сущностей пользователей.
+     */
+    public static final String USER = "users";
+
+    private CacheRegions() {
+    }
+}
@@ -0,0 +1,235 @@
+package ru.skypro.homework.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Согласует кэш второго уровня между несколькими экземплярами приложения через канал
+ * {@code LISTEN/NOTIFY} PostgreSQL, без внешнего брокера сообщений.
+ * <p>
+ * При изменении кэшируемой сущности в ту же транзакцию добавляется {@code pg_notify}, поэтому уведомление
+ * доставляется только после фиксации изменений и никогда — при откате. Остальные экземпляры получают
+ * уведомление в отдельном потоке и удаляют сущность и результаты запросов из своего кэша.
+ * Задержка устаревания ограничена интервалом опроса канала; если соединение с каналом потеряно,
+ * после переподключения кэш очищается полностью, а до этого момента данные ограничены временем жизни записей в регионах.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "second-level-cache.cluster.enabled", havingValue = "true")
+public class ClusterCacheInvalidator implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    /**
+     * Канал PostgreSQL для уведомлений об изменении сущностей.
+     */
+    private static final String CHANNEL = "second_level_cache_invalidation";
+
+    /**
+     * Разделитель полей в тексте уведомления.
+     */
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Идентификатор экземпляра приложения, позволяющий пропускать собственные уведомления.
+     */
+    private final String instanceId = UUID.randomUUID().toString();
+
+    /**
+     * Фабрика сессий Hibernate.
+     */
+    private final SessionFactoryImplementor sessionFactory;
+
+    /**
+     * Параметры подключения к базе данных.
+     */
+    private final DataSourceProperties dataSourceProperties;
+
+    /**
+     * Публикует события об изменении сущностей для кэшей вне Hibernate.
+     */
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Интервал ожидания уведомлений.
+     */
+    private final Duration pollInterval;
+
+    /**
+     * Поток, получающий уведомления.
+     */
+    private final Thread listener;
+
+    /**
+     * Признак работы потока, получающего уведомления.
+     */
+    private volatile boolean running = true;
+
+    public ClusterCacheInvalidator(EntityManagerFactory entityManagerFactory,
+                                   DataSourceProperties dataSourceProperties,
+                                   ApplicationEventPublisher eventPublisher,
+                                   @Value("${second-level-cache.cluster.poll-interval}") Duration pollInterval) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.dataSourceProperties = dataSourceProperties;
+        this.eventPublisher = eventPublisher;
+        this.pollInterval = pollInterval;
+        this.listener = new Thread(this::listen, "second-level-cache-invalidation");
+        this.listener.setDaemon(true);
+    }
+
+    /**
+     * Регистрирует обработчики событий Hibernate и запускает поток, получающий уведомления.
+     */
+    @PostConstruct
+    public void start() {
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        listener.start();
+    }
+
+    /**
+     * Останавливает поток, получающий уведомления.
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        listener.interrupt();
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        publish(event.getSession(), event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        publish(event.getSession(), event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        publish(event.getSession(), event.getPersister(), event.getId());
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * Добавляет в текущую транзакцию уведомление об изменении кэшируемой сущности.
+     * Уведомление отправляется перед фиксацией через соединение этой же транзакции.
+     *
+     * @param session   сессия Hibernate
+     * @param persister описание сущности
+     * @param id        идентификатор сущности
+     */
+    private void publish(EventSource session, EntityPersister persister, Object id) {
+        if (!persister.canWriteToCache()) {
+            return;
+        }
+        String payload = instanceId + SEPARATOR + persister.getEntityName() + SEPARATOR + id;
+        session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) current ->
+                current.doWork(connection -> {
+                    try (PreparedStatement statement = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+                        statement.setString(1, CHANNEL);
+                        statement.setString(2, payload);
+                        statement.execute();
+                    }
+                }));
+    }
+
+    /**
+     * Получает уведомления в цикле, переподключаясь к базе данных при ошибках.
+     * Для канала используется отдельное соединение вне пула, так как оно занято всё время работы приложения.
+     */
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                // Пока соединения не было, уведомления могли быть пропущены
+                sessionFactory.getCache().evictAllRegions();
+                log.info("Подписка на канал {} для согласования кэша второго уровня", CHANNEL);
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) pollInterval.toMillis());
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            evict(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (running) {
+                    log.warn("Соединение с каналом {} потеряно, повторное подключение", CHANNEL, e);
+                    pause();
+                }
+            }
+        }
+    }
+
+    /**
+     * Удаляет из кэша сущность, изменённую другим экземпляром приложения, и все результаты запросов,
+     * которые могли её содержать, и сообщает об изменении остальным кэшам приложения.
+     *
+     * @param payload текст уведомления
+     */
+    private void evict(String payload) {
+        String[] parts = payload.split("\\" + SEPARATOR, 3);
+        if (parts.length != 3 || instanceId.equals(parts[0])) {
+            return;
+        }
+        Cache cache = sessionFactory.getCache();
+        // Идентификаторы всех кэшируемых сущностей целочисленные
+        Integer id = Integer.valueOf(parts[2]);
+        cache.evictEntityData(parts[1], id);
+        cache.evictQueryRegions();
+        eventPublisher.publishEvent(new EntityInvalidatedEvent(parts[1], id));
+        log.debug("Сущность {} с идентификатором {} удалена из кэша второго уровня", parts[1], parts[2]);
+    }
+
+    /**
+     * Ожидает перед повторным подключением.
+     */
+    private void pause() {
+        try {
+            Thread.sleep(pollInterval.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package ru.skypro.homework.cache;
+
+/**
+ * Событие об изменении сущности другим экземпляром приложения.
+ * Позволяет сбросить кэши, которые хранят данные сущности вне кэша второго уровня Hibernate.
+ *
+ * @param entityName имя сущности Hibernate
+ * @param id         идентификатор сущности
+ * @see ClusterCacheInvalidator
+ */
+public record EntityInvalidatedEvent(String entityName, Object id) {
+}
@@ -0,0 +1,97 @@
+package ru.skypro.homework.cache;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Кэш неизменяемых снимков (например, {@link UserSnapshot}) в пределах одного HTTP-запроса.
+ * Управляемые сущности JPA здесь не хранятся: проверка прав в {@code @PreAuthorize} и метод сервиса
+ * выполняются в разных транзакциях, и сущность из первой была бы отсоединена во второй.
+ * Снимки хранятся в атрибутах запроса, поэтому вне HTTP-запроса кэш не используется и снимки всегда загружаются заново.
+ */
+@Component
+public class RequestSnapshotCache {
+
+    private static final String ATTRIBUTE = RequestSnapshotCache.class.getName();
+
+    /**
+     * Возвращает снимок из кэша запроса или загружает его и сохраняет в кэш.
+     *
+     * @param type   класс снимка
+     * @param key    ключ снимка
+     * @param loader загрузчик снимка
+     * @param <T>    тип снимка
+     * @return найденный снимок или пустой Optional
+     */
+    public <T> Optional<T> get(Class<T> type, Object key, Supplier<Optional<T>> loader) {
+        Map<Key, Object> snapshots = snapshots(false);
+        if (snapshots != null) {
+            Object cached = snapshots.get(new Key(type, key));
+            if (cached != null) {
+                return Optional.of(type.cast(cached));
+            }
+        }
+
+        Optional<T> loaded = loader.get();
+        loaded.ifPresent(snapshot -> put(type, key, snapshot));
+        return loaded;
+    }
+
+    /**
+     * Сохраняет снимок в кэш текущего запроса.
+     *
+     * @param type     класс снимка
+     * @param key      ключ снимка
+     * @param snapshot снимок
+     * @param <T>      тип снимка
+     */
+    public <T> void put(Class<T> type, Object key, T snapshot) {
+        Map<Key, Object> snapshots = snapshots(true);
+        if (snapshots != null) {
+            snapshots.put(new Key(type, key), snapshot);
+        }
+    }
+
+    /**
+     * Удаляет снимок из кэша текущего запроса.
+     *
+     * @param type класс снимка
+     * @param key  ключ снимка
+     */
+    public void evict(Class<?> type, Object key) {
+        Map<Key, Object> snapshots = snapshots(false);
+        if (snapshots != null) {
+            snapshots.remove(new Key(type, key));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Key, Object> snapshots(boolean create) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+
+        Map<Key, Object> snapshots = (Map<Key, Object>) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (snapshots == null && create) {
+            snapshots = new HashMap<>();
+            attributes.setAttribute(ATTRIBUTE, snapshots, RequestAttributes.SCOPE_REQUEST);
+        }
+        return snapshots;
+    }
+
+    /**
+     * Ключ снимка в кэше.
+     *
+     * @param type класс снимка
+     * @param key  ключ снимка
+     */
+    private record Key(Class<?> type, Object key) {
+    }
+}
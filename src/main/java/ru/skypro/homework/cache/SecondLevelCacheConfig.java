@@ -0,0 +1,114 @@
+package ru.skypro.homework.cache;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Настройка кэша второго уровня и кэша запросов Hibernate на базе JCache (Caffeine).
+ * Для каждого региона задаются максимальный размер и время жизни записи, для всех регионов
+ * включена статистика попаданий и промахов (доступна через {@code Statistics} Hibernate и JMX).
+ * Регион меток времени обновления таблиц не ограничивается: вытеснение из него привело бы
+ * к выдаче устаревших результатов из кэша запросов.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    /**
+     * Максимальное количество объявлений в кэше.
+     */
+    @Value("${second-level-cache.ad.max-size}")
+    private long adMaxSize;
+
+    /**
+     * Время жизни объявления в кэше.
+     */
+    @Value("${second-level-cache.ad.ttl}")
+    private Duration adTtl;
+
+    /**
+     * Максимальное количество пользователей в кэше.
+     */
+    @Value("${second-level-cache.user.max-size}")
+    private long userMaxSize;
+
+    /**
+     * Время жизни пользователя в кэше.
+     */
+    @Value("${second-level-cache.user.ttl}")
+    private Duration userTtl;
+
+    /**
+     * Максимальное количество результатов запросов в кэше.
+     */
+    @Value("${second-level-cache.query.max-size}")
+    private long queryMaxSize;
+
+    /**
+     * Время жизни результата запроса в кэше.
+     */
+    @Value("${second-level-cache.query.ttl}")
+    private Duration queryTtl;
+
+    /**
+     * Передаёт Hibernate менеджер кэшей с настроенными регионами.
+     * Менеджер не регистрируется как бин Spring: его жизненным циклом управляет Hibernate,
+     * который закрывает менеджер вместе с фабрикой сессий.
+     *
+     * @return настройка свойств Hibernate
+     */
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer() {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, createCacheManager());
+    }
+
+    /**
+     * Создаёт менеджер кэшей и регионы кэша второго уровня.
+     * URI менеджера уникален, чтобы несколько контекстов приложения в одной JVM (например, в тестах)
+     * не использовали общие регионы.
+     *
+     * @return менеджер кэшей
+     */
+    private CacheManager createCacheManager() {
+        CaffeineCachingProvider provider = new CaffeineCachingProvider();
+        CacheManager cacheManager = provider.getCacheManager(
+                URI.create("second-level-cache-" + UUID.randomUUID()), provider.getDefaultClassLoader());
+
+        cacheManager.createCache(CacheRegions.AD, region(adMaxSize, adTtl));
+        cacheManager.createCache(CacheRegions.USER, region(userMaxSize, userTtl));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, region(queryMaxSize, queryTtl));
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, region(null, null));
+        return cacheManager;
+    }
+
+    /**
+     * Создаёт настройки региона.
+     *
+     * @param maxSize максимальное количество записей или null без ограничения
+     * @param ttl     время жизни записи или null без ограничения
+     * @return настройки региона
+     */
+    private CaffeineConfiguration<Object, Object> region(Long maxSize, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        if (maxSize != null) {
+            configuration.setMaximumSize(OptionalLong.of(maxSize));
+        }
+        if (ttl != null) {
+            configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        }
+        configuration.setStatisticsEnabled(true);
+        configuration.setManagementEnabled(true);
+        return configuration;
+    }
+}
@@ -0,0 +1,19 @@
+package ru.skypro.homework.cache;
+
+/**
+ * Неизменяемый снимок данных пользователя без пароля и связанных объявлений.
+ * Используется вместо сущности там, где нужны только данные профиля аутентифицированного пользователя.
+ *
+ * @param id              идентификатор пользователя
+ * @param username        логин пользователя
+ * @param firstName       имя пользователя
+ * @param lastName        фамилия пользователя
+ * @param phone           телефон пользователя
+ * @param authority       роль пользователя
+ * @param image           ссылка на аватар пользователя
+ * @param version         версия данных пользователя
+ * @param tokenGeneration поколение токенов пользователя
+ */
+public record UserSnapshot(int id, String username, String firstName, String lastName,
+                           String phone, String authority, String image, int version, int tokenGeneration) {
+}
@@ -0,0 +1,116 @@
+package ru.skypro.homework.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.skypro.homework.entity.UserEntity;
+import ru.skypro.homework.exception.UserEntityNotFoundException;
+import ru.skypro.homework.mapper.UserEntityMapper;
+import ru.skypro.homework.repository.UserEntityRepository;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Кэш снимков пользователей по логину.
+ * Снимок ищется сначала в кэше текущего запроса, затем в ограниченном по размеру и времени жизни
+ * кэше процесса и только после этого загружается из базы данных, поэтому аутентифицированный
+ * пользователь загружается не больше одного раза за запрос и, как правило, не загружается вовсе.
+ */
+@Slf4j
+@Component
+public class UserSnapshotCache {
+
+    /**
+     * Репозиторий для работы с сущностями пользователей в базе данных.
+     */
+    private final UserEntityRepository userEntityRepository;
+
+    /**
+     * Маппер для преобразования сущности пользователя в снимок.
+     */
+    private final UserEntityMapper userEntityMapper;
+
+    /**
+     * Кэш сущностей в пределах текущего запроса.
+     */
+    private final RequestSnapshotCache requestSnapshotCache;
+
+    /**
+     * Снимки пользователей, сгруппированные по логину.
+     */
+    private final Cache<String, UserSnapshot> cache;
+
+    public UserSnapshotCache(UserEntityRepository userEntityRepository,
+                             UserEntityMapper userEntityMapper,
+                             RequestSnapshotCache requestSnapshotCache,
+                             @Value("${users.cache.max-size}") long maxSize,
+                             @Value("${users.cache.ttl}") Duration ttl) {
+        this.userEntityRepository = userEntityRepository;
+        this.userEntityMapper = userEntityMapper;
+        this.requestSnapshotCache = requestSnapshotCache;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Возвращает снимок пользователя по логину.
+     *
+     * @param username логин пользователя
+     * @return снимок пользователя
+     * @throws UserEntityNotFoundException если пользователь не найден
+     */
+    public UserSnapshot get(String username) {
+        return requestSnapshotCache.get(UserSnapshot.class, username, () -> Optional.ofNullable(cache.get(username, this::load)))
+                .orElseThrow(() -> new UserEntityNotFoundException("Пользователь не найден"));
+    }
+
+    /**
+     * Удаляет снимок пользователя из кэша. Если вызов происходит внутри транзакции,
+     * удаление повторяется после её фиксации, чтобы параллельный запрос не вернул в кэш старые данные.
+     *
+     * @param username логин пользователя
+     */
+    public void invalidate(String username) {
+        cache.invalidate(username);
+        requestSnapshotCache.evict(UserSnapshot.class, username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(username);
+                }
+            });
+        }
+        log.debug("Снимок пользователя {} удалён из кэша", username);
+    }
+
+    /**
+     * Удаляет из кэша снимок пользователя, изменённого другим экземпляром приложения.
+     *
+     * @param event событие об изменении сущности
+     */
+    @EventListener
+    public void onEntityInvalidated(EntityInvalidatedEvent event) {
+        if (UserEntity.class.getName().equals(event.entityName())) {
+            cache.asMap().values().removeIf(snapshot -> event.id().equals(snapshot.id()));
+        }
+    }
+
+    /**
+     * Загружает снимок пользователя из базы данных.
+     *
+     * @param username логин пользователя
+     * @return снимок пользователя или null, если пользователь не найден
+     */
+    private UserSnapshot load(String username) {
+        return userEntityRepository.findByUsername(username).map(userEntityMapper::toSnapshot).orElse(null);
+    }
+}
@@ -1,14 +1,19 @@
 package ru.skypro.homework.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
@@ -17,9 +22,15 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.JdbcUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import ru.skypro.homework.dto.ErrorResponseDTO;
+import ru.skypro.homework.security.AuthenticationCache;
+import ru.skypro.homework.security.BearerTokenAuthenticationFilter;
+import ru.skypro.homework.security.CachingAuthenticationProvider;
+import ru.skypro.homework.security.TimedPasswordEncoder;
+import ru.skypro.homework.security.TokenService;
 
 import javax.sql.DataSource;
 import java.io.IOException;
@@ -38,6 +49,8 @@ public class WebSecurityConfig {
 
     private final ObjectMapper objectMapper;
 
+    private final TokenService tokenService;
+
     /**
      * Список путей, которые не требуют аутентификации.
      */
@@ -46,6 +59,7 @@ public class WebSecurityConfig {
             "/swagger-ui/**",
             "/v3/api-docs/**",
             "/login",
+            "/refresh",
             "/register"
     };
 
@@ -67,6 +81,25 @@ public class WebSecurityConfig {
         return manager;
     }
 
+    /**
+     * Создает провайдер аутентификации, который проверяет пароль через BCrypt
+     * только при отсутствии учётных данных в кэше.
+     *
+     * @param userDetailsManager  менеджер пользователей
+     * @param passwordEncoder     кодировщик паролей
+     * @param authenticationCache кэш проверенных учётных данных
+     * @return провайдер аутентификации
+     */
+    @Bean
+    public AuthenticationProvider authenticationProvider(JdbcUserDetailsManager userDetailsManager,
+                                                         PasswordEncoder passwordEncoder,
+                                                         AuthenticationCache authenticationCache) {
+        DaoAuthenticationProvider daoAuthenticationProvider = new DaoAuthenticationProvider();
+        daoAuthenticationProvider.setUserDetailsService(userDetailsManager);
+        daoAuthenticationProvider.setPasswordEncoder(passwordEncoder);
+        return new CachingAuthenticationProvider(daoAuthenticationProvider, authenticationCache);
+    }
+
     /**
      * Настраивает цепочку безопасности для обработки HTTP-запросов.
      *
@@ -81,11 +114,15 @@ public class WebSecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .authorizeHttpRequests(auth ->
                         auth
-                                .requestMatchers(HttpMethod.GET, "/ads").permitAll()
+                                .requestMatchers(HttpMethod.GET, "/ads", "/ads/search", "/ads/stream").permitAll()
                                 .requestMatchers(HttpMethod.GET, "/images/**").permitAll()
                                 .requestMatchers(AUTH_WHITELIST).permitAll()
+                                .requestMatchers(EndpointRequest.toAnyEndpoint()).permitAll()
                                 .anyRequest().authenticated())
                 .httpBasic(withDefaults())
+                .logout(AbstractHttpConfigurer::disable)
+                .addFilterBefore(new BearerTokenAuthenticationFilter(tokenService, this::authenticationEntryPoint),
+                        BasicAuthenticationFilter.class)
                 .exceptionHandling(ex -> ex
                         .authenticationEntryPoint(this::authenticationEntryPoint)
                         .accessDeniedHandler(this::accessDeniedHandler));
@@ -103,6 +140,7 @@ public class WebSecurityConfig {
         configuration.setAllowedOrigins(List.of("http://localhost:3000"));
         configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
         configuration.setAllowedHeaders(List.of("*"));
+        configuration.setExposedHeaders(List.of(HttpHeaders.ETAG));
         configuration.setAllowCredentials(true);
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
@@ -111,12 +149,14 @@ public class WebSecurityConfig {
 
     /**
      * Создает кодировщик паролей для безопасного хранения.
+     * Время работы BCrypt публикуется в метриках.
      *
+     * @param meterRegistry реестр метрик
      * @return экземпляр кодировщика паролей
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        return new TimedPasswordEncoder(new BCryptPasswordEncoder(), meterRegistry);
     }
 
     /**
@@ -5,21 +5,34 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.skypro.homework.dto.Ad;
+import ru.skypro.homework.dto.AdFilter;
+import ru.skypro.homework.dto.AdImportFormat;
+import ru.skypro.homework.dto.AdImportResult;
+import ru.skypro.homework.dto.AdSort;
 import ru.skypro.homework.dto.Ads;
 import ru.skypro.homework.dto.CreateOrUpdateAd;
 import ru.skypro.homework.dto.ExtendedAd;
+import ru.skypro.homework.dto.Versioned;
+import ru.skypro.homework.image.ImageResponseWriter;
 import ru.skypro.homework.service.AdEntityService;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Контроллер для управления сущностями объявлений.
@@ -31,18 +44,104 @@ import java.io.IOException;
 @RestController
 public class AdController {
 
+    /**
+     * Размер буфера сжатия выгрузки в байтах.
+     */
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
     private final AdEntityService adEntityService;
 
+    private final ImageResponseWriter imageResponseWriter;
+
     /**
-     * Получает все объявления.
+     * Получает страницу объявлений, отобранных по цене и автору и отсортированных по дате добавления или цене.
+     * Для получения следующей страницы передаётся курсор из поля {@code next} предыдущего ответа
+     * вместе с теми же условиями отбора и сортировки.
      *
+     * @param cursor   курсор следующей страницы или null для первой страницы
+     * @param limit    размер страницы или null для размера по умолчанию
+     * @param minPrice минимальная цена или null
+     * @param maxPrice максимальная цена или null
+     * @param author   идентификатор автора или null
+     * @param sort     порядок сортировки
      * @return DTO с данными объявлений
      */
     @Operation(summary = "Получение всех объявлений", operationId = "getAllAds")
     @ApiResponse(responseCode = "200", description = "OK", content = @Content(schema = @Schema(implementation = Ads.class)))
+    @ApiResponse(responseCode = "400", description = "Bad Request")
     @GetMapping
-    public Ads getAllAds() {
-        return adEntityService.getAllAds();
+    public Ads getAllAds(@RequestParam(required = false) String cursor, @RequestParam(required = false) Integer limit,
+                         @RequestParam(required = false) Integer minPrice, @RequestParam(required = false) Integer maxPrice,
+                         @RequestParam(required = false) Integer author, @RequestParam(defaultValue = "OLDEST") AdSort sort) {
+        return adEntityService.getAllAds(new AdFilter(minPrice, maxPrice, author, sort), cursor, limit);
+    }
+
+    /**
+     * Ищет объявления по тексту заголовка и описания. Результаты отсортированы по релевантности,
+     * для получения следующей страницы передаётся курсор из поля {@code next} предыдущего ответа.
+     *
+     * @param q      поисковый запрос
+     * @param cursor курсор следующей страницы или null для первой страницы
+     * @param limit  размер страницы или null для размера по умолчанию
+     * @return DTO с найденными объявлениями
+     */
+    @Operation(summary = "Поиск объявлений", operationId = "searchAds")
+    @ApiResponse(responseCode = "200", description = "OK", content = @Content(schema = @Schema(implementation = Ads.class)))
+    @ApiResponse(responseCode = "400", description = "Bad Request")
+    @GetMapping("/search")
+    public Ads searchAds(@RequestParam String q, @RequestParam(required = false) String cursor,
+                         @RequestParam(required = false) Integer limit) {
+        return adEntityService.searchAds(q, cursor, limit);
+    }
+
+    /**
+     * Выдаёт все объявления потоком в формате NDJSON по мере чтения из базы данных.
+     *
+     * @return тело ответа, записывающее объявления в поток
+     */
+    @Operation(summary = "Потоковое получение всех объявлений", operationId = "streamAllAds")
+    @ApiResponse(responseCode = "200", description = "OK",
+            content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE, schema = @Schema(implementation = Ad.class)))
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllAds() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(adEntityService::streamAllAds);
+    }
+
+    /**
+     * Выгружает объявления в формате NDJSON, при необходимости с комментариями и именами авторов.
+     * Если клиент принимает gzip с ненулевым весом, ответ сжимается. Для продолжения прерванной выгрузки передаётся
+     * идентификатор последнего полученного объявления.
+     *
+     * @param after          идентификатор последнего полученного объявления или 0 для выгрузки с начала
+     * @param comments       true если нужно выгрузить комментарии объявлений
+     * @param authors        true если нужно выгрузить имена авторов
+     * @param acceptEncoding значение заголовка Accept-Encoding
+     * @return тело ответа, записывающее объявления в поток
+     */
+    @Operation(summary = "Выгрузка объявлений", operationId = "exportAds")
+    @ApiResponse(responseCode = "200", description = "OK",
+            content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE, schema = @Schema(implementation = Ad.class)))
+    @ApiResponse(responseCode = "401", description = "Unauthorized")
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportAds(@RequestParam(defaultValue = "0") int after,
+                                                           @RequestParam(defaultValue = "false") boolean comments,
+                                                           @RequestParam(defaultValue = "false") boolean authors,
+                                                           @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!gzip) {
+            return response.body(outputStream -> adEntityService.exportAds(outputStream, after, comments, authors));
+        }
+        return response.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .body(outputStream -> {
+                    GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream, GZIP_BUFFER_SIZE);
+                    adEntityService.exportAds(gzipOutputStream, after, comments, authors);
+                    gzipOutputStream.finish();
+                });
     }
 
     /**
@@ -62,19 +161,60 @@ public class AdController {
         return adEntityService.addAd(properties, image, authentication);
     }
 
+    /**
+     * Импортирует объявления из NDJSON (по одному объекту JSON в строке). Доступно только пользователям с ролью ADMIN.
+     * Изображения объявлений должны быть сохранены заранее.
+     *
+     * @param inputStream тело запроса с объявлениями
+     * @return количество добавленных и отклонённых объявлений с описанием ошибок
+     * @throws IOException если произошла ошибка чтения запроса
+     */
+    @Operation(summary = "Импорт объявлений из NDJSON", operationId = "importAdsNdjson")
+    @ApiResponse(responseCode = "200", description = "OK", content = @Content(schema = @Schema(implementation = AdImportResult.class)))
+    @ApiResponse(responseCode = "401", description = "Unauthorized")
+    @ApiResponse(responseCode = "403", description = "Forbidden")
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public AdImportResult importAdsNdjson(InputStream inputStream) throws IOException {
+        return adEntityService.importAds(inputStream, AdImportFormat.NDJSON);
+    }
+
+    /**
+     * Импортирует объявления из CSV со строкой заголовков. Доступно только пользователям с ролью ADMIN.
+     * Изображения объявлений должны быть сохранены заранее.
+     *
+     * @param inputStream тело запроса с объявлениями
+     * @return количество добавленных и отклонённых объявлений с описанием ошибок
+     * @throws IOException если произошла ошибка чтения запроса
+     */
+    @Operation(summary = "Импорт объявлений из CSV", operationId = "importAdsCsv")
+    @ApiResponse(responseCode = "200", description = "OK", content = @Content(schema = @Schema(implementation = AdImportResult.class)))
+    @ApiResponse(responseCode = "400", description = "Bad Request")
+    @ApiResponse(responseCode = "401", description = "Unauthorized")
+    @ApiResponse(responseCode = "403", description = "Forbidden")
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public AdImportResult importAdsCsv(InputStream inputStream) throws IOException {
+        return adEntityService.importAds(inputStream, AdImportFormat.CSV);
+    }
+
     /**
      * Получает расширенную информацию объявления текущего аутентифицированного пользователя.
+     * Версия объявления и автора передаётся в слабом ETag. Если она совпадает с If-None-Match,
+     * возвращается 304 и DTO не сериализуется.
      *
      * @param id уникальный идентификатор объявления
      * @return DTO с расширенными данными объявления
      */
     @Operation(summary = "Получение информации об объявлении", operationId = "getAds")
     @ApiResponse(responseCode = "200", description = "OK", content = @Content(schema = @Schema(implementation = ExtendedAd.class)))
+    @ApiResponse(responseCode = "304", description = "Not Modified")
     @ApiResponse(responseCode = "401", description = "Unauthorized")
     @ApiResponse(responseCode = "404", description = "Not found")
     @GetMapping("{id}")
-    public ExtendedAd getAds(@PathVariable int id, Authentication authentication) {
-        return adEntityService.getAds(id, authentication);
+    public ResponseEntity<ExtendedAd> getAds(@PathVariable int id, Authentication authentication) {
+        Versioned<ExtendedAd> ad = adEntityService.getAds(id, authentication);
+        return ResponseEntity.ok().eTag(EntityTags.weak(ad.version())).body(ad.body());
     }
 
     /**
@@ -99,9 +239,11 @@ public class AdController {
     /**
      * Обновляет объявление. Доступно только аутентифицированным пользователям,
      * которые являются авторами объявления или пользователям с ролью ADMIN.
+     * Если передан If-Match с ETag объявления, а объявление с тех пор изменилось, возвращается 412.
      *
      * @param id       уникальный идентификатор объявления
      * @param updateAd данные для редактирования (заголовок, описание и цена объявления)
+     * @param ifMatch  значение заголовка If-Match или null
      * @return DTO с данными объявления
      */
     @Operation(summary = "Обновление информации об объявлении", operationId = "updateAds")
@@ -109,10 +251,13 @@ public class AdController {
     @ApiResponse(responseCode = "401", description = "Unauthorized")
     @ApiResponse(responseCode = "403", description = "Forbidden")
     @ApiResponse(responseCode = "404", description = "Not found")
+    @ApiResponse(responseCode = "409", description = "Conflict")
+    @ApiResponse(responseCode = "412", description = "Precondition Failed")
     @PreAuthorize("hasRole('USER') and @adEntityServiceImpl.isOwner(authentication.name, #id) or hasRole('ADMIN')")
     @PatchMapping("{id}")
-    public Ad updateAds(@PathVariable int id, @Valid @RequestBody CreateOrUpdateAd updateAd, Authentication authentication) {
-        return adEntityService.updateAds(id, updateAd);
+    public Ad updateAds(@PathVariable int id, @Valid @RequestBody CreateOrUpdateAd updateAd,
+                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch, Authentication authentication) {
+        return adEntityService.updateAds(id, updateAd, EntityTags.versions(ifMatch));
     }
 
     /**
@@ -136,7 +281,8 @@ public class AdController {
      * @param id             уникальный идентификатор объявления
      * @param image          файл изображения
      * @param authentication объект аутентификации для получения логина пользователя
-     * @return массив байт изображения
+     * @param request        HTTP-запрос
+     * @param response       HTTP-ответ, в который потоком записывается новое изображение
      */
     @Operation(summary = "Обновление картинки объявления", operationId = "updateImage")
     @ApiResponse(responseCode = "200", description = "OK",
@@ -146,7 +292,47 @@ public class AdController {
     @ApiResponse(responseCode = "404", description = "Not found")
     @PreAuthorize("hasRole('USER') and @adEntityServiceImpl.isOwner(authentication.name, #id) or hasRole('ADMIN')")
     @PatchMapping(value = "{id}/image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public byte[] updateImage(@PathVariable int id, @RequestParam MultipartFile image, Authentication authentication) throws IOException {
-        return adEntityService.updateImage(id, image, authentication);
+    public void updateImage(@PathVariable int id, @RequestParam MultipartFile image, Authentication authentication,
+                            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String imagePath = adEntityService.updateImage(id, image, authentication);
+        imageResponseWriter.writeSaved(imagePath, request, response);
+    }
+
+    /**
+     * Проверяет, принимает ли клиент сжатие gzip. Заголовок разбирается по кодировкам и их весам:
+     * gzip выбирается, если он указан явно или через {@code *} с весом больше нуля.
+     * Явно указанный gzip имеет приоритет над {@code *}, некорректный вес считается нулевым.
+     *
+     * @param acceptEncoding значение заголовка Accept-Encoding или null
+     * @return true если ответ можно сжать gzip
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipWeight = null;
+        Double anyWeight = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim();
+            double weight = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.length() > 2 && parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        weight = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        weight = 0;
+                    }
+                }
+            }
+            if (coding.equalsIgnoreCase("gzip")) {
+                gzipWeight = weight;
+            } else if (coding.equals("*")) {
+                anyWeight = weight;
+            }
+        }
+        Double weight = gzipWeight != null ? gzipWeight : anyWeight;
+        return weight != null && weight > 0;
     }
 }
@@ -1,6 +1,8 @@
 package ru.skypro.homework.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -8,14 +10,19 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 import ru.skypro.homework.dto.Login;
+import ru.skypro.homework.dto.RefreshToken;
 import ru.skypro.homework.dto.Register;
+import ru.skypro.homework.dto.Token;
 import ru.skypro.homework.service.AuthService;
 
+import java.util.Optional;
+
 
 /**
  * Контроллер для управления аутентификации пользователей.
@@ -30,24 +37,62 @@ public class AuthController {
     private final AuthService authService;
 
     /**
-     * Проверяет авторизацию пользователя.
+     * Проверяет авторизацию пользователя и выдаёт токены доступа и обновления.
      *
      * @param login данные для авторизации (логин и пароль пользователя)
-     * @return 200 OK если логин и пароль корректны, иначе 403 UNAUTHORIZED
+     * @return 200 OK с токенами если логин и пароль корректны, иначе 401 UNAUTHORIZED
      */
     @Tag(name = "Авторизация")
     @Operation(summary = "Авторизация пользователя", operationId = "login")
-    @ApiResponse(responseCode = "200", description = "OK")
+    @ApiResponse(responseCode = "200", description = "OK", content = @Content(schema = @Schema(implementation = Token.class)))
     @ApiResponse(responseCode = "401", description = "Unauthorized")
     @PostMapping("/login")
     public ResponseEntity<?> login(@Valid @RequestBody Login login) {
-        if (authService.login(login.getUsername(), login.getPassword())) {
-            return ResponseEntity.ok().build();
+        Optional<Token> token = authService.login(login.getUsername(), login.getPassword());
+        if (token.isPresent()) {
+            return ResponseEntity.ok(token.get());
+        } else {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+    }
+
+    /**
+     * Выдаёт новую пару токенов по токену обновления.
+     *
+     * @param refreshToken токен обновления
+     * @return 200 OK с новыми токенами если токен обновления действителен, иначе 401 UNAUTHORIZED
+     */
+    @Tag(name = "Авторизация")
+    @Operation(summary = "Обновление токенов", operationId = "refresh")
+    @ApiResponse(responseCode = "200", description = "OK", content = @Content(schema = @Schema(implementation = Token.class)))
+    @ApiResponse(responseCode = "401", description = "Unauthorized")
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@Valid @RequestBody RefreshToken refreshToken) {
+        Optional<Token> token = authService.refresh(refreshToken.getRefreshToken());
+        if (token.isPresent()) {
+            return ResponseEntity.ok(token.get());
         } else {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
     }
 
+    /**
+     * Отзывает токен доступа текущего запроса и, если передан, токен обновления.
+     *
+     * @param refreshToken   токен обновления (необязательно)
+     * @param authentication объект аутентификации
+     * @return 204 No Content
+     */
+    @Tag(name = "Авторизация")
+    @Operation(summary = "Выход пользователя", operationId = "logout")
+    @ApiResponse(responseCode = "204", description = "No Content")
+    @ApiResponse(responseCode = "401", description = "Unauthorized")
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestBody(required = false) RefreshToken refreshToken, Authentication authentication) {
+        authService.logout(authentication, refreshToken == null ? null : refreshToken.getRefreshToken());
+        return ResponseEntity.noContent().build();
+    }
+
     /**
      * Регистрирует пользователя.
      *
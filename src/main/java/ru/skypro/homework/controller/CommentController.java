@@ -7,12 +7,15 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import ru.skypro.homework.dto.Comment;
 import ru.skypro.homework.dto.Comments;
 import ru.skypro.homework.dto.CreateOrUpdateComment;
+import ru.skypro.homework.dto.Versioned;
 import ru.skypro.homework.service.CommentEntityService;
 
 
@@ -29,18 +32,24 @@ public class CommentController {
     private final CommentEntityService commentEntityService;
 
     /**
-     * Получает комментарии объявления. Доступно только аутентифицированным пользователям.
+     * Получает страницу комментариев объявления от новых к старым. Доступно только аутентифицированным пользователям.
      *
-     * @param id уникальный идентификатор объявления
+     * @param id     уникальный идентификатор объявления
+     * @param before курсор из поля next предыдущей страницы или время создания комментария,
+     *               до которого выдаются комментарии; null для первой страницы
+     * @param limit  размер страницы или null для размера по умолчанию
      * @return DTO с данными комментариев
      */
     @Operation(summary = "Получение комментариев объявления", operationId = "getComments")
     @ApiResponse(responseCode = "200", description = "OK", content = @Content(schema = @Schema(implementation = Comments.class)))
+    @ApiResponse(responseCode = "400", description = "Bad Request")
     @ApiResponse(responseCode = "401", description = "Unauthorized")
     @ApiResponse(responseCode = "404", description = "Not found")
     @GetMapping("{id}/comments")
-    public Comments getComments(@PathVariable int id) {
-        return commentEntityService.getComments(id);
+    public Comments getComments(@PathVariable int id,
+                                @RequestParam(required = false) String before,
+                                @RequestParam(required = false) Integer limit) {
+        return commentEntityService.getComments(id, before, limit);
     }
 
     /**
@@ -49,15 +58,16 @@ public class CommentController {
      * @param id             уникальный идентификатор объявления
      * @param createComment  данные для создания (текст комментария)
      * @param authentication объект аутентификации для получения логина пользователя
-     * @return DTO с данными комментария
+     * @return DTO с данными комментария и версией комментария в слабом ETag
      */
     @Operation(summary = "Добавление комментария к объявлению", operationId = "addComment")
     @ApiResponse(responseCode = "200", description = "OK", content = @Content(schema = @Schema(implementation = Comment.class)))
     @ApiResponse(responseCode = "401", description = "Unauthorized")
     @ApiResponse(responseCode = "404", description = "Not found")
     @PostMapping("{id}/comments")
-    public Comment addComment(@PathVariable int id, @Valid @RequestBody CreateOrUpdateComment createComment, Authentication authentication) {
-        return commentEntityService.addComment(id, createComment, authentication);
+    public ResponseEntity<Comment> addComment(@PathVariable int id, @Valid @RequestBody CreateOrUpdateComment createComment, Authentication authentication) {
+        Versioned<Comment> comment = commentEntityService.addComment(id, createComment, authentication);
+        return ResponseEntity.ok().eTag(EntityTags.weak(comment.version())).body(comment.body());
     }
 
     /**
@@ -81,20 +91,26 @@ public class CommentController {
     /**
      * Обновляет комментарий в объявлении. Доступно только аутентифицированным пользователям,
      * которые являются авторами комментария или пользователям с ролью ADMIN.
+     * Если передан If-Match с ETag комментария, а комментарий с тех пор изменился, возвращается 412.
      *
      * @param adId          уникальный идентификатор объявления
      * @param commentId     уникальный идентификатор комментария
      * @param updateComment данные для редактирования (текст комментария)
-     * @return DTO с данными комментария
+     * @param ifMatch       значение заголовка If-Match или null
+     * @return DTO с данными комментария и новой версией комментария в слабом ETag
      */
     @Operation(summary = "Обновление комментария", operationId = "updateComment")
     @ApiResponse(responseCode = "200", description = "OK", content = @Content(schema = @Schema(implementation = Comment.class)))
     @ApiResponse(responseCode = "401", description = "Unauthorized")
     @ApiResponse(responseCode = "403", description = "Forbidden")
     @ApiResponse(responseCode = "404", description = "Not found")
+    @ApiResponse(responseCode = "409", description = "Conflict")
+    @ApiResponse(responseCode = "412", description = "Precondition Failed")
     @PreAuthorize("hasRole('USER') and @commentEntityServiceImpl.isOwner(authentication.name, #adId, #commentId) or hasRole('ADMIN')")
     @PatchMapping("{adId}/comments/{commentId}")
-    public Comment updateComment(@PathVariable int adId, @PathVariable int commentId, @Valid @RequestBody CreateOrUpdateComment updateComment, Authentication authentication) {
-        return commentEntityService.updateComment(adId, commentId, updateComment);
+    public ResponseEntity<Comment> updateComment(@PathVariable int adId, @PathVariable int commentId, @Valid @RequestBody CreateOrUpdateComment updateComment,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch, Authentication authentication) {
+        Versioned<Comment> comment = commentEntityService.updateComment(adId, commentId, updateComment, EntityTags.versions(ifMatch));
+        return ResponseEntity.ok().eTag(EntityTags.weak(comment.version())).body(comment.body());
     }
 }
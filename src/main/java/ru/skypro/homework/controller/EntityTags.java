@@ -0,0 +1,53 @@
+package ru.skypro.homework.controller;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Преобразует версии сущностей в слабые ETag и разбирает заголовок If-Match.
+ * Тег имеет вид {@code W/"5"}, у объявления {@code W/"5.3"}, где вторая версия относится к автору.
+ * При проверке If-Match учитывается только первая версия, то есть версия изменяемой сущности.
+ */
+final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    /**
+     * Создаёт слабый ETag из версии.
+     *
+     * @param version версия данных
+     * @return значение заголовка ETag
+     */
+    static String weak(String version) {
+        return "W/\"" + version + "\"";
+    }
+
+    /**
+     * Возвращает версии сущности, перечисленные в заголовке If-Match.
+     * Теги, выданные не этим сервером, пропускаются и не совпадут ни с одной версией.
+     *
+     * @param ifMatch значение заголовка If-Match
+     * @return множество версий или null, если заголовок не передан или равен {@code *}
+     */
+    static Set<Integer> versions(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Set<Integer> versions = new HashSet<>();
+        for (String tag : ifMatch.split(",")) {
+            String value = tag.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            value = value.replace("\"", "");
+            int separator = value.indexOf('.');
+            try {
+                versions.add(Integer.parseInt(separator < 0 ? value : value.substring(0, separator)));
+            } catch (NumberFormatException e) {
+                // Чужой тег не может совпасть с версией сущности
+            }
+        }
+        return versions;
+    }
+}
@@ -0,0 +1,50 @@
+package ru.skypro.homework.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.skypro.homework.image.ImageResponseWriter;
+
+import java.io.IOException;
+
+/**
+ * Контроллер для отдачи сохранённых изображений.
+ * Изображения неизменяемы, поэтому отдаются с сильным ETag и бессрочным кэшированием,
+ * поддерживаются условные запросы и запросы диапазона.
+ */
+@Tag(name = "Изображения")
+@RequiredArgsConstructor
+@RequestMapping("/images")
+@RestController
+public class ImageController {
+
+    private final ImageResponseWriter imageResponseWriter;
+
+    /**
+     * Отдаёт изображение или его уменьшенную версию. Доступно всем пользователям.
+     *
+     * @param path     путь к изображению внутри папки изображений
+     * @param request  HTTP-запрос
+     * @param response HTTP-ответ
+     */
+    @Operation(summary = "Получение изображения", operationId = "getImage")
+    @ApiResponse(responseCode = "200", description = "OK",
+            content = @Content(mediaType = "application/octet-stream", schema = @Schema(type = "string", format = "binary")))
+    @ApiResponse(responseCode = "206", description = "Partial Content")
+    @ApiResponse(responseCode = "304", description = "Not Modified")
+    @ApiResponse(responseCode = "404", description = "Not found")
+    @ApiResponse(responseCode = "416", description = "Range Not Satisfiable")
+    @GetMapping("/{*path}")
+    public void getImage(@PathVariable String path, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        imageResponseWriter.write("/images" + path, request, response);
+    }
+}
@@ -7,7 +7,9 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -15,6 +17,7 @@ import org.springframework.web.multipart.MultipartFile;
 import ru.skypro.homework.dto.NewPassword;
 import ru.skypro.homework.dto.UpdateUser;
 import ru.skypro.homework.dto.User;
+import ru.skypro.homework.dto.Versioned;
 import ru.skypro.homework.service.UserEntityService;
 
 import java.io.IOException;
@@ -50,31 +53,40 @@ public class UserController {
 
     /**
      * Получает информацию о текущем аутентифицированном пользователе.
+     * Версия пользователя передаётся в слабом ETag. Если она совпадает с If-None-Match,
+     * возвращается 304 и DTO не сериализуется.
      *
      * @param authentication объект аутентификации для получения логина пользователя
      * @return DTO с данными пользователя
      */
     @Operation(summary = "Получение информации об авторизованном пользователе", operationId = "getUser")
     @ApiResponse(responseCode = "200", description = "OK", content = @Content(schema = @Schema(implementation = User.class)))
+    @ApiResponse(responseCode = "304", description = "Not Modified")
     @ApiResponse(responseCode = "401", description = "Unauthorized")
     @GetMapping("/me")
-    public User getUser(Authentication authentication) {
-        return userEntityService.getUser(authentication);
+    public ResponseEntity<User> getUser(Authentication authentication) {
+        Versioned<User> user = userEntityService.getUser(authentication);
+        return ResponseEntity.ok().eTag(EntityTags.weak(user.version())).body(user.body());
     }
 
     /**
      * Обновляет информацию о текущем аутентифицированном пользователе.
+     * Если передан If-Match с ETag пользователя, а данные с тех пор изменились, возвращается 412.
      *
      * @param updateUser     данные для обновления (имя, фамилия, телефон)
+     * @param ifMatch        значение заголовка If-Match или null
      * @param authentication объект аутентификации для получения логина пользователя
      * @return обновленный DTO пользователя
      */
     @Operation(summary = "Обновление информации об авторизованном пользователе", operationId = "updateUser")
     @ApiResponse(responseCode = "200", description = "OK", content = @Content(schema = @Schema(implementation = UpdateUser.class)))
     @ApiResponse(responseCode = "401", description = "Unauthorized")
+    @ApiResponse(responseCode = "409", description = "Conflict")
+    @ApiResponse(responseCode = "412", description = "Precondition Failed")
     @PatchMapping("/me")
-    public UpdateUser updateUser(@Valid @RequestBody UpdateUser updateUser, Authentication authentication) {
-        return userEntityService.updateUser(updateUser, authentication);
+    public UpdateUser updateUser(@Valid @RequestBody UpdateUser updateUser,
+                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch, Authentication authentication) {
+        return userEntityService.updateUser(updateUser, authentication, EntityTags.versions(ifMatch));
     }
 
     /**
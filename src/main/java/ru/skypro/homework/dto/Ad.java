@@ -22,6 +22,12 @@ public class Ad {
     @Schema(type = "string", description = "ссылка на картинку объявления")
     private String image;
 
+    /**
+     * Ссылка на миниатюру изображения объявления для списков.
+     */
+    @Schema(type = "string", description = "ссылка на миниатюру картинки объявления")
+    private String imageThumbnail;
+
     /**
      * Уникальный идентификатор объявления.
      */
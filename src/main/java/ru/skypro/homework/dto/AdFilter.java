@@ -0,0 +1,22 @@
+package ru.skypro.homework.dto;
+
+/**
+ * Условия отбора и порядок сортировки списка объявлений.
+ * Незаданные условия не ограничивают выборку.
+ *
+ * @param minPrice минимальная цена включительно или null
+ * @param maxPrice максимальная цена включительно или null
+ * @param author   идентификатор автора или null
+ * @param sort     порядок сортировки
+ */
+public record AdFilter(Integer minPrice, Integer maxPrice, Integer author, AdSort sort) {
+
+    /**
+     * Проверяет, ограничивает ли фильтр выборку объявлений.
+     *
+     * @return true если задано хотя бы одно условие отбора
+     */
+    public boolean isRestricted() {
+        return minPrice != null || maxPrice != null || author != null;
+    }
+}
@@ -0,0 +1,9 @@
+package ru.skypro.homework.dto;
+
+/**
+ * Перечисление форматов массового импорта объявлений.
+ * Определяет NDJSON (по одному объекту JSON в строке) и CSV со строкой заголовков.
+ */
+public enum AdImportFormat {
+    NDJSON, CSV
+}
@@ -0,0 +1,24 @@
+package ru.skypro.homework.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO результата массового импорта объявлений.
+ * Содержит количество добавленных и отклонённых объявлений и описания первых ошибок.
+ */
+@Data
+public class AdImportResult {
+
+    @Schema(type = "integer", format = "int64", description = "количество добавленных объявлений")
+    private long imported;
+
+    @Schema(type = "integer", format = "int64", description = "количество отклонённых строк")
+    private long rejected;
+
+    @Schema(type = "array", description = "ошибки первых отклонённых строк с номерами строк")
+    private List<String> errors = new ArrayList<>();
+}
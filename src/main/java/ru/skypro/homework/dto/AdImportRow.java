@@ -0,0 +1,44 @@
+package ru.skypro.homework.dto;
+
+import ru.skypro.homework.dto.ImportedAd;
+
+/**
+ * Строка импорта: проверенное объявление или причина, по которой строка отклонена.
+ *
+ * @param lineNumber номер строки потока, с которой начинается запись
+ * @param ad         объявление, прошедшее проверку, или null, если строка отклонена
+ * @param error      причина отклонения или null, если строка прошла проверку
+ */
+public record AdImportRow(int lineNumber, ImportedAd ad, String error) {
+
+    /**
+     * Создает строку с проверенным объявлением.
+     *
+     * @param lineNumber номер строки
+     * @param ad         объявление
+     * @return строка импорта
+     */
+    public static AdImportRow valid(int lineNumber, ImportedAd ad) {
+        return new AdImportRow(lineNumber, ad, null);
+    }
+
+    /**
+     * Создает отклонённую строку.
+     *
+     * @param lineNumber номер строки
+     * @param error      причина отклонения
+     * @return строка импорта
+     */
+    public static AdImportRow rejected(int lineNumber, String error) {
+        return new AdImportRow(lineNumber, null, error);
+    }
+
+    /**
+     * Проверяет, прошла ли строка проверку.
+     *
+     * @return true если строка содержит объявление
+     */
+    public boolean isValid() {
+        return ad != null;
+    }
+}
@@ -0,0 +1,9 @@
+package ru.skypro.homework.dto;
+
+/**
+ * Перечисление порядков сортировки списка объявлений.
+ * Определяет сортировку по дате добавления (OLDEST, NEWEST) и по цене (PRICE_ASC, PRICE_DESC).
+ */
+public enum AdSort {
+    OLDEST, NEWEST, PRICE_ASC, PRICE_DESC
+}
@@ -23,4 +23,11 @@ public class Ads {
      */
     @Schema(type = "array")
     private List<Ad> results;
+
+    /**
+     * Курсор для получения следующей страницы объявлений.
+     * Равен null, если страница последняя.
+     */
+    @Schema(type = "string", description = "курсор следующей страницы, null если страница последняя")
+    private String next;
 }
\ No newline at end of file
@@ -1,13 +1,18 @@
 package ru.skypro.homework.dto;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 /**
  * DTO для представления комментария в ответах API.
  * Содержит данные о комментарии, авторе и времени создания.
+ * Конструктор со всеми полями используется для проекции в запросах к базе данных.
  */
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class Comment {
 
     /**
@@ -7,15 +7,15 @@ import java.util.List;
 
 /**
  * DTO для представления списка комментариев в ответах API.
- * Содержит общее количество комментариев и список объектов комментариев.
+ * Содержит количество комментариев на странице, список объектов комментариев и курсор следующей страницы.
  */
 @Data
 public class Comments {
 
     /**
-     * Общее количество комментариев.
+     * Количество комментариев на странице.
      */
-    @Schema(type = "integer", format = "int32", description = "общее количество комментариев")
+    @Schema(type = "integer", format = "int32", description = "количество комментариев на странице")
     private int count;
 
     /**
@@ -23,4 +23,10 @@ public class Comments {
      */
     @Schema(type = "array")
     private List<Comment> results;
+
+    /**
+     * Курсор следующей страницы или null, если страница последняя.
+     */
+    @Schema(type = "string", description = "курсор следующей страницы (передаётся в параметре before), null для последней страницы")
+    private String next;
 }
\ No newline at end of file
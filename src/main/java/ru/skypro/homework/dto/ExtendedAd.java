@@ -46,6 +46,12 @@ public class ExtendedAd {
     @Schema(type = "string", description = "ссылка на картинку объявления")
     private String image;
 
+    /**
+     * Ссылка на уменьшенное изображение объявления для страницы объявления.
+     */
+    @Schema(type = "string", description = "ссылка на уменьшенную картинку объявления для страницы объявления")
+    private String imageDetail;
+
     /**
      * Телефон автора объявления.
      */
@@ -0,0 +1,54 @@
+package ru.skypro.homework.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.*;
+import lombok.Data;
+
+/**
+ * DTO объявления, загружаемого при массовом импорте.
+ * Содержит данные объявления, идентификатор автора и путь к уже сохранённому изображению.
+ */
+@Data
+public class ImportedAd {
+
+    /**
+     * Заголовок объявления.
+     */
+    @Schema(type = "string", description = "заголовок объявления", minLength = 4, maxLength = 32)
+    @NotBlank(message = "Заголовок объявления не может быть пустым или не указанным")
+    @Size(min = 4, max = 32, message = "Размер заголовка не может быть меньше 4-ёх символов и не больше 32-ух символов")
+    private String title;
+
+    /**
+     * Описание объявления.
+     */
+    @Schema(type = "string", description = "описание объявления", minLength = 8, maxLength = 64)
+    @NotBlank(message = "Описание объявления не может быть пустым или не указанным")
+    @Size(min = 8, max = 64, message = "Размер описания не должен быть меньше 8 символом и не превышать 64 символа")
+    private String description;
+
+    /**
+     * Цена объявления.
+     */
+    @Schema(type = "integer", format = "int32", description = "цена объявления", minimum = "0", maximum = "10000000")
+    @NotNull(message = "Цена объявления должна быть указана")
+    @PositiveOrZero(message = "Цена объявления должна быть 0 или больше")
+    @Max(value = 10_000_000, message = "Цена объявления не может быть больше 10_000_000")
+    private Integer price;
+
+    /**
+     * Ссылка на сохранённое изображение объявления.
+     */
+    @Schema(type = "string", description = "ссылка на сохранённое изображение объявления", example = "/images/ab/cd/abcd.jpg")
+    @NotBlank(message = "Изображение объявления не может быть пустым или не указанным")
+    @Size(max = 255, message = "Ссылка на изображение не может быть больше 255 символов")
+    @Pattern(regexp = "/images/.+", message = "Ссылка на изображение должна начинаться с /images/")
+    private String image;
+
+    /**
+     * Идентификатор автора объявления.
+     */
+    @Schema(type = "integer", format = "int32", description = "id автора объявления")
+    @NotNull(message = "Автор объявления должен быть указан")
+    private Integer author;
+}
@@ -0,0 +1,20 @@
+package ru.skypro.homework.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+/**
+ * DTO с токеном обновления.
+ * Используется для получения новой пары токенов и для выхода из системы.
+ */
+@Data
+public class RefreshToken {
+
+    /**
+     * Токен обновления.
+     */
+    @Schema(type = "string", description = "токен обновления")
+    @NotBlank(message = "Токен обновления не может быть пустым или не указанным")
+    private String refreshToken;
+}
@@ -0,0 +1,37 @@
+package ru.skypro.homework.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+/**
+ * DTO с токенами, выдаваемыми при авторизации.
+ * Токен доступа передаётся в заголовке {@code Authorization: Bearer ...},
+ * токен обновления используется для получения новой пары токенов.
+ */
+@Data
+public class Token {
+
+    /**
+     * Токен доступа.
+     */
+    @Schema(type = "string", description = "токен доступа")
+    private String accessToken;
+
+    /**
+     * Токен обновления.
+     */
+    @Schema(type = "string", description = "токен обновления")
+    private String refreshToken;
+
+    /**
+     * Тип токена доступа.
+     */
+    @Schema(type = "string", description = "тип токена доступа", example = "Bearer")
+    private String tokenType;
+
+    /**
+     * Время жизни токена доступа в секундах.
+     */
+    @Schema(type = "integer", format = "int64", description = "время жизни токена доступа в секундах")
+    private long expiresIn;
+}
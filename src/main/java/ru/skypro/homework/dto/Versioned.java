@@ -0,0 +1,12 @@
+package ru.skypro.homework.dto;
+
+/**
+ * DTO вместе с версией данных, из которых он построен.
+ * Версия передаётся клиенту в заголовке ETag и не входит в тело ответа.
+ *
+ * @param body    DTO
+ * @param version версия данных
+ * @param <T>     тип DTO
+ */
+public record Versioned<T>(T body, String version) {
+}
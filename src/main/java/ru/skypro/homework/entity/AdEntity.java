@@ -5,6 +5,9 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import ru.skypro.homework.cache.CacheRegions;
 
 import java.util.List;
 
@@ -17,8 +20,16 @@ import java.util.List;
 @Setter
 @Getter
 @Entity(name = "ad_entities")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.AD)
+@NamedEntityGraph(name = AdEntity.WITH_AUTHOR, attributeNodes = @NamedAttributeNode("author"))
 public class AdEntity {
 
+    /**
+     * Имя графа загрузки объявления вместе с автором.
+     */
+    public static final String WITH_AUTHOR = "AdEntity.author";
+
     /**
      * Уникальный идентификатор объявления, генерируемый базой данных.
      */
@@ -51,6 +62,13 @@ public class AdEntity {
     @Column(name = "image", nullable = false, length = 255)
     private String image;
 
+    /**
+     * Версия объявления для оптимистической блокировки, увеличивается при каждом изменении.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private int version;
+
     /**
      * Автор объявления (связь с сущностью пользователя).
      */
@@ -61,10 +79,11 @@ public class AdEntity {
 
     /**
      * Список комментариев, связанных с объявлением.
+     * Комментарии удаляются вместе с объявлением одним запросом в сервисе, без каскада по загруженной коллекции.
      */
     @ToString.Exclude
     @OrderBy("createdAt DESC")
-    @OneToMany(mappedBy = "adEntity", cascade = CascadeType.REMOVE, orphanRemoval = true)
+    @OneToMany(mappedBy = "adEntity")
     private List<CommentEntity> commentEntities;
 
 }
\ No newline at end of file
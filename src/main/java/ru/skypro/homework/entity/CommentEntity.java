@@ -39,6 +39,13 @@ public class CommentEntity {
     @Column(name = "created_at", nullable = false)
     private long createdAt;
 
+    /**
+     * Версия комментария для оптимистической блокировки, увеличивается при каждом изменении.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private int version;
+
     /**
      * Автор комментария (связь с сущностью пользователя).
      */
@@ -0,0 +1,44 @@
+package ru.skypro.homework.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Сущность для представления запланированного удаления файла изображения в базе данных.
+ * Запись создаётся в той же транзакции, что и удаление последней ссылки на изображение,
+ * а файл удаляется фоновым обработчиком после фиксации транзакции.
+ */
+@ToString
+@EqualsAndHashCode(of = "id")
+@Setter
+@Getter
+@Entity(name = "image_deletions")
+public class ImageDeletionEntity {
+
+    /**
+     * Уникальный идентификатор записи, генерируемый базой данных.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private long id;
+
+    /**
+     * Путь к изображению, файл которого нужно удалить.
+     */
+    @Column(name = "path", nullable = false, length = 255)
+    private String path;
+
+    /**
+     * Время создания записи в миллисекундах.
+     */
+    @Column(name = "created_at", nullable = false)
+    private long createdAt;
+}
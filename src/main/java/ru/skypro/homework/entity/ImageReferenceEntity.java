@@ -0,0 +1,34 @@
+package ru.skypro.homework.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Сущность для представления счётчика ссылок на файл изображения в базе данных.
+ * Файл удаляется, когда на него не ссылается ни одно объявление и ни один пользователь.
+ */
+@ToString
+@EqualsAndHashCode(of = "path")
+@Setter
+@Getter
+@Entity(name = "image_references")
+public class ImageReferenceEntity {
+
+    /**
+     * Путь к изображению, по которому клиент получает его при HTTP-запросе.
+     */
+    @Id
+    @Column(name = "path", nullable = false, length = 255)
+    private String path;
+
+    /**
+     * Количество объявлений и пользователей, ссылающихся на изображение.
+     */
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+}
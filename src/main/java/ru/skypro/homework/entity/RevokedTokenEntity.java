@@ -0,0 +1,40 @@
+package ru.skypro.homework.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Сущность для представления отозванного токена в базе данных.
+ * Хранится до истечения срока действия токена.
+ */
+@ToString
+@EqualsAndHashCode(of = "id")
+@Setter
+@Getter
+@Entity(name = "revoked_tokens")
+public class RevokedTokenEntity {
+
+    /**
+     * Уникальный идентификатор отозванного токена.
+     */
+    @Id
+    @Column(name = "id", nullable = false, length = 36)
+    private String id;
+
+    /**
+     * Время истечения срока действия токена в секундах с 00:00:00 01.01.1970.
+     */
+    @Column(name = "expires_at", nullable = false)
+    private long expiresAt;
+
+    /**
+     * Время отзыва токена в миллисекундах с 00:00:00 01.01.1970.
+     */
+    @Column(name = "revoked_at", nullable = false)
+    private long revokedAt;
+}
@@ -5,6 +5,9 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import ru.skypro.homework.cache.CacheRegions;
 
 import java.util.List;
 
@@ -17,6 +20,8 @@ import java.util.List;
 @Setter
 @Getter
 @Entity(name = "user_entities")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.USER)
 public class UserEntity {
 
     /**
@@ -68,6 +73,20 @@ public class UserEntity {
     @Column(name = "image", nullable = true, length = 255)
     private String image;
 
+    /**
+     * Версия пользователя для оптимистической блокировки, увеличивается при каждом изменении.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private int version;
+
+    /**
+     * Поколение токенов пользователя. Увеличивается при смене пароля, после чего токены,
+     * выданные с предыдущим поколением, не принимаются.
+     */
+    @Column(name = "token_generation", nullable = false)
+    private int tokenGeneration;
+
     /**
      * Список объявлений, созданных пользователем.
      */
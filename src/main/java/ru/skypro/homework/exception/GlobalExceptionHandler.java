@@ -2,6 +2,7 @@ package ru.skypro.homework.exception;
 
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -9,6 +10,7 @@ import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import ru.skypro.homework.dto.ErrorResponseDTO;
 
 
@@ -59,6 +61,71 @@ public class GlobalExceptionHandler {
         return createErrorResponse(HttpStatus.NOT_FOUND, "CommentEntity Not Found", e.getMessage(), request.getRequestURI());
     }
 
+    /**
+     * Обрабатывает исключение, возникающее при отсутствии файла изображения.
+     *
+     * @param e       исключение о не найденном изображении
+     * @param request запрос, вызвавший исключение
+     * @return ответ с кодом 404 и сообщением об ошибке
+     */
+    @ExceptionHandler(ImageNotFoundException.class)
+    public ResponseEntity<ErrorResponseDTO> handleImageNotFound(ImageNotFoundException e, HttpServletRequest request) {
+        log.warn("Изображение не найдено: {}", e.getMessage());
+        return createErrorResponse(HttpStatus.NOT_FOUND, "Image Not Found", e.getMessage(), request.getRequestURI());
+    }
+
+    /**
+     * Обрабатывает исключение, возникающее при некорректном курсоре пагинации.
+     *
+     * @param e       исключение о некорректном курсоре
+     * @param request запрос, вызвавший исключение
+     * @return ответ с кодом 400 и сообщением об ошибке
+     */
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorResponseDTO> handleInvalidCursor(InvalidCursorException e, HttpServletRequest request) {
+        log.warn("Некорректный курсор: {}", e.getMessage());
+        return createErrorResponse(HttpStatus.BAD_REQUEST, "Bad Request", e.getMessage(), request.getRequestURI());
+    }
+
+    /**
+     * Обрабатывает исключение, возникающее при некорректном файле импорта объявлений.
+     *
+     * @param e       исключение о некорректном файле импорта
+     * @param request запрос, вызвавший исключение
+     * @return ответ с кодом 400 и сообщением об ошибке
+     */
+    @ExceptionHandler(InvalidImportException.class)
+    public ResponseEntity<ErrorResponseDTO> handleInvalidImport(InvalidImportException e, HttpServletRequest request) {
+        log.warn("Некорректный файл импорта: {}", e.getMessage());
+        return createErrorResponse(HttpStatus.BAD_REQUEST, "Bad Request", e.getMessage(), request.getRequestURI());
+    }
+
+    /**
+     * Обрабатывает исключение, возникающее, если версия ресурса не совпала с переданной в If-Match.
+     *
+     * @param e       исключение о несовпадении версии
+     * @param request запрос, вызвавший исключение
+     * @return ответ с кодом 412 и сообщением об ошибке
+     */
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ErrorResponseDTO> handlePreconditionFailed(PreconditionFailedException e, HttpServletRequest request) {
+        log.warn("Версия ресурса не совпала: {}", e.getMessage());
+        return createErrorResponse(HttpStatus.PRECONDITION_FAILED, "Precondition Failed", e.getMessage(), request.getRequestURI());
+    }
+
+    /**
+     * Обрабатывает исключение оптимистической блокировки, возникающее при одновременном изменении сущности.
+     *
+     * @param e       исключение оптимистической блокировки
+     * @param request запрос, вызвавший исключение
+     * @return ответ с кодом 409 и сообщением об ошибке
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponseDTO> handleOptimisticLockingFailure(OptimisticLockingFailureException e, HttpServletRequest request) {
+        log.warn("Одновременное изменение: {}", e.getMessage());
+        return createErrorResponse(HttpStatus.CONFLICT, "Conflict", "Данные были изменены другим запросом", request.getRequestURI());
+    }
+
     /**
      * Обрабатывает исключения валидации аргументов метода.
      *
@@ -76,6 +143,20 @@ public class GlobalExceptionHandler {
         return createErrorResponse(HttpStatus.BAD_REQUEST, "Bad Request", message, request.getRequestURI());
     }
 
+    /**
+     * Обрабатывает исключение, возникающее при недопустимом значении параметра запроса.
+     *
+     * @param e       исключение преобразования параметра
+     * @param request запрос, вызвавший исключение
+     * @return ответ с кодом 400 и сообщением об ошибке
+     */
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<ErrorResponseDTO> handleMethodArgumentTypeMismatch(MethodArgumentTypeMismatchException e, HttpServletRequest request) {
+        String message = String.format("Некорректное значение параметра '%s': %s", e.getName(), e.getValue());
+        log.warn("Ошибка параметра запроса: {}", message);
+        return createErrorResponse(HttpStatus.BAD_REQUEST, "Bad Request", message, request.getRequestURI());
+    }
+
     /**
      * Обрабатывает исключения доступа, связанные с недостатком прав.
      *
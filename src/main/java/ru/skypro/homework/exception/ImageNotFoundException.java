@@ -0,0 +1,8 @@
+package ru.skypro.homework.exception;
+
+public class ImageNotFoundException extends RuntimeException {
+
+    public ImageNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package ru.skypro.homework.exception;
+
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package ru.skypro.homework.exception;
+
+public class InvalidImportException extends RuntimeException {
+
+    public InvalidImportException(String message) {
+        super(message);
+    }
+}
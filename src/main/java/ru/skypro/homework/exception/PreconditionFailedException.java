@@ -0,0 +1,8 @@
+package ru.skypro.homework.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,70 @@
+package ru.skypro.homework.image;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.skypro.homework.service.ImageService;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Фоновое освобождение места, занятого удалёнными изображениями.
+ * Один поток планировщика удаляет файлы пачками по записям, созданным в транзакциях удаления ссылок,
+ * и периодически сверяет папку изображений с базой данных, чтобы найти файлы, оставшиеся после сбоев.
+ *
+ * @see ImageService#deleteImage(String)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ImageReclaimer {
+
+    /**
+     * Сервис для работы с изображениями.
+     */
+    private final ImageService imageService;
+
+    /**
+     * Количество записей, обрабатываемых в одной транзакции.
+     */
+    @Value("${image.reclaim.batch-size}")
+    private int batchSize;
+
+    /**
+     * Минимальный возраст файла, который проверяется при поиске потерянных изображений.
+     */
+    @Value("${image.reclaim.orphan-min-age}")
+    private Duration orphanMinAge;
+
+    /**
+     * Удаляет файлы запланированных удалений, пока очередь не опустеет.
+     */
+    @Scheduled(fixedDelayString = "${image.reclaim.interval}")
+    public void reclaim() {
+        int total = 0;
+        int processed;
+        do {
+            processed = imageService.reclaimImages(batchSize);
+            total += processed;
+        } while (processed == batchSize);
+        if (total > 0) {
+            log.debug("Обработано запланированных удалений изображений: {}", total);
+        }
+    }
+
+    /**
+     * Ищет файлы изображений без ссылок и планирует их удаление.
+     */
+    @Scheduled(cron = "${image.reclaim.sweep-cron}")
+    public void sweep() {
+        try {
+            int scheduled = imageService.sweepOrphans(orphanMinAge);
+            log.info("Поиск потерянных изображений завершён, запланировано удалений: {}", scheduled);
+        } catch (IOException e) {
+            log.warn("Не удалось выполнить поиск потерянных изображений", e);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package ru.skypro.homework.image;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import ru.skypro.homework.exception.ImageNotFoundException;
+import ru.skypro.homework.metrics.ImageMetrics;
+import ru.skypro.homework.service.ImageService;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Записывает файл изображения в HTTP-ответ без загрузки его в память.
+ * Поддерживает условные запросы по ETag ({@code If-None-Match}) и запросы диапазона ({@code Range}, {@code If-Range}).
+ * Если контейнер сервлетов поддерживает sendfile (Tomcat с NIO-коннектором), файл передаётся ядром напрямую в сокет,
+ * иначе копируется через {@link FileChannel#transferTo}.
+ */
+@Component
+@RequiredArgsConstructor
+public class ImageResponseWriter {
+
+    /**
+     * Атрибут запроса, которым Tomcat сообщает о поддержке sendfile.
+     */
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+
+    /**
+     * Атрибут запроса с путём к файлу для передачи через sendfile.
+     */
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+
+    /**
+     * Атрибут запроса с позицией начала передаваемой части файла.
+     */
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+
+    /**
+     * Атрибут запроса с позицией конца передаваемой части файла (не включительно).
+     */
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * Кэширование неизменяемых изображений: имя файла меняется вместе с содержимым.
+     */
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+    /**
+     * Кэширование оригинала, отданного вместо ещё не созданной уменьшенной версии.
+     */
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePublic();
+
+    /**
+     * Сервис для работы с изображениями.
+     */
+    private final ImageService imageService;
+
+    /**
+     * Счётчики объёма файлов изображений.
+     */
+    private final ImageMetrics imageMetrics;
+
+    /**
+     * Записывает изображение в ответ.
+     *
+     * @param imagePath путь к изображению
+     * @param request   HTTP-запрос
+     * @param response  HTTP-ответ
+     * @throws ImageNotFoundException если изображение не найдено
+     * @throws IOException            если произошла ошибка чтения файла или записи ответа
+     */
+    public void write(String imagePath, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        StoredImage image = imageService.findImage(imagePath)
+                .orElseThrow(() -> new ImageNotFoundException("Изображение не найдено: " + imagePath));
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, (image.immutable() ? IMMUTABLE : REVALIDATE).getHeaderValue());
+        if (new ServletWebRequest(request, response).checkNotModified(image.etag())) {
+            return;
+        }
+
+        long length = Files.size(image.file());
+        long start = 0;
+        long end = length - 1;
+        response.setHeader(HttpHeaders.ETAG, image.etag());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setContentType(image.contentType().toString());
+
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && HttpMethod.GET.matches(request.getMethod()) && matchesIfRange(request, image.etag())) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(range);
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                }
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            // Несколько диапазонов в одном запросе не поддерживаются, в этом случае отдаётся весь файл
+            if (ranges.size() == 1) {
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if (HttpMethod.HEAD.matches(request.getMethod()) || count == 0) {
+            return;
+        }
+        transfer(image, start, end, request, response);
+    }
+
+    /**
+     * Записывает в ответ только что сохранённое изображение целиком. Заголовки запроса {@code If-None-Match},
+     * {@code Range} и {@code If-Range} относятся к прежнему изображению и не учитываются, а ответ не помечается
+     * как кэшируемый: он возвращается на изменяющий запрос, а не на чтение изображения по его адресу.
+     *
+     * @param imagePath путь к изображению
+     * @param request   HTTP-запрос
+     * @param response  HTTP-ответ
+     * @throws ImageNotFoundException если изображение не найдено
+     * @throws IOException            если произошла ошибка чтения файла или записи ответа
+     */
+    public void writeSaved(String imagePath, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        StoredImage image = imageService.findImage(imagePath)
+                .orElseThrow(() -> new ImageNotFoundException("Изображение не найдено: " + imagePath));
+
+        long length = Files.size(image.file());
+        response.setHeader(HttpHeaders.ETAG, image.etag());
+        response.setContentType(image.contentType().toString());
+        response.setContentLengthLong(length);
+        if (length == 0) {
+            return;
+        }
+        transfer(image, 0, length - 1, request, response);
+    }
+
+    /**
+     * Передаёт часть файла в ответ через sendfile или {@link FileChannel#transferTo}.
+     *
+     * @param image    изображение
+     * @param start    позиция начала части файла
+     * @param end      позиция конца части файла (включительно)
+     * @param request  HTTP-запрос
+     * @param response HTTP-ответ
+     * @throws IOException если произошла ошибка чтения файла или записи ответа
+     */
+    private void transfer(StoredImage image, long start, long end, HttpServletRequest request,
+                          HttpServletResponse response) throws IOException {
+        long count = end - start + 1;
+        imageMetrics.read(count);
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, image.file().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(image.file(), StandardOpenOption.READ)) {
+            WritableByteChannel output = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (count > 0) {
+                long transferred = channel.transferTo(position, count, output);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                count -= transferred;
+            }
+        }
+    }
+
+    /**
+     * Проверяет условие {@code If-Range}: диапазон выдаётся, только если клиент запрашивает часть той же версии файла.
+     *
+     * @param request HTTP-запрос
+     * @param etag    ETag файла
+     * @return true если заголовок отсутствует или совпадает с ETag
+     */
+    private boolean matchesIfRange(HttpServletRequest request, String etag) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        return ifRange == null || ifRange.equals(etag);
+    }
+}
@@ -0,0 +1,69 @@
+package ru.skypro.homework.image;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Уменьшенные версии изображения, которые создаются после загрузки.
+ * Путь версии получается из пути оригинала добавлением суффикса, поэтому в базе данных он не хранится.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ImageVariant {
+
+    /**
+     * Изображение для страницы объявления.
+     */
+    DETAIL("detail", 1280, 0.85f),
+
+    /**
+     * Миниатюра для списков объявлений.
+     */
+    THUMBNAIL("thumb", 320, 0.75f);
+
+    /**
+     * Расширение файлов версий: все версии перекодируются в JPEG.
+     */
+    private static final String EXTENSION = ".jpg";
+
+    /**
+     * Суффикс, который добавляется к пути оригинала.
+     */
+    private final String suffix;
+
+    /**
+     * Максимальный размер большей стороны изображения в пикселях.
+     */
+    private final int maxSize;
+
+    /**
+     * Качество сжатия JPEG от 0 до 1.
+     */
+    private final float quality;
+
+    /**
+     * Возвращает путь к версии изображения.
+     *
+     * @param imagePath путь к оригиналу изображения
+     * @return путь к версии или null, если у оригинала нет пути
+     */
+    public String path(String imagePath) {
+        return imagePath == null ? null : imagePath + "." + suffix + EXTENSION;
+    }
+
+    /**
+     * Возвращает путь к оригиналу по пути версии изображения.
+     *
+     * @param variantPath путь к версии изображения
+     * @return путь к оригиналу или null, если путь не относится ни к одной версии
+     */
+    public static String originalPath(String variantPath) {
+        for (ImageVariant variant : values()) {
+            String ending = "." + variant.suffix + EXTENSION;
+            if (variantPath.endsWith(ending)) {
+                return variantPath.substring(0, variantPath.length() - ending.length());
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,174 @@
+package ru.skypro.homework.image;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Создаёт уменьшенные версии загруженных изображений.
+ * Обработка выполняется в ограниченном пуле потоков с ограниченной очередью, поэтому поток запроса
+ * не ждёт перекодирования, а всплеск загрузок не расходует неограниченно память и процессор.
+ * Пока версия не создана, вместо неё отдаётся оригинал.
+ *
+ * @see ru.skypro.homework.service.ImageService#findImage(String)
+ */
+@Slf4j
+@Component
+public class ImageVariantGenerator {
+
+    /**
+     * Пул потоков для обработки изображений.
+     */
+    private final ThreadPoolExecutor executor;
+
+    public ImageVariantGenerator(@Value("${image.variants.pool-size}") int poolSize,
+                                 @Value("${image.variants.queue-capacity}") int queueCapacity) {
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("image-variants-"));
+    }
+
+    /**
+     * Ставит создание версий изображения в очередь. Если очередь заполнена, версии не создаются
+     * и клиенты получают оригинал.
+     *
+     * @param original путь к файлу оригинала
+     */
+    public void generate(Path original) {
+        try {
+            executor.execute(() -> createVariants(original));
+        } catch (RejectedExecutionException e) {
+            log.warn("Очередь обработки изображений заполнена, версии не созданы: {}", original);
+        }
+    }
+
+    /**
+     * Останавливает пул потоков при завершении приложения.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Создаёт все версии изображения. Каждая следующая версия уменьшается из предыдущей,
+     * что быстрее и даёт меньше артефактов, чем уменьшение из оригинала за один шаг.
+     *
+     * @param original путь к файлу оригинала
+     */
+    private void createVariants(Path original) {
+        try {
+            BufferedImage source = read(original);
+            if (source == null) {
+                log.warn("Файл не распознан как изображение, версии не созданы: {}", original);
+                return;
+            }
+            for (ImageVariant variant : ImageVariant.values()) {
+                source = resize(source, variant.getMaxSize());
+                write(source, variant, Path.of(variant.path(original.toString())));
+            }
+            log.debug("Версии изображения созданы: {}", original);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Не удалось создать версии изображения {}", original, e);
+        }
+    }
+
+    /**
+     * Читает изображение с прореживанием: декодируется не больше пикселей, чем нужно для самой крупной версии.
+     *
+     * @param original путь к файлу оригинала
+     * @return изображение или null, если формат не поддерживается
+     * @throws IOException если произошла ошибка чтения
+     */
+    private BufferedImage read(Path original) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longestSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int subsampling = Math.max(1, longestSide / (2 * ImageVariant.DETAIL.getMaxSize()));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Уменьшает изображение так, чтобы большая сторона не превышала заданный размер.
+     * Прозрачные области заливаются белым, так как JPEG не поддерживает прозрачность.
+     *
+     * @param source  исходное изображение
+     * @param maxSize максимальный размер большей стороны
+     * @return уменьшенное изображение
+     */
+    private BufferedImage resize(BufferedImage source, int maxSize) {
+        double scale = Math.min(1.0, (double) maxSize / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    /**
+     * Записывает версию изображения в JPEG. Файл сначала пишется во временный и затем атомарно
+     * переименовывается, чтобы клиент не получил частично записанное изображение.
+     *
+     * @param image   изображение
+     * @param variant версия изображения
+     * @param target  путь к файлу версии
+     * @throws IOException если произошла ошибка записи
+     */
+    private void write(BufferedImage image, ImageVariant variant, Path target) throws IOException {
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(temporary.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(variant.getQuality());
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,27 @@
+package ru.skypro.homework.image;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Загруженное изображение, записанное во временный файл, но ещё не сохранённое.
+ * Закрытие удаляет временный файл, если он не был перенесён на место внутри транзакции сохранения,
+ * поэтому при любой ошибке загрузка откатывается автоматически.
+ *
+ * @param file путь к временному файлу в файловой системе
+ * @param path путь, по которому изображение будет доступно после сохранения
+ * @see ru.skypro.homework.service.ImageService#commitImage(StagedImage)
+ */
+public record StagedImage(Path file, String path) implements AutoCloseable {
+
+    /**
+     * Удаляет временный файл, если он ещё существует.
+     *
+     * @throws IOException если произошла ошибка при удалении
+     */
+    @Override
+    public void close() throws IOException {
+        Files.deleteIfExists(file);
+    }
+}
@@ -0,0 +1,17 @@
+package ru.skypro.homework.image;
+
+import org.springframework.http.MediaType;
+
+import java.nio.file.Path;
+
+/**
+ * Файл изображения, найденный по пути из ссылки на изображение.
+ *
+ * @param file        путь к файлу в файловой системе
+ * @param etag        сильный ETag файла в кавычках
+ * @param contentType тип содержимого файла
+ * @param immutable   true если содержимое по этой ссылке никогда не изменится и его можно кэшировать бессрочно,
+ *                    false если вместо ещё не созданной уменьшенной версии отдаётся оригинал
+ */
+public record StoredImage(Path file, String etag, MediaType contentType, boolean immutable) {
+}
@@ -9,8 +9,11 @@ import ru.skypro.homework.dto.CreateOrUpdateAd;
 import ru.skypro.homework.dto.ExtendedAd;
 import ru.skypro.homework.entity.AdEntity;
 import ru.skypro.homework.entity.UserEntity;
+import ru.skypro.homework.image.ImageVariant;
+import ru.skypro.homework.repository.AdSearchHit;
+import ru.skypro.homework.repository.AdSummary;
 
-@Mapper(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE, componentModel = "spring")
+@Mapper(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE, componentModel = "spring", imports = ImageVariant.class)
 public interface AdEntityMapper {
 
     /**
@@ -20,8 +23,27 @@ public interface AdEntityMapper {
      * @return базовый DTO объявления
      */
     @Mapping(source = "author.id", target = "author")
+    @Mapping(target = "imageThumbnail", expression = "java(ImageVariant.THUMBNAIL.path(entity.getImage()))")
     Ad toDto(AdEntity entity);
 
+    /**
+     * Преобразует проекцию объявления в базовый DTO.
+     *
+     * @param summary проекция объявления
+     * @return базовый DTO объявления
+     */
+    @Mapping(target = "imageThumbnail", expression = "java(ImageVariant.THUMBNAIL.path(summary.image()))")
+    Ad toDto(AdSummary summary);
+
+    /**
+     * Преобразует объявление, найденное полнотекстовым поиском, в базовый DTO.
+     *
+     * @param hit найденное объявление
+     * @return базовый DTO объявления
+     */
+    @Mapping(target = "imageThumbnail", expression = "java(ImageVariant.THUMBNAIL.path(hit.getImage()))")
+    Ad toDto(AdSearchHit hit);
+
     /**
      * Преобразует сущность объявления в расширенный DTO с данными автора.
      *
@@ -32,6 +54,7 @@ public interface AdEntityMapper {
     @Mapping(source = "author.lastName", target = "authorLastName")
     @Mapping(source = "author.username", target = "email")
     @Mapping(source = "author.phone", target = "phone")
+    @Mapping(target = "imageDetail", expression = "java(ImageVariant.DETAIL.path(adEntity.getImage()))")
     ExtendedAd toExtendedAd(AdEntity adEntity);
 
     /**
@@ -42,6 +65,7 @@ public interface AdEntityMapper {
      * @param author     автор объявления
      * @return новая сущность объявления
      */
+    @Mapping(target = "version", ignore = true)
     @Mapping(source = "author", target = "author")
     @Mapping(source = "image", target = "image")
     AdEntity createAdEntity(CreateOrUpdateAd properties, String image, UserEntity author);
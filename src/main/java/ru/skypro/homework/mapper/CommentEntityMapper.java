@@ -31,6 +31,7 @@ public interface CommentEntityMapper {
      * @return новая сущность комментария
      */
     @Mapping(target = "pk", ignore = true)
+    @Mapping(target = "version", ignore = true)
     @Mapping(source = "adEntity", target = "adEntity")
     @Mapping(source = "author", target = "author")
     CommentEntity createCommentEntity(UserEntity author, AdEntity adEntity, CreateOrUpdateComment createComment);
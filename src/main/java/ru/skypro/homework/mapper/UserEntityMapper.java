@@ -4,6 +4,7 @@ import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
 import org.mapstruct.NullValuePropertyMappingStrategy;
+import ru.skypro.homework.cache.UserSnapshot;
 import ru.skypro.homework.dto.Register;
 import ru.skypro.homework.dto.UpdateUser;
 import ru.skypro.homework.dto.User;
@@ -22,6 +23,24 @@ public interface UserEntityMapper {
     @Mapping(target = "role", expression = "java(ru.skypro.homework.dto.Role.valueOf(entity.getAuthority().replace(\"ROLE_\",\"\")))")
     User toDTO(UserEntity entity);
 
+    /**
+     * Преобразует снимок пользователя в DTO.
+     *
+     * @param snapshot снимок пользователя
+     * @return DTO пользователя
+     */
+    @Mapping(source = "username", target = "email")
+    @Mapping(target = "role", expression = "java(ru.skypro.homework.dto.Role.valueOf(snapshot.authority().replace(\"ROLE_\",\"\")))")
+    User toDTO(UserSnapshot snapshot);
+
+    /**
+     * Создаёт снимок пользователя на основе сущности.
+     *
+     * @param entity сущность пользователя
+     * @return снимок пользователя
+     */
+    UserSnapshot toSnapshot(UserEntity entity);
+
     /**
      * Создает сущность пользователя на основе данных регистрации.
      *
@@ -0,0 +1,76 @@
+package ru.skypro.homework.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Счётчики объёма записанных, отданных и удалённых файлов изображений.
+ * Все счётчики публикуются под именем {@code image.bytes} и различаются тегом {@code operation}.
+ */
+@Component
+public class ImageMetrics {
+
+    /**
+     * Байты загруженных изображений, записанные на диск.
+     */
+    private final Counter written;
+
+    /**
+     * Байты изображений, отданные клиентам.
+     */
+    private final Counter read;
+
+    /**
+     * Байты удалённых файлов изображений и их уменьшенных версий.
+     */
+    private final Counter deleted;
+
+    public ImageMetrics(MeterRegistry meterRegistry) {
+        this.written = counter(meterRegistry, "written");
+        this.read = counter(meterRegistry, "read");
+        this.deleted = counter(meterRegistry, "deleted");
+    }
+
+    /**
+     * Учитывает запись файла изображения.
+     *
+     * @param bytes размер файла в байтах
+     */
+    public void written(long bytes) {
+        written.increment(bytes);
+    }
+
+    /**
+     * Учитывает отдачу изображения клиенту.
+     *
+     * @param bytes количество отданных байт
+     */
+    public void read(long bytes) {
+        read.increment(bytes);
+    }
+
+    /**
+     * Учитывает удаление файла изображения.
+     *
+     * @param bytes размер удалённого файла в байтах
+     */
+    public void deleted(long bytes) {
+        deleted.increment(bytes);
+    }
+
+    /**
+     * Регистрирует счётчик байт для операции с изображениями.
+     *
+     * @param meterRegistry реестр метрик
+     * @param operation     операция
+     * @return счётчик
+     */
+    private static Counter counter(MeterRegistry meterRegistry, String operation) {
+        return Counter.builder("image.bytes")
+                .baseUnit("bytes")
+                .description("Объём файлов изображений")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+}
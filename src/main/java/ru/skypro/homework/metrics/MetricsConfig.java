@@ -0,0 +1,25 @@
+package ru.skypro.homework.metrics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Настройка метрик приложения.
+ * Таймеры HTTP-запросов, вызовов репозиториев и пула соединений, а также статистика Hibernate
+ * публикуются автоконфигурацией Spring Boot Actuator, здесь подключается подсчёт запросов на HTTP-запрос.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Подключает к Hibernate подсчёт SQL-запросов.
+     *
+     * @return настройка свойств Hibernate
+     */
+    @Bean
+    public HibernatePropertiesCustomizer queryCountCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new QueryCountInspector());
+    }
+}
@@ -0,0 +1,49 @@
+package ru.skypro.homework.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Подсчитывает SQL-запросы, которые Hibernate выполняет в текущем потоке.
+ * Подсчёт ведётся только между вызовами {@link #start()} и {@link #stop()},
+ * запросы фоновых задач не учитываются.
+ */
+public class QueryCountInspector implements StatementInspector {
+
+    /**
+     * Счётчик запросов текущего потока или null, если подсчёт не ведётся.
+     */
+    private static final ThreadLocal<long[]> COUNT = new ThreadLocal<>();
+
+    /**
+     * Начинает подсчёт запросов в текущем потоке.
+     */
+    public static void start() {
+        COUNT.set(new long[1]);
+    }
+
+    /**
+     * Завершает подсчёт запросов в текущем потоке.
+     *
+     * @return количество запросов с момента вызова {@link #start()}
+     */
+    public static long stop() {
+        long[] count = COUNT.get();
+        COUNT.remove();
+        return count == null ? 0 : count[0];
+    }
+
+    /**
+     * Учитывает запрос и возвращает его без изменений.
+     *
+     * @param sql текст SQL-запроса
+     * @return тот же текст SQL-запроса
+     */
+    @Override
+    public String inspect(String sql) {
+        long[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+}
@@ -1,13 +1,83 @@
 package ru.skypro.homework.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.skypro.homework.entity.AdEntity;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 /**
  * Репозиторий для управления сущностями объявлений в базе данных.
- * Предоставляет стандартные CRUD-операции через Spring Data JPA.
+ * Предоставляет стандартные CRUD-операции, постраничную выборку по курсору с фильтрами,
+ * полнотекстовый поиск, потоковое чтение, выгрузку и массовую вставку объявлений.
  */
 @Repository
-public interface AdEntityRepository extends JpaRepository<AdEntity, Integer> {
+public interface AdEntityRepository extends JpaRepository<AdEntity, Integer>, AdListingRepository, AdImportRepository,
+        AdExportRepository {
+
+    /**
+     * Проверяет, принадлежит ли объявление пользователю с указанным логином.
+     * Проверка выполняется одним запросом с соединением по автору, сущности не загружаются.
+     * Результат запроса кэшируется до изменения таблицы объявлений.
+     *
+     * @param pk       идентификатор объявления
+     * @param username логин пользователя
+     * @return true если объявление существует и принадлежит пользователю
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    boolean existsByPkAndAuthor_Username(int pk, String username);
+
+    /**
+     * Находит все объявления автора сразу в проекцию, сущности не загружаются.
+     *
+     * @param authorId идентификатор автора
+     * @return список проекций объявлений автора, отсортированный по возрастанию pk
+     */
+    @Query("SELECT new ru.skypro.homework.repository.AdSummary(a.pk, a.author.id, a.title, a.price, a.image) " +
+            "FROM ad_entities a WHERE a.author.id = :authorId ORDER BY a.pk")
+    List<AdSummary> findSummariesByAuthorId(@Param("authorId") int authorId);
+
+    /**
+     * Находит страницу объявлений по полнотекстовому запросу, начиная после курсора (rank, pk).
+     * Поиск выполняется по столбцу {@code search_vector} с GIN-индексом, заголовок весит больше описания.
+     * Запрос разбирается функцией {@code websearch_to_tsquery}, поэтому пользовательский ввод не приводит к синтаксической ошибке.
+     *
+     * @param query поисковый запрос
+     * @param rank  релевантность последнего полученного объявления
+     * @param pk    идентификатор последнего полученного объявления
+     * @param limit максимальное количество объявлений на странице
+     * @return список найденных объявлений, отсортированный по убыванию релевантности и pk
+     */
+    @Query(value = "SELECT a.pk AS pk, a.author AS author, a.title AS title, a.price AS price, a.image AS image, " +
+            "ts_rank(a.search_vector, q) AS rank " +
+            "FROM ad_entities a, websearch_to_tsquery('russian', :query) q " +
+            "WHERE a.search_vector @@ q AND (ts_rank(a.search_vector, q), a.pk) < (CAST(:rank AS REAL), :pk) " +
+            "ORDER BY rank DESC, a.pk DESC", nativeQuery = true)
+    List<AdSearchHit> search(@Param("query") String query, @Param("rank") float rank, @Param("pk") int pk, Limit limit);
+
+    /**
+     * Читает все объявления через серверный курсор JDBC сразу в проекцию, не загружая их в память целиком
+     * и не создавая сущности. Поток должен быть закрыт и прочитан внутри транзакции.
+     *
+     * @return поток проекций объявлений, отсортированный по возрастанию pk
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new ru.skypro.homework.repository.AdSummary(a.pk, a.author.id, a.title, a.price, a.image) " +
+            "FROM ad_entities a ORDER BY a.pk")
+    Stream<AdSummary> streamAllSummaries();
+
+    /**
+     * Возвращает оценку количества объявлений по статистике планировщика PostgreSQL.
+     *
+     * @return оценочное количество строк в таблице объявлений
+     */
+    @Query(value = "SELECT CAST(GREATEST(reltuples, 0) AS BIGINT) FROM pg_class WHERE oid = CAST('ad_entities' AS regclass)", nativeQuery = true)
+    long estimateCount();
 }
@@ -0,0 +1,22 @@
+package ru.skypro.homework.repository;
+
+import java.util.function.Consumer;
+
+/**
+ * Фрагмент репозитория объявлений для потоковой выгрузки.
+ */
+public interface AdExportRepository {
+
+    /**
+     * Читает объявления с идентификатором больше указанного через серверный курсор PostgreSQL
+     * и передаёт строки обработчику по мере чтения, не загружая сущности в контекст персистентности.
+     * Строки отсортированы по идентификатору объявления, комментарии одного объявления идут подряд,
+     * от новых к старым. Должен вызываться в транзакции, иначе драйвер прочитает весь результат сразу.
+     *
+     * @param afterPk      идентификатор, после которого начинается выгрузка
+     * @param withComments true если нужно выгрузить комментарии объявлений
+     * @param withAuthors  true если нужно выгрузить имена авторов
+     * @param handler      обработчик строк
+     */
+    void exportAfter(int afterPk, boolean withComments, boolean withAuthors, Consumer<AdExportRow> handler);
+}
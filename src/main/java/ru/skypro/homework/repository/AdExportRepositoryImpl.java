@@ -0,0 +1,62 @@
+package ru.skypro.homework.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.function.Consumer;
+
+/**
+ * Реализация потоковой выгрузки объявлений через JDBC.
+ * Драйвер PostgreSQL открывает серверный курсор, если задан размер выборки и соединение работает в транзакции,
+ * поэтому в памяти одновременно находится не больше {@link #FETCH_SIZE} строк. Запрос строится из флагов,
+ * чтобы не соединять таблицы, поля которых не выгружаются. Соединение берётся из текущей транзакции.
+ */
+@RequiredArgsConstructor
+public class AdExportRepositoryImpl implements AdExportRepository {
+
+    /**
+     * Количество строк, читаемых из курсора за одно обращение к базе данных.
+     */
+    private static final int FETCH_SIZE = 1000;
+
+    /**
+     * Шаблон для выполнения запросов JDBC.
+     */
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Читает объявления через серверный курсор и передаёт строки обработчику.
+     *
+     * @param afterPk      идентификатор, после которого начинается выгрузка
+     * @param withComments true если нужно выгрузить комментарии объявлений
+     * @param withAuthors  true если нужно выгрузить имена авторов
+     * @param handler      обработчик строк
+     */
+    @Override
+    public void exportAfter(int afterPk, boolean withComments, boolean withAuthors, Consumer<AdExportRow> handler) {
+        String sql = "SELECT a.pk, a.title, a.description, a.price, a.image, a.author, "
+                + (withAuthors ? "u.first_name, u.last_name, " : "NULL, NULL, ")
+                + (withComments ? "c.pk, c.text, c.created_at, c.author, " : "CAST(NULL AS INTEGER), NULL, CAST(NULL AS BIGINT), CAST(NULL AS INTEGER), ")
+                + (withComments && withAuthors ? "cu.first_name, cu.last_name " : "NULL, NULL ")
+                + "FROM ad_entities a "
+                + (withAuthors ? "JOIN user_entities u ON u.id = a.author " : "")
+                + (withComments ? "LEFT JOIN comment_entities c ON c.ad_entity = a.pk " : "")
+                + (withComments && withAuthors ? "LEFT JOIN user_entities cu ON cu.id = c.author " : "")
+                + "WHERE a.pk > ? ORDER BY a.pk"
+                + (withComments ? ", c.created_at DESC, c.pk DESC" : "");
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setInt(1, afterPk);
+            return statement;
+        }, resultSet -> {
+            handler.accept(new AdExportRow(
+                    resultSet.getInt(1), resultSet.getString(2), resultSet.getString(3), resultSet.getInt(4),
+                    resultSet.getString(5), resultSet.getInt(6), resultSet.getString(7), resultSet.getString(8),
+                    resultSet.getObject(9, Integer.class), resultSet.getString(10), resultSet.getObject(11, Long.class),
+                    resultSet.getObject(12, Integer.class), resultSet.getString(13), resultSet.getString(14)));
+        });
+    }
+}
@@ -0,0 +1,28 @@
+package ru.skypro.homework.repository;
+
+/**
+ * Строка выгрузки объявлений.
+ * Содержит поля объявления и, если выгружаются комментарии, поля одного комментария объявления.
+ * У объявления без комментариев поля комментария равны null, поля с именами авторов равны null,
+ * если они не выгружаются.
+ *
+ * @param pk                     идентификатор объявления
+ * @param title                  заголовок объявления
+ * @param description            описание объявления
+ * @param price                  цена объявления
+ * @param image                  ссылка на изображение объявления
+ * @param author                 идентификатор автора объявления
+ * @param authorFirstName        имя автора объявления
+ * @param authorLastName         фамилия автора объявления
+ * @param commentPk              идентификатор комментария
+ * @param commentText            текст комментария
+ * @param commentCreatedAt       дата и время создания комментария в миллисекундах с 00:00:00 01.01.1970
+ * @param commentAuthor          идентификатор автора комментария
+ * @param commentAuthorFirstName имя автора комментария
+ * @param commentAuthorLastName  фамилия автора комментария
+ */
+public record AdExportRow(int pk, String title, String description, int price, String image, int author,
+                          String authorFirstName, String authorLastName,
+                          Integer commentPk, String commentText, Long commentCreatedAt, Integer commentAuthor,
+                          String commentAuthorFirstName, String commentAuthorLastName) {
+}
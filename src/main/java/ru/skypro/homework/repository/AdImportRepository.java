@@ -0,0 +1,19 @@
+package ru.skypro.homework.repository;
+
+import ru.skypro.homework.dto.ImportedAd;
+
+import java.util.List;
+
+/**
+ * Фрагмент репозитория объявлений для массовой вставки при импорте.
+ */
+public interface AdImportRepository {
+
+    /**
+     * Добавляет объявления одним пакетом JDBC.
+     * Авторы и изображения объявлений должны быть проверены заранее.
+     *
+     * @param ads импортируемые объявления
+     */
+    void insertAll(List<ImportedAd> ads);
+}
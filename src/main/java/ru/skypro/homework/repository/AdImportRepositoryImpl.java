@@ -0,0 +1,40 @@
+package ru.skypro.homework.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.skypro.homework.dto.ImportedAd;
+
+import java.util.List;
+
+/**
+ * Реализация массовой вставки объявлений через пакеты JDBC.
+ * Hibernate не объединяет в пакеты вставку сущностей с идентификатором {@code IDENTITY}, так как после каждой
+ * вставки ему нужен сгенерированный ключ. Импорту ключи не нужны, поэтому строки передаются напрямую
+ * в JDBC, а драйвер PostgreSQL с {@code reWriteBatchedInserts} отправляет пакет многострочными {@code INSERT}.
+ * Соединение берётся из текущей транзакции.
+ */
+@RequiredArgsConstructor
+public class AdImportRepositoryImpl implements AdImportRepository {
+
+    /**
+     * Шаблон для выполнения пакетов JDBC.
+     */
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Добавляет объявления одним пакетом JDBC.
+     *
+     * @param ads импортируемые объявления
+     */
+    @Override
+    public void insertAll(List<ImportedAd> ads) {
+        jdbcTemplate.batchUpdate("INSERT INTO ad_entities (title, description, price, image, author) VALUES (?, ?, ?, ?, ?)",
+                ads, ads.size(), (statement, ad) -> {
+                    statement.setString(1, ad.getTitle());
+                    statement.setString(2, ad.getDescription());
+                    statement.setInt(3, ad.getPrice());
+                    statement.setString(4, ad.getImage());
+                    statement.setInt(5, ad.getAuthor());
+                });
+    }
+}
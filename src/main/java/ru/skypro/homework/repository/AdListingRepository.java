@@ -0,0 +1,25 @@
+package ru.skypro.homework.repository;
+
+import org.springframework.data.domain.Limit;
+import ru.skypro.homework.dto.AdFilter;
+
+import java.util.List;
+
+/**
+ * Фрагмент репозитория объявлений для постраничной выборки с фильтрами и сортировкой.
+ */
+public interface AdListingRepository {
+
+    /**
+     * Находит страницу объявлений, следующих за курсором в порядке сортировки фильтра (keyset-пагинация).
+     * Курсор состоит из цены и pk последнего объявления предыдущей страницы, цена учитывается только
+     * при сортировке по цене. Объявления читаются сразу в проекцию, сущности не загружаются.
+     *
+     * @param filter условия отбора и порядок сортировки
+     * @param price  цена последнего полученного объявления или null
+     * @param pk     идентификатор последнего полученного объявления или null для первой страницы
+     * @param limit  максимальное количество объявлений на странице
+     * @return список проекций объявлений в порядке сортировки
+     */
+    List<AdSummary> findListingPage(AdFilter filter, Integer price, Integer pk, Limit limit);
+}
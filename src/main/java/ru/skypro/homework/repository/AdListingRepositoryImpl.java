@@ -0,0 +1,84 @@
+package ru.skypro.homework.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Limit;
+import ru.skypro.homework.dto.AdFilter;
+import ru.skypro.homework.dto.AdSort;
+
+import java.util.List;
+
+/**
+ * Реализация постраничной выборки объявлений с фильтрами.
+ * Запрос собирается только из заданных условий, чтобы для каждой комбинации фильтров и сортировки
+ * PostgreSQL выбирал подходящий индекс: (pk), (price, pk), (author, pk) или (author, price, pk).
+ * Условие курсора записывается сравнением кортежей, которое PostgreSQL использует как границу
+ * сканирования индекса, поэтому дальние страницы читаются так же быстро, как первая.
+ * Выбираются только поля проекции, поэтому для выборки по (pk) PostgreSQL может не обращаться к таблице.
+ */
+public class AdListingRepositoryImpl implements AdListingRepository {
+
+    /**
+     * Менеджер сущностей для выполнения запроса.
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Находит страницу объявлений, следующих за курсором в порядке сортировки фильтра.
+     *
+     * @param filter условия отбора и порядок сортировки
+     * @param price  цена последнего полученного объявления или null
+     * @param pk     идентификатор последнего полученного объявления или null для первой страницы
+     * @param limit  максимальное количество объявлений на странице
+     * @return список проекций объявлений в порядке сортировки
+     */
+    @Override
+    public List<AdSummary> findListingPage(AdFilter filter, Integer price, Integer pk, Limit limit) {
+        AdSort sort = filter.sort();
+        boolean byPrice = sort == AdSort.PRICE_ASC || sort == AdSort.PRICE_DESC;
+        boolean descending = sort == AdSort.NEWEST || sort == AdSort.PRICE_DESC;
+        String direction = descending ? "DESC" : "ASC";
+
+        StringBuilder jpql = new StringBuilder("SELECT new ru.skypro.homework.repository.AdSummary(a.pk, a.author.id, a.title, a.price, a.image) " +
+                "FROM ad_entities a WHERE 1 = 1");
+        if (filter.author() != null) {
+            jpql.append(" AND a.author.id = :author");
+        }
+        if (filter.minPrice() != null) {
+            jpql.append(" AND a.price >= :minPrice");
+        }
+        if (filter.maxPrice() != null) {
+            jpql.append(" AND a.price <= :maxPrice");
+        }
+        if (pk != null) {
+            jpql.append(byPrice ? " AND (a.price, a.pk) " : " AND a.pk ")
+                    .append(descending ? "<" : ">")
+                    .append(byPrice ? " (:price, :pk)" : " :pk");
+        }
+        jpql.append(" ORDER BY ");
+        if (byPrice) {
+            jpql.append("a.price ").append(direction).append(", ");
+        }
+        jpql.append("a.pk ").append(direction);
+
+        TypedQuery<AdSummary> query = entityManager.createQuery(jpql.toString(), AdSummary.class);
+        if (filter.author() != null) {
+            query.setParameter("author", filter.author());
+        }
+        if (filter.minPrice() != null) {
+            query.setParameter("minPrice", filter.minPrice());
+        }
+        if (filter.maxPrice() != null) {
+            query.setParameter("maxPrice", filter.maxPrice());
+        }
+        if (pk != null) {
+            query.setParameter("pk", pk);
+            if (byPrice) {
+                query.setParameter("price", price);
+            }
+        }
+        return query.setMaxResults(limit.max()).getResultList();
+    }
+}
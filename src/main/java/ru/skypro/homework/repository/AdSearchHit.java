@@ -0,0 +1,50 @@
+package ru.skypro.homework.repository;
+
+/**
+ * Проекция объявления, найденного полнотекстовым поиском.
+ * Содержит поля, необходимые для DTO объявления, и релевантность найденного объявления.
+ */
+public interface AdSearchHit {
+
+    /**
+     * Возвращает идентификатор объявления.
+     *
+     * @return идентификатор объявления
+     */
+    int getPk();
+
+    /**
+     * Возвращает идентификатор автора объявления.
+     *
+     * @return идентификатор автора
+     */
+    int getAuthor();
+
+    /**
+     * Возвращает заголовок объявления.
+     *
+     * @return заголовок объявления
+     */
+    String getTitle();
+
+    /**
+     * Возвращает цену объявления.
+     *
+     * @return цена объявления
+     */
+    int getPrice();
+
+    /**
+     * Возвращает ссылку на изображение объявления.
+     *
+     * @return ссылка на изображение
+     */
+    String getImage();
+
+    /**
+     * Возвращает релевантность объявления поисковому запросу.
+     *
+     * @return значение {@code ts_rank}
+     */
+    float getRank();
+}
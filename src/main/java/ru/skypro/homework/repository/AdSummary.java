@@ -0,0 +1,16 @@
+package ru.skypro.homework.repository;
+
+/**
+ * Проекция объявления для списков.
+ * Содержит только поля базового DTO объявления, поэтому запросы со списками объявлений не создают сущности
+ * и не читают описание, а выборка без фильтра по цене может выполняться только по индексу
+ * {@code ad_entities_listing_idx}.
+ *
+ * @param pk     идентификатор объявления
+ * @param author идентификатор автора объявления
+ * @param title  заголовок объявления
+ * @param price  цена объявления
+ * @param image  ссылка на изображение объявления
+ */
+public record AdSummary(int pk, int author, String title, int price, String image) {
+}
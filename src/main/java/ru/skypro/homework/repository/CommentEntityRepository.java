@@ -1,24 +1,90 @@
 package ru.skypro.homework.repository;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.skypro.homework.dto.Comment;
 import ru.skypro.homework.entity.CommentEntity;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
  * Репозиторий для управления сущностями комментариев в базе данных.
- * Предоставляет стандартные CRUD-операции и кастомный запрос для поиска комментария.
+ * Предоставляет стандартные CRUD-операции и кастомные запросы для поиска комментария и проверки его автора.
  */
 @Repository
 public interface CommentEntityRepository extends JpaRepository<CommentEntity, Integer> {
 
     /**
-     * Находит комментарий по идентификатору объявления и идентификатору комментария.
+     * Находит комментарий по идентификатору объявления и идентификатору комментария вместе с автором.
      *
      * @param adId      идентификатор объявления
      * @param commentId идентификатор комментария
      * @return Optional с найденным комментарием или пустой Optional, если комментарий не найден
      */
+    @EntityGraph(attributePaths = "author")
     Optional<CommentEntity> findByAdEntity_PkAndPk(int adId, int commentId);
-}
\ No newline at end of file
+
+    /**
+     * Проверяет, принадлежит ли комментарий пользователю с указанным логином.
+     * Проверка выполняется одним запросом с соединением по автору, сущности не загружаются.
+     *
+     * @param adId      идентификатор объявления
+     * @param commentId идентификатор комментария
+     * @param username  логин пользователя
+     * @return true если комментарий существует и принадлежит пользователю
+     */
+    boolean existsByAdEntity_PkAndPkAndAuthor_Username(int adId, int commentId, String username);
+
+    /**
+     * Проверяет существование комментария в объявлении.
+     *
+     * @param adId      идентификатор объявления
+     * @param commentId идентификатор комментария
+     * @return true если комментарий существует
+     */
+    boolean existsByAdEntity_PkAndPk(int adId, int commentId);
+
+    /**
+     * Удаляет комментарий в объявлении одним запросом, не загружая его.
+     *
+     * @param adId      идентификатор объявления
+     * @param commentId идентификатор комментария
+     * @return количество удалённых комментариев
+     */
+    @Modifying
+    @Query("DELETE FROM comment_entities c WHERE c.adEntity.pk = :adId AND c.pk = :commentId")
+    int deleteByAdIdAndPk(@Param("adId") int adId, @Param("commentId") int commentId);
+
+    /**
+     * Удаляет все комментарии объявления одним запросом, не загружая их.
+     *
+     * @param adId идентификатор объявления
+     * @return количество удалённых комментариев
+     */
+    @Modifying
+    @Query("DELETE FROM comment_entities c WHERE c.adEntity.pk = :adId")
+    int deleteAllByAdId(@Param("adId") int adId);
+
+    /**
+     * Получает страницу комментариев объявления от новых к старым, начиная после курсора (createdAt, pk).
+     * Комментарии и данные автора читаются одним запросом сразу в DTO, сущности и коллекция
+     * комментариев объявления не загружаются.
+     *
+     * @param adId      идентификатор объявления
+     * @param createdAt время создания последнего полученного комментария
+     * @param pk        идентификатор последнего полученного комментария
+     * @param limit     максимальное количество комментариев
+     * @return список DTO комментариев
+     */
+    @Query("SELECT new ru.skypro.homework.dto.Comment(u.id, u.firstName, u.image, c.createdAt, c.pk, c.text) " +
+            "FROM comment_entities c JOIN c.author u " +
+            "WHERE c.adEntity.pk = :adId AND (c.createdAt < :createdAt OR (c.createdAt = :createdAt AND c.pk < :pk)) " +
+            "ORDER BY c.createdAt DESC, c.pk DESC")
+    List<Comment> findPageByAdId(@Param("adId") int adId, @Param("createdAt") long createdAt, @Param("pk") int pk, Limit limit);
+}
@@ -0,0 +1,26 @@
+package ru.skypro.homework.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.skypro.homework.entity.ImageDeletionEntity;
+
+import java.util.List;
+
+/**
+ * Репозиторий для управления запланированными удалениями файлов изображений в базе данных.
+ */
+@Repository
+public interface ImageDeletionEntityRepository extends JpaRepository<ImageDeletionEntity, Long> {
+
+    /**
+     * Находит и блокирует до конца транзакции самые старые запланированные удаления.
+     * Записи, заблокированные другим экземпляром приложения, пропускаются.
+     *
+     * @param limit максимальное количество записей
+     * @return список запланированных удалений в порядке создания
+     */
+    @Query(value = "SELECT * FROM image_deletions ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<ImageDeletionEntity> lockBatch(@Param("limit") int limit);
+}
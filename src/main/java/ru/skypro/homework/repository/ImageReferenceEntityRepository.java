@@ -0,0 +1,122 @@
+package ru.skypro.homework.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.skypro.homework.entity.ImageReferenceEntity;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Репозиторий для управления счётчиками ссылок на изображения в базе данных.
+ * Счётчики изменяются атомарно на стороне базы, строка остаётся заблокированной до конца транзакции.
+ */
+@Repository
+public interface ImageReferenceEntityRepository extends JpaRepository<ImageReferenceEntity, String> {
+
+    /**
+     * Увеличивает счётчик ссылок на изображение, создавая его при первой ссылке.
+     *
+     * @param path путь к изображению
+     */
+    @Modifying
+    @Query(value = "INSERT INTO image_references (path, ref_count) VALUES (:path, 1) " +
+            "ON CONFLICT (path) DO UPDATE SET ref_count = image_references.ref_count + 1", nativeQuery = true)
+    void increment(@Param("path") String path);
+
+    /**
+     * Увеличивает счётчики ссылок на изображения, создавая отсутствующие записи.
+     * Каждое вхождение пути в списке добавляет одну ссылку.
+     *
+     * @param paths пути к изображениям, по одному на каждую новую ссылку
+     */
+    @Modifying
+    @Query(value = "INSERT INTO image_references (path, ref_count) " +
+            "SELECT path, COUNT(*) FROM unnest(CAST(:paths AS text[])) path GROUP BY path " +
+            "ON CONFLICT (path) DO UPDATE SET ref_count = image_references.ref_count + EXCLUDED.ref_count", nativeQuery = true)
+    void incrementAll(@Param("paths") String[] paths);
+
+    /**
+     * Создаёт отсутствующие счётчики ссылок на изображения, загруженные до появления счётчиков.
+     * Начальное значение равно количеству объявлений и пользователей, которые уже ссылаются на изображение,
+     * поэтому новая ссылка не сделает счётчик меньше фактического числа ссылок.
+     *
+     * @param paths пути к изображениям без повторов
+     */
+    @Modifying
+    @Query(value = "INSERT INTO image_references (path, ref_count) " +
+            "SELECT path, (SELECT COUNT(*) FROM ad_entities WHERE image = path) " +
+            "+ (SELECT COUNT(*) FROM user_entities WHERE image = path) " +
+            "FROM unnest(CAST(:paths AS text[])) path " +
+            "ON CONFLICT (path) DO NOTHING", nativeQuery = true)
+    void seedAll(@Param("paths") String[] paths);
+
+    /**
+     * Уменьшает счётчик ссылок на изображение.
+     *
+     * @param path путь к изображению
+     * @return количество изменённых строк: 0, если изображение не учитывается в счётчиках
+     */
+    @Modifying
+    @Query(value = "UPDATE image_references SET ref_count = ref_count - 1 WHERE path = :path AND ref_count > 0", nativeQuery = true)
+    int decrement(@Param("path") String path);
+
+    /**
+     * Удаляет счётчик изображения, на которое больше нет ссылок.
+     *
+     * @param path путь к изображению
+     * @return количество удалённых строк: 1, если файл изображения можно удалить
+     */
+    @Modifying
+    @Query(value = "DELETE FROM image_references WHERE path = :path AND ref_count = 0", nativeQuery = true)
+    int deleteUnreferenced(@Param("path") String path);
+
+    /**
+     * Блокирует изображение до конца транзакции рекомендательной блокировкой PostgreSQL.
+     * Сохранение изображения и удаление его файла выполняются под этой блокировкой,
+     * поэтому файл не может быть удалён между проверкой его наличия и созданием новой ссылки.
+     *
+     * @param path путь к изображению
+     * @return всегда 1
+     */
+    @Query(value = "SELECT COUNT(*) FROM pg_advisory_xact_lock(hashtext(:path))", nativeQuery = true)
+    long lock(@Param("path") String path);
+
+    /**
+     * Блокирует несколько изображений до конца текущей транзакции.
+     * Пути должны быть отсортированы, чтобы параллельные транзакции захватывали блокировки в одном порядке.
+     *
+     * @param paths отсортированные пути к изображениям без повторов
+     * @return количество захваченных блокировок
+     */
+    @Query(value = "SELECT COUNT(*) FROM (SELECT pg_advisory_xact_lock(hashtext(path)) FROM unnest(CAST(:paths AS text[])) path) locks", nativeQuery = true)
+    long lockAll(@Param("paths") String[] paths);
+
+    /**
+     * Находит пути изображений, на которые есть ссылки в счётчиках, объявлениях или пользователях
+     * либо удаление которых уже запланировано.
+     *
+     * @param paths проверяемые пути к изображениям
+     * @return пути, которые нельзя считать потерянными
+     */
+    @Query(value = "SELECT path FROM image_references WHERE path IN (:paths) " +
+            "UNION SELECT image FROM ad_entities WHERE image IN (:paths) " +
+            "UNION SELECT image FROM user_entities WHERE image IN (:paths) " +
+            "UNION SELECT path FROM image_deletions WHERE path IN (:paths)", nativeQuery = true)
+    List<String> findReferencedPaths(@Param("paths") Collection<String> paths);
+
+    /**
+     * Находит пути изображений, на которые есть ссылки в счётчиках, объявлениях или пользователях.
+     * В отличие от {@link #findReferencedPaths}, запланированные удаления не учитываются.
+     *
+     * @param paths проверяемые пути к изображениям
+     * @return пути, файлы которых нельзя удалять
+     */
+    @Query(value = "SELECT path FROM image_references WHERE path IN (:paths) " +
+            "UNION SELECT image FROM ad_entities WHERE image IN (:paths) " +
+            "UNION SELECT image FROM user_entities WHERE image IN (:paths)", nativeQuery = true)
+    List<String> findPathsInUse(@Param("paths") Collection<String> paths);
+}
@@ -0,0 +1,47 @@
+package ru.skypro.homework.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.skypro.homework.entity.RevokedTokenEntity;
+
+import java.util.List;
+
+/**
+ * Репозиторий для управления отозванными токенами в базе данных.
+ * Предоставляет стандартные CRUD-операции и запросы для синхронизации списка отзыва.
+ */
+@Repository
+public interface RevokedTokenEntityRepository extends JpaRepository<RevokedTokenEntity, String> {
+
+    /**
+     * Добавляет запись об отзыве токена, если токен ещё не отозван. При одновременном отзыве одного токена
+     * несколькими транзакциями запись добавит только одна из них, остальные получат 0.
+     *
+     * @param id        идентификатор токена
+     * @param expiresAt время истечения срока действия токена в секундах
+     * @param revokedAt момент отзыва в миллисекундах
+     * @return 1 если запись добавлена, 0 если токен уже был отозван
+     */
+    @Modifying
+    @Query(value = "INSERT INTO revoked_tokens (id, expires_at, revoked_at) VALUES (:id, :expiresAt, :revokedAt) " +
+            "ON CONFLICT (id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("id") String id, @Param("expiresAt") long expiresAt, @Param("revokedAt") long revokedAt);
+
+    /**
+     * Находит токены, отозванные начиная с указанного момента.
+     *
+     * @param revokedAt момент в миллисекундах, начиная с которого ищутся отозванные токены
+     * @return список отозванных токенов
+     */
+    List<RevokedTokenEntity> findByRevokedAtGreaterThanEqual(long revokedAt);
+
+    /**
+     * Удаляет токены, срок действия которых истёк.
+     *
+     * @param expiresAt момент в секундах, до которого включительно токены считаются истёкшими
+     */
+    void deleteByExpiresAtLessThanEqual(long expiresAt);
+}
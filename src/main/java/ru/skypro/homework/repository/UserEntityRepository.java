@@ -1,9 +1,16 @@
 package ru.skypro.homework.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.skypro.homework.entity.UserEntity;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -15,9 +22,20 @@ public interface UserEntityRepository extends JpaRepository<UserEntity, Integer>
 
     /**
      * Находит пользователя по его логину (username).
+     * Результат запроса кэшируется, сам пользователь берётся из кэша второго уровня.
      *
      * @param username логин пользователя
      * @return Optional с найденным пользователем или пустой Optional, если пользователь не найден
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<UserEntity> findByUsername(String username);
-}
\ No newline at end of file
+
+    /**
+     * Находит идентификаторы существующих пользователей среди указанных.
+     *
+     * @param ids идентификаторы пользователей
+     * @return идентификаторы пользователей, которые есть в базе данных
+     */
+    @Query("SELECT u.id FROM user_entities u WHERE u.id IN :ids")
+    List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
+}
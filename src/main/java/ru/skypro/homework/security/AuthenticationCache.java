@@ -0,0 +1,187 @@
+package ru.skypro.homework.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Ограниченный по размеру и времени жизни кэш успешно проверенных учётных данных.
+ * Позволяет не выполнять SQL-запрос и проверку BCrypt при каждом запросе с HTTP Basic.
+ * <p>
+ * Пароли в кэше не хранятся: для каждого логина хранится HMAC-SHA256 от пары логин/пароль,
+ * вычисленный на случайном ключе, который генерируется при запуске приложения.
+ * <p>
+ * Проверка пароля по базе данных может завершиться уже после смены пароля, поэтому перед проверкой
+ * берётся отметка {@link #stamp(String)}, и результат запоминается, только если с тех пор учётные данные
+ * пользователя не удалялись из кэша.
+ */
+@Slf4j
+@Component
+public class AuthenticationCache {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    /**
+     * Количество счётчиков удалений, степень двойки. Пользователи с одинаковым номером счётчика
+     * делят его между собой, что может лишь изредка помешать запомнить учётные данные.
+     */
+    private static final int STAMP_STRIPES = 1024;
+
+    /**
+     * Проверенные учётные данные, сгруппированные по логину пользователя.
+     */
+    private final Cache<String, CachedCredentials> cache;
+
+    /**
+     * Счётчики удалений учётных данных, выбираемые по хэшу логина.
+     */
+    private final AtomicLongArray stamps = new AtomicLongArray(STAMP_STRIPES);
+
+    /**
+     * Случайный ключ HMAC, известный только текущему процессу.
+     */
+    private final SecretKeySpec key;
+
+    /**
+     * Экземпляры {@link Mac} не потокобезопасны, поэтому у каждого потока свой.
+     */
+    private final ThreadLocal<Mac> mac = ThreadLocal.withInitial(this::createMac);
+
+    public AuthenticationCache(@Value("${auth.cache.max-size}") long maxSize,
+                               @Value("${auth.cache.ttl}") Duration ttl) {
+        byte[] salt = new byte[32];
+        new SecureRandom().nextBytes(salt);
+        this.key = new SecretKeySpec(salt, HMAC_ALGORITHM);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Возвращает данные пользователя, если пара логин/пароль уже была успешно проверена.
+     *
+     * @param username логин пользователя
+     * @param password пароль пользователя
+     * @return данные пользователя или null, если учётные данные отсутствуют в кэше или не совпадают
+     */
+    public UserDetails get(String username, String password) {
+        CachedCredentials cached = cache.getIfPresent(username);
+        if (cached == null) {
+            return null;
+        }
+        return MessageDigest.isEqual(cached.digest(), digest(username, password)) ? cached.principal() : null;
+    }
+
+    /**
+     * Возвращает отметку удалений учётных данных пользователя. Отметка берётся до проверки пароля
+     * и передаётся в {@link #put(String, String, UserDetails, long)}.
+     *
+     * @param username логин пользователя
+     * @return текущая отметка
+     */
+    public long stamp(String username) {
+        return stamps.get(stripe(username));
+    }
+
+    /**
+     * Запоминает успешно проверенные учётные данные, если после получения отметки они не удалялись из кэша.
+     * Отметка повторно сверяется после записи, и при расхождении запись удаляется: иначе удаление,
+     * выполненное между сверкой и записью, оставило бы в кэше старый пароль.
+     *
+     * @param username  логин пользователя
+     * @param password  пароль пользователя
+     * @param principal данные аутентифицированного пользователя
+     * @param stamp     отметка, полученная до проверки пароля
+     * @return true если учётные данные запомнены
+     */
+    public boolean put(String username, String password, UserDetails principal, long stamp) {
+        int stripe = stripe(username);
+        if (stamps.get(stripe) != stamp) {
+            return false;
+        }
+        CachedCredentials credentials = new CachedCredentials(digest(username, password), principal);
+        cache.put(username, credentials);
+        if (stamps.get(stripe) != stamp) {
+            cache.asMap().remove(username, credentials);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Удаляет учётные данные пользователя из кэша и сдвигает его отметку. Если вызов происходит внутри транзакции,
+     * удаление повторяется после её фиксации, чтобы параллельный запрос, прочитавший пароль до фиксации,
+     * не вернул в кэш старые данные.
+     *
+     * @param username логин пользователя
+     */
+    public void invalidate(String username) {
+        evict(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(username);
+                }
+            });
+        }
+        log.debug("Учётные данные пользователя {} удалены из кэша", username);
+    }
+
+    /**
+     * Сдвигает отметку пользователя и удаляет его учётные данные. Отметка сдвигается до удаления,
+     * чтобы параллельная запись либо увидела новую отметку, либо была удалена здесь же.
+     *
+     * @param username логин пользователя
+     */
+    private void evict(String username) {
+        stamps.incrementAndGet(stripe(username));
+        cache.invalidate(username);
+    }
+
+    private int stripe(String username) {
+        int hash = username.hashCode();
+        return (hash ^ (hash >>> 16)) & (STAMP_STRIPES - 1);
+    }
+
+    private byte[] digest(String username, String password) {
+        Mac instance = mac.get();
+        instance.update(username.getBytes(StandardCharsets.UTF_8));
+        instance.update((byte) 0);
+        return instance.doFinal(password.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Mac createMac() {
+        try {
+            Mac instance = Mac.getInstance(HMAC_ALGORITHM);
+            instance.init(key);
+            return instance;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Алгоритм " + HMAC_ALGORITHM + " недоступен", e);
+        }
+    }
+
+    /**
+     * Закэшированные учётные данные пользователя.
+     *
+     * @param digest    HMAC от пары логин/пароль
+     * @param principal данные аутентифицированного пользователя
+     */
+    private record CachedCredentials(byte[] digest, UserDetails principal) {
+    }
+}
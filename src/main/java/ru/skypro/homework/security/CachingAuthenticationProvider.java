@@ -0,0 +1,65 @@
+package ru.skypro.homework.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Провайдер аутентификации, который проверяет учётные данные по {@link AuthenticationCache}
+ * и обращается к базе данных и BCrypt только при промахе кэша.
+ */
+@RequiredArgsConstructor
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    /**
+     * Провайдер, выполняющий полную проверку учётных данных.
+     */
+    private final AuthenticationProvider delegate;
+
+    /**
+     * Кэш успешно проверенных учётных данных.
+     */
+    private final AuthenticationCache authenticationCache;
+
+    /**
+     * Аутентифицирует пользователя по логину и паролю.
+     *
+     * @param authentication запрос на аутентификацию
+     * @return результат аутентификации
+     * @throws AuthenticationException если учётные данные неверны
+     */
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        Object credentials = authentication.getCredentials();
+        if (credentials == null) {
+            return delegate.authenticate(authentication);
+        }
+
+        String username = authentication.getName();
+        String password = credentials.toString();
+
+        UserDetails cached = authenticationCache.get(username, password);
+        if (cached != null) {
+            UsernamePasswordAuthenticationToken result =
+                    UsernamePasswordAuthenticationToken.authenticated(cached, null, cached.getAuthorities());
+            result.setDetails(authentication.getDetails());
+            return result;
+        }
+
+        // Отметка берётся до проверки: если пароль сменят во время неё, результат не попадёт в кэш
+        long stamp = authenticationCache.stamp(username);
+        Authentication result = delegate.authenticate(authentication);
+        if (result != null && result.getPrincipal() instanceof UserDetails userDetails) {
+            authenticationCache.put(username, password, userDetails, stamp);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+}
@@ -0,0 +1,82 @@
+package ru.skypro.homework.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Кодировщик паролей, измеряющий время хеширования и проверки пароля.
+ * Время публикуется таймером {@code auth.password} с тегом {@code operation}.
+ */
+public class TimedPasswordEncoder implements PasswordEncoder {
+
+    /**
+     * Кодировщик, выполняющий хеширование.
+     */
+    private final PasswordEncoder delegate;
+
+    /**
+     * Таймер хеширования пароля.
+     */
+    private final Timer encodeTimer;
+
+    /**
+     * Таймер проверки пароля.
+     */
+    private final Timer matchesTimer;
+
+    public TimedPasswordEncoder(PasswordEncoder delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.encodeTimer = timer(meterRegistry, "encode");
+        this.matchesTimer = timer(meterRegistry, "matches");
+    }
+
+    /**
+     * Хеширует пароль.
+     *
+     * @param rawPassword пароль
+     * @return хеш пароля
+     */
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return encodeTimer.record(() -> delegate.encode(rawPassword));
+    }
+
+    /**
+     * Проверяет соответствие пароля хешу.
+     *
+     * @param rawPassword     пароль
+     * @param encodedPassword хеш пароля
+     * @return true если пароль соответствует хешу
+     */
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return Boolean.TRUE.equals(matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword)));
+    }
+
+    /**
+     * Проверяет, нужно ли перехешировать пароль.
+     *
+     * @param encodedPassword хеш пароля
+     * @return true если хеш нужно обновить
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Регистрирует таймер операции с паролем.
+     *
+     * @param meterRegistry реестр метрик
+     * @param operation     операция
+     * @return таймер
+     */
+    private static Timer timer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("auth.password")
+                .description("Время хеширования и проверки пароля")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,50 @@
+package ru.skypro.homework.security;
+
+/**
+ * Данные, содержащиеся в подписанном токене.
+ *
+ * @param type       тип токена
+ * @param id         уникальный идентификатор токена, используемый для отзыва
+ * @param username   логин пользователя
+ * @param authority  роль пользователя
+ * @param expiresAt  время истечения срока действия в секундах с 00:00:00 01.01.1970
+ * @param generation поколение токенов пользователя на момент выдачи
+ */
+public record TokenClaims(Type type, String id, String username, String authority, long expiresAt, int generation) {
+
+    private static final char SEPARATOR = '|';
+
+    /**
+     * Тип токена.
+     */
+    public enum Type {
+        ACCESS, REFRESH
+    }
+
+    /**
+     * Сериализует данные токена в строку. Логин записывается последним,
+     * поэтому разделитель в нём не нарушает разбор.
+     *
+     * @return строковое представление данных токена
+     */
+    String serialize() {
+        return type.name() + SEPARATOR + id + SEPARATOR + expiresAt + SEPARATOR + authority + SEPARATOR
+                + generation + SEPARATOR + username;
+    }
+
+    /**
+     * Восстанавливает данные токена из строки, полученной через {@link #serialize()}.
+     *
+     * @param value строковое представление данных токена
+     * @return данные токена
+     * @throws IllegalArgumentException если строка имеет неверный формат
+     */
+    static TokenClaims parse(String value) {
+        String[] parts = value.split("\\|", 6);
+        if (parts.length != 6) {
+            throw new IllegalArgumentException("Неверный формат токена");
+        }
+        return new TokenClaims(Type.valueOf(parts[0]), parts[1], parts[5], parts[3], Long.parseLong(parts[2]),
+                Integer.parseInt(parts[4]));
+    }
+}
@@ -0,0 +1,93 @@
+package ru.skypro.homework.security;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.skypro.homework.repository.RevokedTokenEntityRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Список отозванных токенов.
+ * Проверка выполняется по копии списка в памяти, а сам список хранится в PostgreSQL
+ * и периодически синхронизируется, чтобы отзыв на одном экземпляре приложения
+ * становился виден остальным.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenRevocationList {
+
+    /**
+     * Репозиторий для работы с отозванными токенами в базе данных.
+     */
+    private final RevokedTokenEntityRepository revokedTokenEntityRepository;
+
+    /**
+     * Интервал синхронизации списка с базой данных.
+     */
+    @Value("${auth.token.revocation-sync-interval}")
+    private Duration syncInterval;
+
+    /**
+     * Идентификаторы отозванных токенов и время истечения их срока действия.
+     */
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    /**
+     * Момент последней синхронизации в миллисекундах.
+     */
+    private volatile long lastSyncAt;
+
+    /**
+     * Проверяет, отозван ли токен.
+     *
+     * @param id идентификатор токена
+     * @return true если токен отозван
+     */
+    public boolean isRevoked(String id) {
+        return revoked.containsKey(id);
+    }
+
+    /**
+     * Отзывает токен. Решение о том, кто отозвал токен первым, принимает база данных,
+     * поэтому при одновременном отзыве одного токена на разных экземплярах приложения true получит только один вызов.
+     *
+     * @param id        идентификатор токена
+     * @param expiresAt время истечения срока действия токена в секундах
+     * @return true если токен отозван этим вызовом, false если он уже был отозван
+     */
+    @Transactional
+    public boolean revoke(String id, long expiresAt) {
+        revoked.put(id, expiresAt);
+        return revokedTokenEntityRepository.insertIfAbsent(id, expiresAt, System.currentTimeMillis()) == 1;
+    }
+
+    /**
+     * Загружает токены, отозванные другими экземплярами приложения, и удаляет истёкшие.
+     * Новые записи запрашиваются с запасом в один интервал синхронизации,
+     * чтобы не пропустить транзакции, зафиксированные во время предыдущей синхронизации.
+     */
+    @Transactional
+    @Scheduled(fixedDelayString = "${auth.token.revocation-sync-interval}")
+    public void synchronize() {
+        long startedAt = System.currentTimeMillis();
+        long now = Instant.ofEpochMilli(startedAt).getEpochSecond();
+
+        revokedTokenEntityRepository.deleteByExpiresAtLessThanEqual(now);
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+
+        long since = lastSyncAt == 0 ? 0 : lastSyncAt - syncInterval.toMillis();
+        revokedTokenEntityRepository.findByRevokedAtGreaterThanEqual(since)
+                .forEach(token -> revoked.put(token.getId(), token.getExpiresAt()));
+        lastSyncAt = startedAt;
+
+        log.debug("Список отозванных токенов синхронизирован, записей: {}", revoked.size());
+    }
+}
@@ -0,0 +1,202 @@
+package ru.skypro.homework.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.skypro.homework.cache.UserSnapshotCache;
+import ru.skypro.homework.dto.Token;
+import ru.skypro.homework.exception.UserEntityNotFoundException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Сервис выдачи и проверки самодостаточных токенов, подписанных HMAC-SHA256.
+ * Проверка токена не требует BCrypt, а поколение токенов пользователя берётся из кэша снимков,
+ * поэтому к базе данных проверка обращается только при промахе кэша.
+ * <p>
+ * Формат токена: {@code base64url(данные).base64url(подпись)}.
+ */
+@Slf4j
+@Component
+public class TokenService {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private static final int MIN_KEY_LENGTH = 32;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /**
+     * Список отозванных токенов.
+     */
+    private final TokenRevocationList tokenRevocationList;
+
+    /**
+     * Кэш снимков пользователей, из которого берётся текущее поколение токенов.
+     */
+    private final UserSnapshotCache userSnapshotCache;
+
+    /**
+     * Ключ подписи токенов.
+     */
+    private final SecretKeySpec key;
+
+    /**
+     * Время жизни токена доступа.
+     */
+    private final Duration accessTokenTtl;
+
+    /**
+     * Время жизни токена обновления.
+     */
+    private final Duration refreshTokenTtl;
+
+    /**
+     * Экземпляры {@link Mac} не потокобезопасны, поэтому у каждого потока свой.
+     */
+    private final ThreadLocal<Mac> mac = ThreadLocal.withInitial(this::createMac);
+
+    public TokenService(TokenRevocationList tokenRevocationList,
+                        UserSnapshotCache userSnapshotCache,
+                        @Value("${auth.token.secret}") String secret,
+                        @Value("${auth.token.access-ttl}") Duration accessTokenTtl,
+                        @Value("${auth.token.refresh-ttl}") Duration refreshTokenTtl) {
+        this.tokenRevocationList = tokenRevocationList;
+        this.userSnapshotCache = userSnapshotCache;
+        this.key = new SecretKeySpec(decodeSecret(secret), HMAC_ALGORITHM);
+        this.accessTokenTtl = accessTokenTtl;
+        this.refreshTokenTtl = refreshTokenTtl;
+    }
+
+    /**
+     * Выдаёт пару токенов доступа и обновления.
+     *
+     * @param username   логин пользователя
+     * @param authority  роль пользователя
+     * @param generation текущее поколение токенов пользователя
+     * @return DTO с токенами
+     */
+    public Token issue(String username, String authority, int generation) {
+        long now = Instant.now().getEpochSecond();
+
+        Token token = new Token();
+        token.setAccessToken(sign(new TokenClaims(TokenClaims.Type.ACCESS, UUID.randomUUID().toString(),
+                username, authority, now + accessTokenTtl.toSeconds(), generation)));
+        token.setRefreshToken(sign(new TokenClaims(TokenClaims.Type.REFRESH, UUID.randomUUID().toString(),
+                username, authority, now + refreshTokenTtl.toSeconds(), generation)));
+        token.setTokenType("Bearer");
+        token.setExpiresIn(accessTokenTtl.toSeconds());
+        return token;
+    }
+
+    /**
+     * Проверяет подпись, тип, срок действия и отзыв токена, а также то, что токен выдан с текущим
+     * поколением токенов пользователя, то есть после последней смены пароля.
+     *
+     * @param token строка токена
+     * @param type  ожидаемый тип токена
+     * @return данные токена или пустой Optional, если токен недействителен
+     */
+    public Optional<TokenClaims> verify(String token, TokenClaims.Type type) {
+        int separator = token.indexOf('.');
+        if (separator <= 0 || separator != token.lastIndexOf('.')) {
+            return Optional.empty();
+        }
+
+        String payload = token.substring(0, separator);
+        TokenClaims claims;
+        try {
+            byte[] signature = DECODER.decode(token.substring(separator + 1));
+            if (!MessageDigest.isEqual(signature, hmac(payload))) {
+                return Optional.empty();
+            }
+            claims = TokenClaims.parse(new String(DECODER.decode(payload), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+
+        if (claims.type() != type
+                || claims.expiresAt() <= Instant.now().getEpochSecond()
+                || tokenRevocationList.isRevoked(claims.id())
+                || claims.generation() != currentGeneration(claims.username())) {
+            return Optional.empty();
+        }
+        return Optional.of(claims);
+    }
+
+    /**
+     * Возвращает текущее поколение токенов пользователя.
+     *
+     * @param username логин пользователя
+     * @return поколение токенов или -1, если пользователь не найден
+     */
+    private int currentGeneration(String username) {
+        try {
+            return userSnapshotCache.get(username).tokenGeneration();
+        } catch (UserEntityNotFoundException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Отзывает токен до истечения его срока действия.
+     *
+     * @param claims данные токена
+     * @return true если токен отозван этим вызовом, false если он уже был отозван
+     */
+    public boolean revoke(TokenClaims claims) {
+        return tokenRevocationList.revoke(claims.id(), claims.expiresAt());
+    }
+
+    private String sign(TokenClaims claims) {
+        String payload = ENCODER.encodeToString(claims.serialize().getBytes(StandardCharsets.UTF_8));
+        return payload + '.' + ENCODER.encodeToString(hmac(payload));
+    }
+
+    private byte[] hmac(String payload) {
+        return mac.get().doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private Mac createMac() {
+        try {
+            Mac instance = Mac.getInstance(HMAC_ALGORITHM);
+            instance.init(key);
+            return instance;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Алгоритм " + HMAC_ALGORITHM + " недоступен", e);
+        }
+    }
+
+    /**
+     * Декодирует ключ подписи из Base64. Если ключ не задан, генерирует случайный:
+     * такие токены перестают действовать после перезапуска и не принимаются другими экземплярами приложения.
+     *
+     * @param secret ключ в Base64 или пустая строка
+     * @return ключ подписи
+     */
+    private static byte[] decodeSecret(String secret) {
+        if (secret == null || secret.isBlank()) {
+            log.warn("Ключ подписи токенов не задан (auth.token.secret), используется случайный ключ");
+            byte[] random = new byte[MIN_KEY_LENGTH];
+            new SecureRandom().nextBytes(random);
+            return random;
+        }
+        byte[] decoded = Base64.getDecoder().decode(secret.trim());
+        if (decoded.length < MIN_KEY_LENGTH) {
+            throw new IllegalStateException("Ключ подписи токенов должен быть не короче " + MIN_KEY_LENGTH + " байт");
+        }
+        return decoded;
+    }
+}
@@ -3,11 +3,19 @@ package ru.skypro.homework.service;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.multipart.MultipartFile;
 import ru.skypro.homework.dto.Ad;
+import ru.skypro.homework.dto.AdFilter;
+import ru.skypro.homework.dto.AdImportFormat;
+import ru.skypro.homework.dto.AdImportResult;
 import ru.skypro.homework.dto.Ads;
 import ru.skypro.homework.dto.CreateOrUpdateAd;
 import ru.skypro.homework.dto.ExtendedAd;
+import ru.skypro.homework.dto.Versioned;
+import ru.skypro.homework.exception.PreconditionFailedException;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Set;
 
 /**
  * Интерфейс сервиса для управления объявлениями.
@@ -17,11 +25,55 @@ import java.io.IOException;
 public interface AdEntityService {
 
     /**
-     * Получает список всех объявлений.
+     * Получает страницу объявлений, отобранных и отсортированных по фильтру, следующих за курсором.
      *
-     * @return объект DTO со списком объявлений
+     * @param filter условия отбора и порядок сортировки
+     * @param cursor курсор, полученный на предыдущей странице, или null для первой страницы
+     * @param limit  размер страницы или null для размера по умолчанию
+     * @return объект DTO со страницей объявлений и курсором следующей страницы
+     */
+    Ads getAllAds(AdFilter filter, String cursor, Integer limit);
+
+    /**
+     * Ищет объявления по тексту заголовка и описания.
+     *
+     * @param query  поисковый запрос
+     * @param cursor курсор, полученный на предыдущей странице, или null для первой страницы
+     * @param limit  размер страницы или null для размера по умолчанию
+     * @return объект DTO со страницей найденных объявлений и курсором следующей страницы
+     */
+    Ads searchAds(String query, String cursor, Integer limit);
+
+    /**
+     * Записывает все объявления в поток в формате NDJSON, читая их через курсор базы данных.
+     *
+     * @param outputStream поток, в который записываются объявления
+     * @throws IOException если произошла ошибка записи
      */
-    Ads getAllAds();
+    void streamAllAds(OutputStream outputStream) throws IOException;
+
+    /**
+     * Выгружает объявления в поток в формате NDJSON, при необходимости с комментариями и именами авторов.
+     * Выгрузку можно продолжить после разрыва, передав идентификатор последнего полученного объявления.
+     *
+     * @param outputStream поток, в который записываются объявления
+     * @param afterPk      идентификатор последнего полученного объявления или 0 для выгрузки с начала
+     * @param withComments true если нужно выгрузить комментарии объявлений
+     * @param withAuthors  true если нужно выгрузить имена авторов
+     * @throws IOException если произошла ошибка записи
+     */
+    void exportAds(OutputStream outputStream, int afterPk, boolean withComments, boolean withAuthors) throws IOException;
+
+    /**
+     * Импортирует объявления из потока в формате NDJSON или CSV пакетами, не загружая поток в память целиком.
+     * Некорректные строки и строки с несуществующим автором или изображением пропускаются.
+     *
+     * @param inputStream поток с объявлениями
+     * @param format      формат потока
+     * @return количество добавленных и отклонённых объявлений с описанием ошибок
+     * @throws IOException если произошла ошибка чтения
+     */
+    AdImportResult importAds(InputStream inputStream, AdImportFormat format) throws IOException;
 
     /**
      * Создает новое объявление с прикрепленным изображением.
@@ -39,9 +91,9 @@ public interface AdEntityService {
      *
      * @param id             идентификатор объявления
      * @param authentication данные аутентификации
-     * @return расширенный DTO объявления
+     * @return расширенный DTO объявления с версией из версий объявления и его автора
      */
-    ExtendedAd getAds(int id, Authentication authentication);
+    Versioned<ExtendedAd> getAds(int id, Authentication authentication);
 
     /**
      * Удаляет объявление по его идентификатору.
@@ -54,11 +106,13 @@ public interface AdEntityService {
     /**
      * Обновляет данные существующего объявления.
      *
-     * @param id       идентификатор объявления
-     * @param updateAd данные для обновления
+     * @param id               идентификатор объявления
+     * @param updateAd         данные для обновления
+     * @param expectedVersions версии объявления, при которых разрешено обновление, или null без проверки версии
      * @return обновленное DTO объявления
+     * @throws PreconditionFailedException если версия объявления не входит в ожидаемые
      */
-    Ad updateAds(int id, CreateOrUpdateAd updateAd);
+    Ad updateAds(int id, CreateOrUpdateAd updateAd, Set<Integer> expectedVersions);
 
     /**
      * Получает список объявлений текущего аутентифицированного пользователя.
@@ -74,10 +128,10 @@ public interface AdEntityService {
      * @param id             идентификатор объявления
      * @param image          новый файл изображения
      * @param authentication данные аутентификации
-     * @return массив байтов обновленного изображения
+     * @return путь к обновленному изображению
      * @throws IOException если произошла ошибка при обработке изображения
      */
-    byte[] updateImage(int id, MultipartFile image, Authentication authentication) throws IOException;
+    String updateImage(int id, MultipartFile image, Authentication authentication) throws IOException;
 
     /**
      * Проверяет, является ли указанный пользователь владельцем объявления.
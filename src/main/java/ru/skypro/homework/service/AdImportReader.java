@@ -0,0 +1,29 @@
+package ru.skypro.homework.service;
+
+import ru.skypro.homework.dto.AdImportFormat;
+import ru.skypro.homework.dto.AdImportRow;
+import ru.skypro.homework.exception.InvalidImportException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+
+/**
+ * Интерфейс разбора потока импорта объявлений.
+ * Поток читается по мере обхода результата, поэтому расход памяти не зависит от размера файла.
+ */
+public interface AdImportReader {
+
+    /**
+     * Открывает поток импорта и проверяет каждую строку при обходе результата.
+     * Ошибка чтения при обходе выбрасывается как {@link UncheckedIOException}.
+     *
+     * @param inputStream поток с объявлениями в UTF-8
+     * @param format      формат потока
+     * @return строки импорта в порядке следования в потоке
+     * @throws IOException            если произошла ошибка чтения строки заголовков CSV
+     * @throws InvalidImportException если в CSV нет строки заголовков или обязательного столбца
+     */
+    Iterator<AdImportRow> read(InputStream inputStream, AdImportFormat format) throws IOException;
+}
@@ -1,21 +1,41 @@
 package ru.skypro.homework.service;
 
+import org.springframework.security.core.Authentication;
 import ru.skypro.homework.dto.Register;
+import ru.skypro.homework.dto.Token;
+
+import java.util.Optional;
 
 /**
  * Интерфейс сервиса для обработки авторизации и регистрации пользователей.
- * Предоставляет методы для проверки логина и регистрации новых пользователей.
+ * Предоставляет методы для проверки логина, выдачи и отзыва токенов и регистрации новых пользователей.
  */
 public interface AuthService {
 
     /**
-     * Выполняет проверку логина пользователя.
+     * Выполняет проверку логина пользователя и выдаёт пару токенов.
      *
      * @param userName имя пользователя
      * @param password пароль пользователя
-     * @return true, если авторизация успешна, иначе false
+     * @return токены, если авторизация успешна, иначе пустой Optional
+     */
+    Optional<Token> login(String userName, String password);
+
+    /**
+     * Выдаёт новую пару токенов по токену обновления. Использованный токен обновления отзывается.
+     *
+     * @param refreshToken токен обновления
+     * @return новые токены, если токен обновления действителен, иначе пустой Optional
+     */
+    Optional<Token> refresh(String refreshToken);
+
+    /**
+     * Отзывает токен доступа текущего запроса и, если передан, токен обновления.
+     *
+     * @param authentication данные аутентификации
+     * @param refreshToken   токен обновления или null
      */
-    boolean login(String userName, String password);
+    void logout(Authentication authentication, String refreshToken);
 
     /**
      * Регистрирует нового пользователя на основе предоставленных данных.
@@ -24,4 +44,4 @@ public interface AuthService {
      * @return true, если регистрация успешна, иначе false
      */
     boolean register(Register register);
-}
\ No newline at end of file
+}
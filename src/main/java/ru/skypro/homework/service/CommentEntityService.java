@@ -4,6 +4,10 @@ import org.springframework.security.core.Authentication;
 import ru.skypro.homework.dto.Comment;
 import ru.skypro.homework.dto.Comments;
 import ru.skypro.homework.dto.CreateOrUpdateComment;
+import ru.skypro.homework.dto.Versioned;
+import ru.skypro.homework.exception.PreconditionFailedException;
+
+import java.util.Set;
 
 /**
  * Интерфейс сервиса для управления комментариями.
@@ -12,12 +16,14 @@ import ru.skypro.homework.dto.CreateOrUpdateComment;
 public interface CommentEntityService {
 
     /**
-     * Получает список комментариев для указанного объявления.
+     * Получает страницу комментариев для указанного объявления от новых к старым.
      *
-     * @param id идентификатор объявления
+     * @param id     идентификатор объявления
+     * @param before курсор предыдущей страницы или null для первой страницы
+     * @param limit  размер страницы или null для размера по умолчанию
      * @return объект DTO со списком комментариев
      */
-    Comments getComments(int id);
+    Comments getComments(int id, String before, Integer limit);
 
     /**
      * Создает новый комментарий для указанного объявления.
@@ -25,9 +31,9 @@ public interface CommentEntityService {
      * @param id             идентификатор объявления
      * @param createComment  данные для создания комментария
      * @param authentication данные аутентификации автора
-     * @return DTO созданного комментария
+     * @return DTO созданного комментария с версией
      */
-    Comment addComment(int id, CreateOrUpdateComment createComment, Authentication authentication);
+    Versioned<Comment> addComment(int id, CreateOrUpdateComment createComment, Authentication authentication);
 
     /**
      * Удаляет комментарий по идентификатору объявления и комментария.
@@ -40,12 +46,14 @@ public interface CommentEntityService {
     /**
      * Обновляет существующий комментарий.
      *
-     * @param adId          идентификатор объявления
-     * @param commentId     идентификатор комментария
-     * @param updateComment данные для обновления
-     * @return обновленное DTO комментария
+     * @param adId             идентификатор объявления
+     * @param commentId        идентификатор комментария
+     * @param updateComment    данные для обновления
+     * @param expectedVersions версии комментария, при которых разрешено обновление, или null без проверки версии
+     * @return обновленное DTO комментария с новой версией
+     * @throws PreconditionFailedException если версия комментария не входит в ожидаемые
      */
-    Comment updateComment(int adId, int commentId, CreateOrUpdateComment updateComment);
+    Versioned<Comment> updateComment(int adId, int commentId, CreateOrUpdateComment updateComment, Set<Integer> expectedVersions);
 
     /**
      * Проверяет, является ли указанный пользователь владельцем комментария.
@@ -1,8 +1,12 @@
 package ru.skypro.homework.service;
 
 import org.springframework.web.multipart.MultipartFile;
+import ru.skypro.homework.image.StagedImage;
+import ru.skypro.homework.image.StoredImage;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
 
 /**
  * Интерфейс сервиса для работы с изображениями.
@@ -11,13 +15,22 @@ import java.io.IOException;
 public interface ImageService {
 
     /**
-     * Сохраняет загруженное изображение и возвращает путь к нему.
+     * Записывает загруженное изображение во временный файл. Не обращается к базе данных,
+     * поэтому вызывается до начала транзакции.
      *
      * @param multipartFile файл изображения
-     * @return путь к сохраненному изображению
-     * @throws IOException если произошла ошибка при сохранении
+     * @return временный файл изображения, который нужно закрыть после сохранения
+     * @throws IOException если произошла ошибка при записи
      */
-    String saveImage(MultipartFile multipartFile) throws IOException;
+    StagedImage stageImage(MultipartFile multipartFile) throws IOException;
+
+    /**
+     * Учитывает ссылку на изображение и переносит файл на место в текущей транзакции, до её фиксации.
+     *
+     * @param stagedImage временный файл изображения
+     * @return путь к сохранённому изображению
+     */
+    String commitImage(StagedImage stagedImage);
 
     /**
      * Получает изображение по указанному пути в виде массива байтов.
@@ -29,10 +42,36 @@ public interface ImageService {
     byte[] getImage(String filePath) throws IOException;
 
     /**
-     * Удаляет изображение по указанному пути.
+     * Находит файл изображения по указанному пути для отдачи клиенту.
+     * Если запрошена ещё не созданная уменьшенная версия, возвращается оригинал.
+     *
+     * @param filePath путь к изображению
+     * @return Optional с найденным файлом или пустой Optional, если изображение не найдено
+     * @throws IOException если произошла ошибка при чтении атрибутов файла
+     */
+    Optional<StoredImage> findImage(String filePath) throws IOException;
+
+    /**
+     * Удаляет ссылку на изображение по указанному пути. Файл удаляется позже фоновым обработчиком.
      *
      * @param filePath путь к изображению
-     * @throws IOException если произошла ошибка при удалении
      */
-    void deleteImage(String filePath) throws IOException;
+    void deleteImage(String filePath);
+
+    /**
+     * Удаляет файлы изображений, удаление которых запланировано.
+     *
+     * @param limit максимальное количество обрабатываемых записей
+     * @return количество обработанных записей
+     */
+    int reclaimImages(int limit);
+
+    /**
+     * Находит в папке изображений файлы, на которые нет ссылок, и планирует их удаление.
+     *
+     * @param minAge минимальный возраст файла, моложе которого файл не проверяется
+     * @return количество файлов, удаление которых запланировано
+     * @throws IOException если произошла ошибка при обходе папки изображений
+     */
+    int sweepOrphans(Duration minAge) throws IOException;
 }
\ No newline at end of file
@@ -5,8 +5,11 @@ import org.springframework.web.multipart.MultipartFile;
 import ru.skypro.homework.dto.NewPassword;
 import ru.skypro.homework.dto.UpdateUser;
 import ru.skypro.homework.dto.User;
+import ru.skypro.homework.dto.Versioned;
+import ru.skypro.homework.exception.PreconditionFailedException;
 
 import java.io.IOException;
+import java.util.Set;
 
 /**
  * Интерфейс сервиса для управления данными пользователей.
@@ -26,18 +29,20 @@ public interface UserEntityService {
      * Получает информацию о текущем аутентифицированном пользователе.
      *
      * @param authentication данные аутентификации
-     * @return DTO с данными пользователя
+     * @return DTO с данными пользователя с версией
      */
-    User getUser(Authentication authentication);
+    Versioned<User> getUser(Authentication authentication);
 
     /**
      * Обновляет данные текущего аутентифицированного пользователя.
      *
-     * @param updateUser     данные для обновления
-     * @param authentication данные аутентификации
+     * @param updateUser       данные для обновления
+     * @param authentication   данные аутентификации
+     * @param expectedVersions версии пользователя, при которых разрешено обновление, или null без проверки версии
      * @return обновленное DTO пользователя
+     * @throws PreconditionFailedException если версия пользователя не входит в ожидаемые
      */
-    UpdateUser updateUser(UpdateUser updateUser, Authentication authentication);
+    UpdateUser updateUser(UpdateUser updateUser, Authentication authentication, Set<Integer> expectedVersions);
 
     /**
      * Обновляет аватар текущего аутентифицированного пользователя.
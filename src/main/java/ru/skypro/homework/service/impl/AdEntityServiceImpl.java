@@ -1,36 +1,80 @@
 package ru.skypro.homework.service.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
+import ru.skypro.homework.cache.AdCountCache;
+import ru.skypro.homework.cache.UserSnapshotCache;
 import ru.skypro.homework.dto.Ad;
+import ru.skypro.homework.dto.AdFilter;
+import ru.skypro.homework.dto.AdImportFormat;
+import ru.skypro.homework.dto.AdImportResult;
+import ru.skypro.homework.dto.AdImportRow;
+import ru.skypro.homework.dto.AdSort;
 import ru.skypro.homework.dto.Ads;
 import ru.skypro.homework.dto.CreateOrUpdateAd;
 import ru.skypro.homework.dto.ExtendedAd;
+import ru.skypro.homework.dto.ImportedAd;
+import ru.skypro.homework.dto.Versioned;
 import ru.skypro.homework.entity.AdEntity;
 import ru.skypro.homework.entity.UserEntity;
 import ru.skypro.homework.exception.AdEntityNotFoundException;
+import ru.skypro.homework.exception.InvalidCursorException;
+import ru.skypro.homework.exception.InvalidImportException;
+import ru.skypro.homework.exception.PreconditionFailedException;
 import ru.skypro.homework.exception.UserEntityNotFoundException;
+import ru.skypro.homework.image.StagedImage;
 import ru.skypro.homework.mapper.AdEntityMapper;
 import ru.skypro.homework.repository.AdEntityRepository;
+import ru.skypro.homework.repository.AdSearchHit;
+import ru.skypro.homework.repository.AdSummary;
+import ru.skypro.homework.repository.CommentEntityRepository;
+import ru.skypro.homework.repository.ImageReferenceEntityRepository;
 import ru.skypro.homework.repository.UserEntityRepository;
 import ru.skypro.homework.service.AdEntityService;
+import ru.skypro.homework.service.AdImportReader;
 import ru.skypro.homework.service.ImageService;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Сервис для управления сущностями объявлений.
  * Предоставляет методы для обновления, получения, добавления и удаления объявлений.
  */
 @RequiredArgsConstructor
+@Timed("service.method")
 @Service
 public class AdEntityServiceImpl implements AdEntityService {
 
+    /**
+     * Количество объявлений, после записи которых данные сбрасываются в поток при потоковом чтении.
+     */
+    private static final int STREAM_FLUSH_INTERVAL = 500;
+
     /**
      * Репозиторий для работы с сущностями объявлений в базе данных.
      */
@@ -46,27 +90,259 @@ public class AdEntityServiceImpl implements AdEntityService {
      */
     private final UserEntityRepository userEntityRepository;
 
+    /**
+     * Репозиторий для работы с комментариями.
+     */
+    private final CommentEntityRepository commentEntityRepository;
+
     /**
      * Сервис для работы с изображениями.
      */
     private final ImageService imageService;
 
     /**
-     * Получает все объявления.
+     * Кэш общего количества объявлений.
+     */
+    private final AdCountCache adCountCache;
+
+    /**
+     * Кэш снимков пользователей по логину.
+     */
+    private final UserSnapshotCache userSnapshotCache;
+
+    /**
+     * Сериализатор объявлений для потоковой выдачи.
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Менеджер сущностей для очистки контекста персистентности при потоковом чтении.
+     */
+    private final EntityManager entityManager;
+
+    /**
+     * Шаблон короткой транзакции, которая выполняется после записи загруженного изображения.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Репозиторий счётчиков ссылок на изображения, учитывающий ссылки импортированных объявлений.
+     */
+    private final ImageReferenceEntityRepository imageReferenceEntityRepository;
+
+    /**
+     * Разборщик и валидатор потока импорта объявлений.
+     */
+    private final AdImportReader adImportReader;
+
+    /**
+     * Размер страницы объявлений по умолчанию.
+     */
+    @Value("${ads.page.default-size}")
+    private int defaultPageSize;
+
+    /**
+     * Максимально допустимый размер страницы объявлений.
+     */
+    @Value("${ads.page.max-size}")
+    private int maxPageSize;
+
+    /**
+     * Количество объявлений в одной транзакции и одном пакете JDBC при импорте.
+     */
+    @Value("${ads.import.batch-size}")
+    private int importBatchSize;
+
+    /**
+     * Максимальное количество ошибок импорта, возвращаемых в ответе.
+     */
+    @Value("${ads.import.max-errors}")
+    private int maxImportErrors;
+
+    /**
+     * Получает страницу объявлений, отобранных и отсортированных по фильтру (keyset-пагинация).
+     * Курсор имеет вид {@code pk} при сортировке по дате добавления и {@code price_pk} при сортировке по цене.
+     * Для списка без фильтров {@code count} равен общему количеству объявлений, для отфильтрованного
+     * списка подсчёт всех совпадений обошёлся бы дороже самой страницы, поэтому {@code count} равен размеру страницы.
      *
-     * @return DTO с данными объявлений
+     * @param filter условия отбора и порядок сортировки
+     * @param cursor курсор, полученный на предыдущей странице, или null для первой страницы
+     * @param limit  размер страницы или null для размера по умолчанию
+     * @return DTO с данными объявлений и курсором следующей страницы
+     * @throws InvalidCursorException если курсор или размер страницы некорректны
      */
     @Transactional(readOnly = true)
     @Override
-    public Ads getAllAds() {
-        List<Ad> results = adEntityRepository.findAll().stream().map(adEntityMapper::toDto).toList();
+    public Ads getAllAds(AdFilter filter, String cursor, Integer limit) {
+        boolean byPrice = filter.sort() == AdSort.PRICE_ASC || filter.sort() == AdSort.PRICE_DESC;
+        int pageSize = pageSize(limit);
+        Integer afterPrice = null;
+        Integer afterPk = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = cursor.split("_", 2);
+            try {
+                if (byPrice) {
+                    afterPrice = Integer.parseInt(parts[0]);
+                    afterPk = Integer.parseInt(parts[1]);
+                } else {
+                    afterPk = Integer.parseInt(cursor);
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new InvalidCursorException("Некорректный курсор: " + cursor);
+            }
+        }
+
+        List<AdSummary> page = adEntityRepository.findListingPage(filter, afterPrice, afterPk, Limit.of(pageSize + 1));
+        boolean hasNext = page.size() > pageSize;
+        List<Ad> results = page.stream().limit(pageSize).map(adEntityMapper::toDto).toList();
 
         Ads ads = new Ads();
         ads.setResults(results);
-        ads.setCount(results.size());
+        ads.setCount(filter.isRestricted() ? results.size() : (int) Math.min(adCountCache.get(), Integer.MAX_VALUE));
+        if (hasNext) {
+            Ad last = results.get(results.size() - 1);
+            ads.setNext(byPrice ? last.getPrice() + "_" + last.getPk() : String.valueOf(last.getPk()));
+        }
+        return ads;
+    }
+
+    /**
+     * Ищет объявления по тексту заголовка и описания (keyset-пагинация по релевантности и pk).
+     * Курсор имеет вид {@code rank_pk}. Общее количество найденных объявлений не подсчитывается,
+     * так как для этого пришлось бы прочитать все совпадения, поэтому {@code count} равен размеру страницы.
+     *
+     * @param query  поисковый запрос
+     * @param cursor курсор, полученный на предыдущей странице, или null для первой страницы
+     * @param limit  размер страницы или null для размера по умолчанию
+     * @return DTO с найденными объявлениями и курсором следующей страницы
+     * @throws InvalidCursorException если курсор или размер страницы некорректны
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public Ads searchAds(String query, String cursor, Integer limit) {
+        int pageSize = pageSize(limit);
+        float afterRank = Float.MAX_VALUE;
+        int afterPk = Integer.MAX_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = cursor.split("_", 2);
+            try {
+                afterRank = Float.parseFloat(parts[0]);
+                if (parts.length > 1) {
+                    afterPk = Integer.parseInt(parts[1]);
+                }
+            } catch (NumberFormatException e) {
+                throw new InvalidCursorException("Некорректный курсор: " + cursor);
+            }
+        }
+
+        List<AdSearchHit> page = adEntityRepository.search(query, afterRank, afterPk, Limit.of(pageSize + 1));
+        boolean hasNext = page.size() > pageSize;
+        List<AdSearchHit> hits = hasNext ? page.subList(0, pageSize) : page;
+
+        Ads ads = new Ads();
+        ads.setResults(hits.stream().map(adEntityMapper::toDto).toList());
+        ads.setCount(hits.size());
+        if (hasNext) {
+            AdSearchHit last = hits.get(hits.size() - 1);
+            ads.setNext(last.getRank() + "_" + last.getPk());
+        }
         return ads;
     }
 
+    /**
+     * Записывает все объявления в поток в формате NDJSON (по одному объявлению в строке).
+     * Объявления читаются через серверный курсор JDBC сразу в проекцию, минуя контекст персистентности,
+     * поэтому расход памяти не зависит от количества объявлений.
+     *
+     * @param outputStream поток, в который записываются объявления
+     * @throws IOException если произошла ошибка записи
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public void streamAllAds(OutputStream outputStream) throws IOException {
+        try (Stream<AdSummary> stream = adEntityRepository.streamAllSummaries()) {
+            Iterator<AdSummary> iterator = stream.iterator();
+            int written = 0;
+            while (iterator.hasNext()) {
+                outputStream.write(objectMapper.writeValueAsBytes(adEntityMapper.toDto(iterator.next())));
+                outputStream.write('\n');
+                if (++written % STREAM_FLUSH_INTERVAL == 0) {
+                    outputStream.flush();
+                }
+            }
+        }
+        outputStream.flush();
+    }
+
+    /**
+     * Выгружает объявления с идентификатором больше указанного в формате NDJSON.
+     * Строки читаются через серверный курсор PostgreSQL напрямую в JDBC, минуя контекст персистентности,
+     * и сразу записываются в поток, поэтому расход памяти не зависит от количества объявлений и комментариев.
+     *
+     * @param outputStream поток, в который записываются объявления
+     * @param afterPk      идентификатор последнего полученного объявления или 0 для выгрузки с начала
+     * @param withComments true если нужно выгрузить комментарии объявлений
+     * @param withAuthors  true если нужно выгрузить имена авторов
+     * @throws IOException если произошла ошибка записи
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public void exportAds(OutputStream outputStream, int afterPk, boolean withComments, boolean withAuthors) throws IOException {
+        AdExportWriter writer = new AdExportWriter(objectMapper.getFactory().createGenerator(outputStream), withComments, withAuthors);
+        try {
+            adEntityRepository.exportAfter(afterPk, withComments, withAuthors, writer);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.finish();
+    }
+
+    /**
+     * Импортирует объявления из потока в формате NDJSON или CSV.
+     * Строки разбирает и проверяет {@link AdImportReader}, проверенные объявления накапливаются до размера пакета
+     * и добавляются одним пакетом JDBC в отдельной транзакции, поэтому расход памяти не зависит от размера файла,
+     * а ошибка в одном пакете не отменяет уже добавленные.
+     *
+     * @param inputStream поток с объявлениями
+     * @param format      формат потока
+     * @return количество добавленных и отклонённых объявлений с описанием ошибок
+     * @throws IOException            если произошла ошибка чтения
+     * @throws InvalidImportException если в CSV нет строки заголовков или обязательного столбца
+     */
+    @Override
+    public AdImportResult importAds(InputStream inputStream, AdImportFormat format) throws IOException {
+        AdImportResult result = new AdImportResult();
+        Iterator<AdImportRow> rows = adImportReader.read(inputStream, format);
+
+        List<AdImportRow> batch = new ArrayList<>(importBatchSize);
+        try {
+            while (rows.hasNext()) {
+                AdImportRow row = rows.next();
+                if (!row.isValid()) {
+                    reject(result, row.lineNumber(), row.error());
+                    continue;
+                }
+                batch.add(row);
+                if (batch.size() == importBatchSize) {
+                    importBatch(batch, result);
+                    batch.clear();
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (!batch.isEmpty()) {
+            importBatch(batch, result);
+        }
+
+        if (result.getImported() > 0) {
+            adCountCache.invalidate();
+            // Вставка через JDBC минует Hibernate, поэтому закэшированные результаты запросов удаляются явно
+            entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getCache().evictQueryRegions();
+        }
+        return result;
+    }
+
     /**
      * Добавляет объявление. Доступно только аутентифицированным пользователям.
      *
@@ -74,37 +350,49 @@ public class AdEntityServiceImpl implements AdEntityService {
      * @param image          файл изображения
      * @param authentication объект аутентификации для получения логина пользователя
      * @return DTO с данными объявления
+     * @throws IOException                 если произошла ошибка при обработке изображения
      * @throws UserEntityNotFoundException если пользователь не найден
      */
-    @Transactional
     @Override
     public Ad addAd(CreateOrUpdateAd properties, MultipartFile image, Authentication authentication) throws IOException {
-        UserEntity userEntity = userEntityRepository.findByUsername(authentication.getName()).orElseThrow(() -> new UserEntityNotFoundException("Пользователь не найден"));
+        // Файл записывается до начала транзакции, чтобы не удерживать соединение с базой данных
+        try (StagedImage stagedImage = imageService.stageImage(image)) {
+            return transactionTemplate.execute(status -> {
+                UserEntity userEntity = userEntityRepository.getReferenceById(userSnapshotCache.get(authentication.getName()).id());
 
-        String imagePath = imageService.saveImage(image);
-        AdEntity adEntity = adEntityMapper.createAdEntity(properties, imagePath, userEntity);
-        AdEntity savedAdEntity = adEntityRepository.save(adEntity);
+                String imagePath = imageService.commitImage(stagedImage);
+                AdEntity adEntity = adEntityMapper.createAdEntity(properties, imagePath, userEntity);
+                AdEntity savedAdEntity = adEntityRepository.save(adEntity);
+                adCountCache.invalidate();
 
-        return adEntityMapper.toDto(savedAdEntity);
+                return adEntityMapper.toDto(savedAdEntity);
+            });
+        }
     }
 
     /**
      * Получает расширенную информацию объявления текущего аутентифицированного пользователя.
+     * Объявление загружается по графу с автором: при промахе кэша второго уровня автор читается тем же запросом,
+     * при попадании берётся из кэша внутри транзакции, поэтому маппер не обращается к ленивой связи вне сессии.
+     * Версия ответа составлена из версий объявления и автора, так как DTO содержит данные обоих.
      *
      * @param id уникальный идентификатор объявления
-     * @return DTO с расширенными данными объявления
+     * @return DTO с расширенными данными объявления и версией вида {@code версияОбъявления.версияАвтора}
      * @throws AdEntityNotFoundException если объявление не найдено
      */
     @Transactional(readOnly = true)
     @Override
-    public ExtendedAd getAds(int id, Authentication authentication) {
-        AdEntity adEntity = adEntityRepository.findById(id).orElseThrow(() -> new AdEntityNotFoundException("Объявление не найдено"));
+    public Versioned<ExtendedAd> getAds(int id, Authentication authentication) {
+        AdEntity adEntity = Optional.ofNullable(entityManager.find(AdEntity.class, id,
+                        Map.of(SpecHints.HINT_SPEC_FETCH_GRAPH, entityManager.getEntityGraph(AdEntity.WITH_AUTHOR))))
+                .orElseThrow(() -> new AdEntityNotFoundException("Объявление не найдено"));
 
-        return adEntityMapper.toExtendedAd(adEntity);
+        return new Versioned<>(adEntityMapper.toExtendedAd(adEntity), adEntity.getVersion() + "." + adEntity.getAuthor().getVersion());
     }
 
     /**
      * Удаляет объявление. Доступно только аутентифицированным пользователям.
+     * Комментарии удаляются одним запросом, поэтому количество запросов не зависит от их числа.
      *
      * @param id уникальный идентификатор объявления
      * @throws AdEntityNotFoundException если объявление не найдено
@@ -113,25 +401,35 @@ public class AdEntityServiceImpl implements AdEntityService {
     @Transactional
     @Override
     public void removeAd(int id) throws IOException {
-        AdEntity adEntity = adEntityRepository.findById(id).orElseThrow(() -> new AdEntityNotFoundException("Объявление не найдено"));
+        AdEntity adEntity = findAdEntity(id);
         String adEntityImage = adEntity.getImage();
 
+        commentEntityRepository.deleteAllByAdId(id);
         adEntityRepository.delete(adEntity);
+        adCountCache.invalidate();
         imageService.deleteImage(adEntityImage);
     }
 
     /**
      * Обновляет объявление. Доступно только аутентифицированным пользователям.
      *
-     * @param id       уникальный идентификатор объявления
-     * @param updateAd данные для редактирования (заголовок, описание и цена объявления)
+     * Версия объявления проверяется до изменения, а одновременное изменение после проверки отклоняется
+     * оптимистической блокировкой при записи.
+     *
+     * @param id               уникальный идентификатор объявления
+     * @param updateAd         данные для редактирования (заголовок, описание и цена объявления)
+     * @param expectedVersions версии объявления, при которых разрешено обновление, или null без проверки версии
      * @return DTO с данными объявления
-     * @throws AdEntityNotFoundException если комментарий не найден
+     * @throws AdEntityNotFoundException   если объявление не найдено
+     * @throws PreconditionFailedException если версия объявления не входит в ожидаемые
      */
     @Transactional
     @Override
-    public Ad updateAds(int id, CreateOrUpdateAd updateAd) {
-        AdEntity adEntity = adEntityRepository.findById(id).orElseThrow(() -> new AdEntityNotFoundException("Объявление не найдено"));
+    public Ad updateAds(int id, CreateOrUpdateAd updateAd, Set<Integer> expectedVersions) {
+        AdEntity adEntity = findAdEntity(id);
+        if (expectedVersions != null && !expectedVersions.contains(adEntity.getVersion())) {
+            throw new PreconditionFailedException("Объявление было изменено");
+        }
 
         adEntityMapper.updateAdEntity(updateAd, adEntity);
         adEntityRepository.save(adEntity);
@@ -149,8 +447,8 @@ public class AdEntityServiceImpl implements AdEntityService {
     @Transactional(readOnly = true)
     @Override
     public Ads getAdsMe(Authentication authentication) {
-        UserEntity userEntity = userEntityRepository.findByUsername(authentication.getName()).orElseThrow(() -> new UserEntityNotFoundException("Пользователь не найден"));
-        List<Ad> results = userEntity.getAdEntities().stream().map(adEntityMapper::toDto).toList();
+        int authorId = userSnapshotCache.get(authentication.getName()).id();
+        List<Ad> results = adEntityRepository.findSummariesByAuthorId(authorId).stream().map(adEntityMapper::toDto).toList();
 
         Ads ads = new Ads();
         ads.setResults(results);
@@ -164,25 +462,36 @@ public class AdEntityServiceImpl implements AdEntityService {
      * @param id             уникальный идентификатор объявления
      * @param image          файл изображения
      * @param authentication объект аутентификации для получения логина пользователя
-     * @return массив байт изображения
+     * @return путь к новому изображению
      * @throws AdEntityNotFoundException если объявление не найдено
+     * @throws IOException               если произошла ошибка при обработке изображения
      */
-    @Transactional
     @Override
-    public byte[] updateImage(int id, MultipartFile image, Authentication authentication) throws IOException {
-        AdEntity adEntity = adEntityRepository.findById(id).orElseThrow(() -> new AdEntityNotFoundException("Объявление не найдено"));
-        String oldAdEntityImage = adEntity.getImage();
+    public String updateImage(int id, MultipartFile image, Authentication authentication) throws IOException {
+        // Файл записывается до начала транзакции, чтобы не удерживать соединение с базой данных
+        try (StagedImage stagedImage = imageService.stageImage(image)) {
+            return transactionTemplate.execute(status -> {
+                AdEntity adEntity = findAdEntity(id);
+                String oldAdEntityImage = adEntity.getImage();
+                if (stagedImage.path().equals(oldAdEntityImage)) {
+                    // Изображение с тем же содержимым уже сохранено, ссылка на него не меняется
+                    return oldAdEntityImage;
+                }
 
-        String imagePath = imageService.saveImage(image);
-        adEntity.setImage(imagePath);
-        adEntityRepository.save(adEntity);
-        imageService.deleteImage(oldAdEntityImage);
+                String imagePath = imageService.commitImage(stagedImage);
+                adEntity.setImage(imagePath);
+                adEntityRepository.save(adEntity);
+                imageService.deleteImage(oldAdEntityImage);
 
-        return imageService.getImage(imagePath);
+                return imagePath;
+            });
+        }
     }
 
     /**
      * Проверяет принадлежность объявления к аутентифицированному пользователю.
+     * Проверка выполняется одним запросом с фильтром по логину автора, объявление не загружается:
+     * метод сервиса, следующий за проверкой, выполняется в своей транзакции и загружает его сам.
      *
      * @param username логин пользователя
      * @param id       уникальный идентификатор объявления
@@ -192,14 +501,104 @@ public class AdEntityServiceImpl implements AdEntityService {
     @Transactional(readOnly = true)
     @Override
     public boolean isOwner(String username, int id) {
-        Optional<AdEntity> byId = adEntityRepository.findById(id);
+        return adEntityRepository.existsByPkAndAuthor_Username(id, username) || !adEntityRepository.existsById(id);
+    }
+
+    /**
+     * Добавляет пакет объявлений в одной транзакции.
+     * Изображения блокируются в порядке путей, как при сохранении загруженного изображения, поэтому фоновое
+     * удаление не удалит файл, на который ссылается импортируемое объявление. Объявления с несуществующим
+     * автором или изображением отклоняются, для остальных увеличиваются счётчики ссылок на изображения.
+     * Счётчик изображения, загруженного до появления счётчиков, сначала создаётся по существующим ссылкам.
+     *
+     * @param batch  проверенные строки импорта
+     * @param result результат импорта, в который добавляются количества и ошибки
+     */
+    private void importBatch(List<AdImportRow> batch, AdImportResult result) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<Integer> authors = new HashSet<>(userEntityRepository.findExistingIds(
+                    batch.stream().map(row -> row.ad().getAuthor()).collect(Collectors.toSet())));
+            String[] paths = batch.stream().map(row -> row.ad().getImage()).collect(Collectors.toCollection(TreeSet::new))
+                    .toArray(String[]::new);
+            imageReferenceEntityRepository.lockAll(paths);
+            Map<String, Boolean> images = new HashMap<>();
+            for (String path : paths) {
+                images.put(path, imageExists(path));
+            }
+
+            List<ImportedAd> accepted = new ArrayList<>(batch.size());
+            for (AdImportRow row : batch) {
+                ImportedAd importedAd = row.ad();
+                if (!authors.contains(importedAd.getAuthor())) {
+                    reject(result, row.lineNumber(), "автор не найден");
+                } else if (!images.get(importedAd.getImage())) {
+                    reject(result, row.lineNumber(), "изображение не найдено");
+                } else {
+                    accepted.add(importedAd);
+                }
+            }
+
+            if (!accepted.isEmpty()) {
+                imageReferenceEntityRepository.seedAll(accepted.stream().map(ImportedAd::getImage).distinct().toArray(String[]::new));
+                imageReferenceEntityRepository.incrementAll(accepted.stream().map(ImportedAd::getImage).toArray(String[]::new));
+                adEntityRepository.insertAll(accepted);
+                result.setImported(result.getImported() + accepted.size());
+            }
+        });
+    }
+
+    /**
+     * Проверяет, сохранено ли изображение.
+     *
+     * @param path путь к изображению
+     * @return true если файл изображения существует
+     */
+    private boolean imageExists(String path) {
+        try {
+            return imageService.findImage(path).isPresent();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-        if (byId.isEmpty()) {
-            return true;
+    /**
+     * Учитывает отклонённую строку импорта. Описание ошибки сохраняется, пока их не больше {@link #maxImportErrors}.
+     *
+     * @param result     результат импорта
+     * @param lineNumber номер строки
+     * @param message    причина отклонения
+     */
+    private void reject(AdImportResult result, int lineNumber, String message) {
+        result.setRejected(result.getRejected() + 1);
+        if (result.getErrors().size() < maxImportErrors) {
+            result.getErrors().add("строка " + lineNumber + ": " + message);
         }
+    }
 
-        return byId
-                .map(ad -> ad.getAuthor().getUsername().equals(username))
-                .orElse(false);
+    /**
+     * Определяет размер страницы объявлений.
+     *
+     * @param limit запрошенный размер страницы или null для размера по умолчанию
+     * @return размер страницы
+     * @throws InvalidCursorException если размер страницы вне допустимого диапазона
+     */
+    private int pageSize(Integer limit) {
+        int pageSize = limit == null ? defaultPageSize : limit;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new InvalidCursorException("Размер страницы должен быть от 1 до " + maxPageSize);
+        }
+        return pageSize;
+    }
+
+    /**
+     * Находит объявление в текущей транзакции. Объявление обычно берётся из кэша второго уровня.
+     *
+     * @param id уникальный идентификатор объявления
+     * @return сущность объявления
+     * @throws AdEntityNotFoundException если объявление не найдено
+     */
+    private AdEntity findAdEntity(int id) {
+        return adEntityRepository.findById(id)
+                .orElseThrow(() -> new AdEntityNotFoundException("Объявление не найдено"));
     }
 }
@@ -0,0 +1,155 @@
+package ru.skypro.homework.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import ru.skypro.homework.repository.AdExportRow;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Записывает строки выгрузки объявлений в формате NDJSON.
+ * Строки одного объявления собираются в один объект JSON по мере поступления,
+ * поэтому в памяти не хранится ни объявление, ни список его комментариев.
+ */
+class AdExportWriter implements Consumer<AdExportRow> {
+
+    /**
+     * Количество объявлений, после записи которых данные сбрасываются в поток ответа.
+     */
+    private static final int FLUSH_INTERVAL = 500;
+
+    /**
+     * Генератор JSON, пишущий в поток ответа.
+     */
+    private final JsonGenerator generator;
+
+    /**
+     * Выгружаются ли комментарии объявлений.
+     */
+    private final boolean withComments;
+
+    /**
+     * Выгружаются ли имена авторов.
+     */
+    private final boolean withAuthors;
+
+    /**
+     * Идентификатор объявления, объект которого сейчас записывается, или null до первой строки.
+     */
+    private Integer currentPk;
+
+    /**
+     * Количество записанных объявлений.
+     */
+    private long written;
+
+    /**
+     * Создаёт объект записи выгрузки.
+     *
+     * @param generator    генератор JSON, пишущий в поток ответа
+     * @param withComments true если выгружаются комментарии объявлений
+     * @param withAuthors  true если выгружаются имена авторов
+     */
+    AdExportWriter(JsonGenerator generator, boolean withComments, boolean withAuthors) {
+        this.generator = generator;
+        this.withComments = withComments;
+        this.withAuthors = withAuthors;
+        generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+        generator.setRootValueSeparator(null);
+    }
+
+    /**
+     * Дописывает строку выгрузки: начинает объект нового объявления или добавляет комментарий к текущему.
+     *
+     * @param row строка выгрузки
+     * @throws UncheckedIOException если произошла ошибка записи
+     */
+    @Override
+    public void accept(AdExportRow row) {
+        try {
+            if (currentPk == null || currentPk != row.pk()) {
+                if (currentPk != null) {
+                    endAd();
+                }
+                startAd(row);
+            }
+            if (withComments && row.commentPk() != null) {
+                writeComment(row);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Завершает последнее объявление и сбрасывает данные в поток ответа.
+     *
+     * @throws IOException если произошла ошибка записи
+     */
+    void finish() throws IOException {
+        if (currentPk != null) {
+            endAd();
+        }
+        generator.flush();
+    }
+
+    /**
+     * Начинает объект объявления и записывает его поля.
+     *
+     * @param row первая строка объявления
+     * @throws IOException если произошла ошибка записи
+     */
+    private void startAd(AdExportRow row) throws IOException {
+        currentPk = row.pk();
+        generator.writeStartObject();
+        generator.writeNumberField("pk", row.pk());
+        generator.writeNumberField("author", row.author());
+        if (withAuthors) {
+            generator.writeStringField("authorFirstName", row.authorFirstName());
+            generator.writeStringField("authorLastName", row.authorLastName());
+        }
+        generator.writeStringField("title", row.title());
+        generator.writeStringField("description", row.description());
+        generator.writeNumberField("price", row.price());
+        generator.writeStringField("image", row.image());
+        if (withComments) {
+            generator.writeArrayFieldStart("comments");
+        }
+    }
+
+    /**
+     * Записывает комментарий текущего объявления.
+     *
+     * @param row строка с комментарием
+     * @throws IOException если произошла ошибка записи
+     */
+    private void writeComment(AdExportRow row) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("pk", row.commentPk());
+        generator.writeNumberField("author", row.commentAuthor());
+        if (withAuthors) {
+            generator.writeStringField("authorFirstName", row.commentAuthorFirstName());
+            generator.writeStringField("authorLastName", row.commentAuthorLastName());
+        }
+        generator.writeStringField("text", row.commentText());
+        generator.writeNumberField("createdAt", row.commentCreatedAt());
+        generator.writeEndObject();
+    }
+
+    /**
+     * Завершает объект текущего объявления строкой и периодически сбрасывает данные в поток ответа.
+     *
+     * @throws IOException если произошла ошибка записи
+     */
+    private void endAd() throws IOException {
+        if (withComments) {
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        if (++written % FLUSH_INTERVAL == 0) {
+            generator.flush();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package ru.skypro.homework.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.skypro.homework.dto.AdImportFormat;
+import ru.skypro.homework.dto.AdImportRow;
+import ru.skypro.homework.dto.ImportedAd;
+import ru.skypro.homework.exception.InvalidImportException;
+import ru.skypro.homework.service.AdImportReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Реализация разбора потока импорта объявлений в формате NDJSON или CSV.
+ * Первая запись CSV содержит названия столбцов {@code title, description, price, image, author},
+ * значения в кавычках могут содержать запятые и переводы строк. Метка порядка байтов в начале потока пропускается.
+ */
+@Service
+@RequiredArgsConstructor
+public class AdImportReaderImpl implements AdImportReader {
+
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    private static final List<String> CSV_COLUMNS = List.of("title", "description", "price", "image", "author");
+
+    /**
+     * Десериализатор строк NDJSON.
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Валидатор импортируемых объявлений.
+     */
+    private final Validator validator;
+
+    /**
+     * Открывает поток импорта. Строки читаются и проверяются при обходе результата,
+     * ошибка чтения при обходе выбрасывается как {@link UncheckedIOException}.
+     * Пустые строки пропускаются.
+     *
+     * @param inputStream поток с объявлениями в UTF-8
+     * @param format      формат потока
+     * @return строки импорта в порядке следования в потоке
+     * @throws IOException            если произошла ошибка чтения строки заголовков CSV
+     * @throws InvalidImportException если в CSV нет строки заголовков или обязательного столбца
+     */
+    @Override
+    public Iterator<AdImportRow> read(InputStream inputStream, AdImportFormat format) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        RowSource source = format == AdImportFormat.CSV ? csvSource(new CsvRecordReader(reader)) : ndjsonSource(reader);
+        return new RowIterator(source);
+    }
+
+    /**
+     * Создает источник строк CSV, предварительно прочитав строку заголовков.
+     *
+     * @param csv читатель записей CSV
+     * @return источник строк
+     * @throws IOException            если произошла ошибка чтения
+     * @throws InvalidImportException если строки заголовков нет или в ней нет обязательного столбца
+     */
+    private RowSource csvSource(CsvRecordReader csv) throws IOException {
+        List<String> header = csv.next();
+        if (header == null) {
+            throw new InvalidImportException("Нет строки заголовков CSV");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(), i);
+        }
+        for (String required : CSV_COLUMNS) {
+            if (!columns.containsKey(required)) {
+                throw new InvalidImportException("В CSV нет столбца " + required);
+            }
+        }
+
+        return () -> {
+            while (true) {
+                List<String> values;
+                try {
+                    values = csv.next();
+                } catch (IllegalArgumentException e) {
+                    return AdImportRow.rejected(csv.recordLine(), "незакрытая кавычка");
+                }
+                if (values == null) {
+                    return null;
+                }
+                if (values.size() == 1 && values.get(0).isBlank()) {
+                    continue;
+                }
+                if (values.size() != header.size()) {
+                    return AdImportRow.rejected(csv.recordLine(),
+                            "неверное количество столбцов: " + values.size() + " вместо " + header.size());
+                }
+                ImportedAd importedAd;
+                try {
+                    importedAd = fromCsv(columns, values);
+                } catch (NumberFormatException e) {
+                    return AdImportRow.rejected(csv.recordLine(), "некорректная строка");
+                }
+                return validate(csv.recordLine(), importedAd);
+            }
+        };
+    }
+
+    /**
+     * Создает источник строк NDJSON, в котором каждое объявление записано в отдельной строке.
+     *
+     * @param reader поток символов
+     * @return источник строк
+     */
+    private RowSource ndjsonSource(BufferedReader reader) {
+        int[] lineNumber = {0};
+        return () -> {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber[0]++;
+                if (lineNumber[0] == 1 && !line.isEmpty() && line.charAt(0) == BYTE_ORDER_MARK) {
+                    line = line.substring(1);
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                ImportedAd importedAd;
+                try {
+                    importedAd = objectMapper.readValue(line, ImportedAd.class);
+                } catch (JsonProcessingException e) {
+                    importedAd = null;
+                }
+                if (importedAd == null) {
+                    return AdImportRow.rejected(lineNumber[0], "некорректная строка");
+                }
+                return validate(lineNumber[0], importedAd);
+            }
+            return null;
+        };
+    }
+
+    /**
+     * Проверяет объявление по ограничениям DTO.
+     *
+     * @param lineNumber номер строки
+     * @param importedAd объявление
+     * @return проверенная строка или строка с первым нарушенным ограничением
+     */
+    private AdImportRow validate(int lineNumber, ImportedAd importedAd) {
+        Set<ConstraintViolation<ImportedAd>> violations = validator.validate(importedAd);
+        if (!violations.isEmpty()) {
+            return AdImportRow.rejected(lineNumber, violations.iterator().next().getMessage());
+        }
+        return AdImportRow.valid(lineNumber, importedAd);
+    }
+
+    /**
+     * Создает импортируемое объявление из записи CSV.
+     *
+     * @param columns номера столбцов по их названиям
+     * @param values  значения записи
+     * @return импортируемое объявление
+     * @throws NumberFormatException если число записано неверно
+     */
+    private static ImportedAd fromCsv(Map<String, Integer> columns, List<String> values) {
+        ImportedAd importedAd = new ImportedAd();
+        importedAd.setTitle(values.get(columns.get("title")));
+        importedAd.setDescription(values.get(columns.get("description")));
+        importedAd.setPrice(Integer.valueOf(values.get(columns.get("price")).trim()));
+        importedAd.setImage(values.get(columns.get("image")));
+        importedAd.setAuthor(Integer.valueOf(values.get(columns.get("author")).trim()));
+        return importedAd;
+    }
+
+    /**
+     * Источник строк импорта.
+     */
+    @FunctionalInterface
+    private interface RowSource {
+
+        /**
+         * Читает следующую строку.
+         *
+         * @return строка импорта или null, если поток закончился
+         * @throws IOException если произошла ошибка чтения
+         */
+        AdImportRow next() throws IOException;
+    }
+
+    /**
+     * Итератор, читающий строки из источника по одной с опережением на одну строку.
+     */
+    private static final class RowIterator implements Iterator<AdImportRow> {
+
+        private final RowSource source;
+
+        private AdImportRow next;
+
+        private boolean finished;
+
+        private RowIterator(RowSource source) {
+            this.source = source;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !finished) {
+                try {
+                    next = source.next();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                finished = next == null;
+            }
+            return next != null;
+        }
+
+        @Override
+        public AdImportRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            AdImportRow row = next;
+            next = null;
+            return row;
+        }
+    }
+}
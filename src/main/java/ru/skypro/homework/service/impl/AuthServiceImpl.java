@@ -1,19 +1,28 @@
 package ru.skypro.homework.service.impl;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.skypro.homework.cache.UserSnapshotCache;
 import ru.skypro.homework.dto.Register;
+import ru.skypro.homework.dto.Token;
 import ru.skypro.homework.entity.UserEntity;
 import ru.skypro.homework.mapper.UserEntityMapper;
 import ru.skypro.homework.repository.UserEntityRepository;
+import ru.skypro.homework.security.TokenClaims;
+import ru.skypro.homework.security.TokenService;
 import ru.skypro.homework.service.AuthService;
 
+import java.util.Optional;
+
 /**
  * Сервис для управления аутентификации пользователей.
  * Предоставляет методы для регистрации и авторизации.
  */
+@Timed("service.method")
 @Service
 @RequiredArgsConstructor
 public class AuthServiceImpl implements AuthService {
@@ -34,18 +43,70 @@ public class AuthServiceImpl implements AuthService {
     private final UserEntityMapper userEntityMapper;
 
     /**
-     * Проверяет авторизацию пользователя.
+     * Сервис выдачи и проверки токенов.
+     */
+    private final TokenService tokenService;
+
+    /**
+     * Кэш снимков пользователей по логину.
+     */
+    private final UserSnapshotCache userSnapshotCache;
+
+    /**
+     * Проверяет авторизацию пользователя и выдаёт пару токенов.
      *
      * @param userName логин пользователя
      * @param password пароль пользователя
-     * @return true если логин и пароль корректны, иначе false
+     * @return токены, если логин и пароль корректны, иначе пустой Optional
      */
     @Transactional(readOnly = true)
     @Override
-    public boolean login(String userName, String password) {
+    public Optional<Token> login(String userName, String password) {
         return userEntityRepository.findByUsername(userName)
-                .map(user -> passwordEncoder.matches(password, user.getPassword()))
-                .orElse(false);
+                .filter(user -> passwordEncoder.matches(password, user.getPassword()))
+                .map(user -> tokenService.issue(user.getUsername(), user.getAuthority(), user.getTokenGeneration()));
+    }
+
+    /**
+     * Выдаёт новую пару токенов по токену обновления. Использованный токен обновления отзывается,
+     * а роль пользователя перечитывается из базы данных. Если тот же токен одновременно предъявлен
+     * несколько раз, токены выдаются только запросу, чей отзыв добавил запись в базу данных.
+     *
+     * @param refreshToken токен обновления
+     * @return новые токены, если токен обновления действителен и ещё не использован, иначе пустой Optional
+     */
+    @Transactional
+    @Override
+    public Optional<Token> refresh(String refreshToken) {
+        Optional<TokenClaims> claims = tokenService.verify(refreshToken, TokenClaims.Type.REFRESH);
+        if (claims.isEmpty()) {
+            return Optional.empty();
+        }
+
+        if (!tokenService.revoke(claims.get())) {
+            return Optional.empty();
+        }
+        return userEntityRepository.findByUsername(claims.get().username())
+                .map(user -> tokenService.issue(user.getUsername(), user.getAuthority(), user.getTokenGeneration()));
+    }
+
+    /**
+     * Отзывает токен доступа текущего запроса и, если передан, токен обновления того же пользователя.
+     *
+     * @param authentication данные аутентификации
+     * @param refreshToken   токен обновления или null
+     */
+    @Transactional
+    @Override
+    public void logout(Authentication authentication, String refreshToken) {
+        if (authentication.getCredentials() instanceof TokenClaims accessClaims) {
+            tokenService.revoke(accessClaims);
+        }
+        if (refreshToken != null) {
+            tokenService.verify(refreshToken, TokenClaims.Type.REFRESH)
+                    .filter(refreshClaims -> refreshClaims.username().equals(authentication.getName()))
+                    .ifPresent(tokenService::revoke);
+        }
     }
 
     /**
@@ -64,6 +125,8 @@ public class AuthServiceImpl implements AuthService {
         UserEntity userEntity = userEntityMapper.registerUser(register);
         userEntity.setPassword(passwordEncoder.encode(register.getPassword()));
         userEntityRepository.save(userEntity);
+        // Снимок, оставшийся от удалённого в обход приложения пользователя с тем же логином, не должен использоваться
+        userSnapshotCache.invalidate(userEntity.getUsername());
 
         return true;
     }
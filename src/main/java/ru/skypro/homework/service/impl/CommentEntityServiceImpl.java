@@ -1,17 +1,25 @@
 package ru.skypro.homework.service.impl;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.skypro.homework.cache.UserSnapshot;
+import ru.skypro.homework.cache.UserSnapshotCache;
 import ru.skypro.homework.dto.Comment;
 import ru.skypro.homework.dto.Comments;
 import ru.skypro.homework.dto.CreateOrUpdateComment;
+import ru.skypro.homework.dto.Versioned;
 import ru.skypro.homework.entity.AdEntity;
 import ru.skypro.homework.entity.CommentEntity;
 import ru.skypro.homework.entity.UserEntity;
 import ru.skypro.homework.exception.AdEntityNotFoundException;
 import ru.skypro.homework.exception.CommentEntityNotFoundException;
+import ru.skypro.homework.exception.InvalidCursorException;
+import ru.skypro.homework.exception.PreconditionFailedException;
 import ru.skypro.homework.exception.UserEntityNotFoundException;
 import ru.skypro.homework.mapper.CommentEntityMapper;
 import ru.skypro.homework.repository.AdEntityRepository;
@@ -20,13 +28,14 @@ import ru.skypro.homework.repository.UserEntityRepository;
 import ru.skypro.homework.service.CommentEntityService;
 
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
 
 /**
  * Сервис для управления сущностями комментариев.
  * Предоставляет методы для обновления, получения, добавления и удаления комментариев.
  */
 @RequiredArgsConstructor
+@Timed("service.method")
 @Service
 public class CommentEntityServiceImpl implements CommentEntityService {
 
@@ -50,52 +59,108 @@ public class CommentEntityServiceImpl implements CommentEntityService {
      */
     private final UserEntityRepository userEntityRepository;
 
+    /**
+     * Кэш снимков пользователей по логину.
+     */
+    private final UserSnapshotCache userSnapshotCache;
+
+    /**
+     * Размер страницы комментариев по умолчанию.
+     */
+    @Value("${comments.page.default-size}")
+    private int defaultPageSize;
+
+    /**
+     * Максимально допустимый размер страницы комментариев.
+     */
+    @Value("${comments.page.max-size}")
+    private int maxPageSize;
 
     /**
-     * Получает комментарии объявления. Доступно только аутентифицированным пользователям.
+     * Получает страницу комментариев объявления от новых к старым. Доступно только аутентифицированным пользователям.
+     * Страница читается одним запросом; наличие объявления проверяется дополнительно только при пустой странице.
      *
-     * @param id уникальный идентификатор объявления
-     * @return DTO с данными комментариев
+     * @param id     уникальный идентификатор объявления
+     * @param before курсор, полученный на предыдущей странице, время создания комментария
+     *               или null для первой страницы
+     * @param limit  размер страницы или null для размера по умолчанию
+     * @return DTO с данными комментариев и курсором следующей страницы
      * @throws AdEntityNotFoundException если объявление не найдено
+     * @throws InvalidCursorException    если курсор или размер страницы некорректны
      */
     @Transactional(readOnly = true)
     @Override
-    public Comments getComments(int id) {
-        AdEntity adEntity = adEntityRepository.findById(id).orElseThrow(() -> new AdEntityNotFoundException("Объявление не найдено"));
-        List<Comment> results = adEntity.getCommentEntities().stream().map(commentEntityMapper::toDto).toList();
+    public Comments getComments(int id, String before, Integer limit) {
+        int pageSize = limit == null ? defaultPageSize : limit;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new InvalidCursorException("Размер страницы должен быть от 1 до " + maxPageSize);
+        }
+        long beforeCreatedAt = Long.MAX_VALUE;
+        int beforePk = Integer.MAX_VALUE;
+        if (before != null && !before.isBlank()) {
+            String[] parts = before.split("_", 2);
+            try {
+                beforeCreatedAt = Long.parseLong(parts[0]);
+                if (parts.length > 1) {
+                    beforePk = Integer.parseInt(parts[1]);
+                }
+            } catch (NumberFormatException e) {
+                throw new InvalidCursorException("Некорректный курсор: " + before);
+            }
+        }
+
+        List<Comment> page = commentEntityRepository.findPageByAdId(id, beforeCreatedAt, beforePk, Limit.of(pageSize + 1));
+        if (page.isEmpty() && !adEntityRepository.existsById(id)) {
+            throw new AdEntityNotFoundException("Объявление не найдено");
+        }
+        boolean hasNext = page.size() > pageSize;
+        List<Comment> results = hasNext ? page.subList(0, pageSize) : page;
 
         Comments comments = new Comments();
         comments.setResults(results);
         comments.setCount(results.size());
+        if (hasNext) {
+            Comment last = results.get(results.size() - 1);
+            comments.setNext(last.getCreatedAt() + "_" + last.getPk());
+        }
         return comments;
     }
 
     /**
      * Добавляет комментарий к объявлению. Доступно только аутентифицированным пользователям.
+     * Объявление не загружается: проверяется только его существование, а комментарий ссылается
+     * на прокси объявления, поэтому коллекция комментариев объявления не инициализируется
+     * и стоимость вставки не зависит от количества уже оставленных комментариев.
+     * Автор также не загружается: данные для ответа берутся из снимка пользователя.
      *
      * @param id             уникальный идентификатор объявления
      * @param createComment  данные для создания (текст комментария)
      * @param authentication объект аутентификации для получения логина пользователя
-     * @return DTO с данными комментария
+     * @return DTO с данными комментария и его начальной версией
      * @throws UserEntityNotFoundException если пользователь не найден
      * @throws AdEntityNotFoundException   если объявление не найдено
      */
     @Transactional
     @Override
-    public Comment addComment(int id, CreateOrUpdateComment createComment, Authentication authentication) {
-        UserEntity userEntity = userEntityRepository.findByUsername(authentication.getName()).orElseThrow(() -> new UserEntityNotFoundException("Пользователь не найден"));
-        AdEntity adEntity = adEntityRepository.findById(id).orElseThrow(() -> new AdEntityNotFoundException("Объявление не найдено"));
-        List<CommentEntity> commentEntities = adEntity.getCommentEntities();
+    public Versioned<Comment> addComment(int id, CreateOrUpdateComment createComment, Authentication authentication) {
+        UserSnapshot author = userSnapshotCache.get(authentication.getName());
+        UserEntity userEntity = userEntityRepository.getReferenceById(author.id());
+        if (!adEntityRepository.existsById(id)) {
+            throw new AdEntityNotFoundException("Объявление не найдено");
+        }
+        AdEntity adEntity = adEntityRepository.getReferenceById(id);
 
         CommentEntity commentEntity = commentEntityMapper.createCommentEntity(userEntity, adEntity, createComment);
-        commentEntities.add(commentEntity);
         CommentEntity savedCommentEntity = commentEntityRepository.save(commentEntity);
 
-        return commentEntityMapper.toDto(savedCommentEntity);
+        return new Versioned<>(new Comment(author.id(), author.firstName(), author.image(),
+                savedCommentEntity.getCreatedAt(), savedCommentEntity.getPk(), savedCommentEntity.getText()),
+                String.valueOf(savedCommentEntity.getVersion()));
     }
 
     /**
      * Удаляет комментарий в объявлении. Доступно только аутентифицированным пользователям.
+     * Комментарий удаляется одним запросом без предварительной загрузки.
      *
      * @param adId      уникальный идентификатор объявления
      * @param commentId уникальный идентификатор комментария
@@ -104,33 +169,43 @@ public class CommentEntityServiceImpl implements CommentEntityService {
     @Transactional
     @Override
     public void deleteComment(int adId, int commentId) {
-        CommentEntity commentEntity = commentEntityRepository.findByAdEntity_PkAndPk(adId, commentId).orElseThrow(() -> new CommentEntityNotFoundException("Комментарий не найден"));
-
-        commentEntityRepository.delete(commentEntity);
+        if (commentEntityRepository.deleteByAdIdAndPk(adId, commentId) == 0) {
+            throw new CommentEntityNotFoundException("Комментарий не найден");
+        }
     }
 
     /**
      * Обновляет комментарий в объявлении. Доступно только аутентифицированным пользователям.
      *
-     * @param adId          уникальный идентификатор объявления
-     * @param commentId     уникальный идентификатор комментария
-     * @param updateComment данные для редактирования (текст комментария)
-     * @return DTO с данными комментария
+     * Изменения записываются сразу, чтобы вернуть новую версию комментария, а одновременное изменение
+     * после проверки версии отклоняется оптимистической блокировкой.
+     *
+     * @param adId             уникальный идентификатор объявления
+     * @param commentId        уникальный идентификатор комментария
+     * @param updateComment    данные для редактирования (текст комментария)
+     * @param expectedVersions версии комментария, при которых разрешено обновление, или null без проверки версии
+     * @return DTO с данными комментария и его новой версией
      * @throws CommentEntityNotFoundException если комментарий не найден
+     * @throws PreconditionFailedException    если версия комментария не входит в ожидаемые
      */
     @Transactional
     @Override
-    public Comment updateComment(int adId, int commentId, CreateOrUpdateComment updateComment) {
-        CommentEntity commentEntity = commentEntityRepository.findByAdEntity_PkAndPk(adId, commentId).orElseThrow(() -> new CommentEntityNotFoundException("Комментарий не найден"));
+    public Versioned<Comment> updateComment(int adId, int commentId, CreateOrUpdateComment updateComment, Set<Integer> expectedVersions) {
+        CommentEntity commentEntity = findCommentEntity(adId, commentId);
+        if (expectedVersions != null && !expectedVersions.contains(commentEntity.getVersion())) {
+            throw new PreconditionFailedException("Комментарий был изменён");
+        }
 
         commentEntity.setText(updateComment.getText());
-        commentEntityRepository.save(commentEntity);
+        CommentEntity savedCommentEntity = commentEntityRepository.saveAndFlush(commentEntity);
 
-        return commentEntityMapper.toDto(commentEntity);
+        return new Versioned<>(commentEntityMapper.toDto(commentEntity), String.valueOf(savedCommentEntity.getVersion()));
     }
 
     /**
      * Проверяет принадлежность комментария к аутентифицированному пользователю.
+     * Проверка выполняется одним запросом с фильтром по логину автора, комментарий не загружается:
+     * метод сервиса, следующий за проверкой, выполняется в своей транзакции и загружает его сам.
      *
      * @param username  логин пользователя
      * @param adId      уникальный идентификатор объявления
@@ -141,14 +216,20 @@ public class CommentEntityServiceImpl implements CommentEntityService {
     @Transactional(readOnly = true)
     @Override
     public boolean isOwner(String username, int adId, int commentId) {
-        Optional<CommentEntity> byAdEntityPkAndPk = commentEntityRepository.findByAdEntity_PkAndPk(adId, commentId);
-
-        if (byAdEntityPkAndPk.isEmpty()) {
-            return true;
-        }
+        return commentEntityRepository.existsByAdEntity_PkAndPkAndAuthor_Username(adId, commentId, username)
+                || !commentEntityRepository.existsByAdEntity_PkAndPk(adId, commentId);
+    }
 
-        return byAdEntityPkAndPk
-                .map(comm -> comm.getAuthor().getUsername().equals(username))
-                .orElse(false);
+    /**
+     * Находит комментарий в объявлении вместе с автором в текущей транзакции.
+     *
+     * @param adId      уникальный идентификатор объявления
+     * @param commentId уникальный идентификатор комментария
+     * @return сущность комментария
+     * @throws CommentEntityNotFoundException если комментарий не найден
+     */
+    private CommentEntity findCommentEntity(int adId, int commentId) {
+        return commentEntityRepository.findByAdEntity_PkAndPk(adId, commentId)
+                .orElseThrow(() -> new CommentEntityNotFoundException("Комментарий не найден"));
     }
 }
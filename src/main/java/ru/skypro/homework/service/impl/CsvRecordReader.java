@@ -0,0 +1,141 @@
+package ru.skypro.homework.service.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Читает записи CSV из потока символов. Значения разделяются запятыми, значение в двойных кавычках
+ * может содержать запятые и переводы строк, кавычка внутри него удваивается. Метка порядка байтов
+ * в начале потока пропускается, строки могут заканчиваться на {@code \n}, {@code \r\n} или {@code \r}.
+ */
+final class CsvRecordReader {
+
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    private static final int END = -1;
+
+    private static final int NONE = -2;
+
+    /**
+     * Поток символов, ожидается буферизованный.
+     */
+    private final Reader reader;
+
+    /**
+     * Символ, прочитанный заранее при проверке конца строки или удвоенной кавычки.
+     */
+    private int lookahead = NONE;
+
+    /**
+     * Номер текущей строки потока, начиная с 1.
+     */
+    private int line = 1;
+
+    /**
+     * Номер строки, с которой началась последняя прочитанная запись.
+     */
+    private int recordLine;
+
+    /**
+     * true в начале потока, пока не проверена метка порядка байтов.
+     */
+    private boolean start = true;
+
+    CsvRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Читает следующую запись.
+     *
+     * @return значения записи или null, если поток закончился
+     * @throws IOException              если произошла ошибка чтения
+     * @throws IllegalArgumentException если поток закончился внутри значения в кавычках
+     */
+    List<String> next() throws IOException {
+        int c = read();
+        if (c == END) {
+            return null;
+        }
+
+        recordLine = line;
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == END) {
+                    throw new IllegalArgumentException("Незакрытая кавычка в записи со строки " + recordLine);
+                } else if (c == '"') {
+                    int following = read();
+                    if (following == '"') {
+                        value.append('"');
+                    } else {
+                        quoted = false;
+                        unread(following);
+                    }
+                } else {
+                    if (c == '\n' || c == '\r' && peek() != '\n') {
+                        line++;
+                    }
+                    value.append((char) c);
+                }
+            } else if (c == END || c == '\n' || c == '\r') {
+                if (c == '\r' && peek() == '\n') {
+                    read();
+                }
+                if (c != END) {
+                    line++;
+                }
+                values.add(value.toString());
+                return values;
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * Возвращает номер строки, с которой началась последняя прочитанная запись.
+     *
+     * @return номер строки, начиная с 1
+     */
+    int recordLine() {
+        return recordLine;
+    }
+
+    private int read() throws IOException {
+        int c;
+        if (lookahead != NONE) {
+            c = lookahead;
+            lookahead = NONE;
+        } else {
+            c = reader.read();
+        }
+        if (start) {
+            start = false;
+            if (c == BYTE_ORDER_MARK) {
+                c = reader.read();
+            }
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        int c = read();
+        unread(c);
+        return c;
+    }
+
+    private void unread(int c) {
+        lookahead = c;
+    }
+}
@@ -1,23 +1,69 @@
 package ru.skypro.homework.service.impl;
 
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
+import ru.skypro.homework.entity.ImageDeletionEntity;
+import ru.skypro.homework.exception.ImageNotFoundException;
+import ru.skypro.homework.image.ImageVariant;
+import ru.skypro.homework.image.ImageVariantGenerator;
+import ru.skypro.homework.image.StagedImage;
+import ru.skypro.homework.image.StoredImage;
+import ru.skypro.homework.metrics.ImageMetrics;
+import ru.skypro.homework.repository.ImageDeletionEntityRepository;
+import ru.skypro.homework.repository.ImageReferenceEntityRepository;
 import ru.skypro.homework.service.ImageService;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.util.UUID;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Сервис для управления изображениями.
  * Предоставляет методы для сохранения, получения и удаления изображений.
+ * Изображения хранятся по хешу содержимого: одинаковые файлы сохраняются один раз,
+ * а количество ссылок на каждый файл учитывается в базе данных.
  */
+@Timed("service.method")
 @Service
 @Slf4j
+@RequiredArgsConstructor
 public class ImageServiceImpl implements ImageService {
 
     /**
@@ -31,10 +77,56 @@ public class ImageServiceImpl implements ImageService {
      * <p>
      * Здесь настраивается конфигурация этого пути.
      *
-     * @see ru.skypro.homework.config.WebConfig
+     * @see ru.skypro.homework.controller.ImageController
      */
     private static final String IMAGES = "/images/";
 
+    /**
+     * Алгоритм хеширования, по которому именуются файлы изображений.
+     */
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    /**
+     * Имя файла, сохранённого по хешу содержимого, или его уменьшенной версии.
+     */
+    private static final Pattern CONTENT_ADDRESSED_NAME = Pattern.compile("[0-9a-f]{64}[.a-z0-9]*");
+
+    /**
+     * Расширение временных файлов загрузки и создания уменьшенных версий.
+     */
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+
+    /**
+     * Папка внутри папки изображений для файлов, загрузка которых ещё не зафиксирована.
+     */
+    private static final String STAGING = "staging";
+
+    /**
+     * Количество файлов, проверяемых одним запросом при поиске потерянных изображений.
+     */
+    private static final int SWEEP_BATCH_SIZE = 500;
+
+    /**
+     * Количество байтов в начале файла, по которым определяется тип изображения.
+     */
+    private static final int SIGNATURE_LENGTH = 12;
+
+    /**
+     * Тип содержимого WebP, которого нет среди констант {@link MediaType}.
+     */
+    private static final MediaType WEBP = MediaType.parseMediaType("image/webp");
+
+    /**
+     * Сигнатуры форматов изображений по типу содержимого. WebP проверяется отдельно,
+     * так как его сигнатура содержит размер файла между частями.
+     */
+    private static final Map<String, MediaType> SIGNATURES = Map.of(
+            "\u00FF\u00D8\u00FF", MediaType.IMAGE_JPEG,
+            "\u0089PNG\r\n\u001A\n", MediaType.IMAGE_PNG,
+            "GIF87a", MediaType.IMAGE_GIF,
+            "GIF89a", MediaType.IMAGE_GIF,
+            "BM", MediaType.parseMediaType("image/bmp"));
+
     /**
      * Путь до корневой папки изображений в проекте.
      */
@@ -42,27 +134,94 @@ public class ImageServiceImpl implements ImageService {
     private String imagePath;
 
     /**
-     * Сохраняет загруженное изображение и возвращает путь к нему.
+     * Генератор уменьшенных версий изображений.
+     */
+    private final ImageVariantGenerator imageVariantGenerator;
+
+    /**
+     * Репозиторий счётчиков ссылок на изображения.
+     */
+    private final ImageReferenceEntityRepository imageReferenceEntityRepository;
+
+    /**
+     * Репозиторий запланированных удалений файлов изображений.
+     */
+    private final ImageDeletionEntityRepository imageDeletionEntityRepository;
+
+    /**
+     * Счётчики объёма файлов изображений.
+     */
+    private final ImageMetrics imageMetrics;
+
+    /**
+     * Менеджер транзакций для записи, выполняемой после отката транзакции загрузки.
+     */
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Записывает загруженное изображение во временный файл в папке {@value #STAGING} и вычисляет путь к нему.
+     * Имя файла — SHA-256 его содержимого без расширения, поэтому одинаковые байты, загруженные под разными
+     * именами, хранятся одним файлом с одним счётчиком ссылок. Тип содержимого определяется по сигнатуре файла
+     * при отдаче. Файлы раскладываются по подкаталогам из первых символов хеша.
+     * Метод не обращается к базе данных, поэтому медленная запись файла не удерживает соединение из пула.
      *
      * @param multipartFile файл изображения
-     * @return путь до сохранённого приложения
+     * @return временный файл изображения
      * @throws IOException если произошла ошибка при обработке изображения
      */
     @Override
-    public String saveImage(MultipartFile multipartFile) throws IOException {
-        File directory = new File(IMAGE_DIRECTORY + imagePath);
-        log.info("Папка с изображениями находится по пути: {}", directory);
-        if (!directory.exists()) {
-            directory.mkdirs();
-        }
+    public StagedImage stageImage(MultipartFile multipartFile) throws IOException {
+        Path staging = Path.of(IMAGE_DIRECTORY + imagePath).resolve(STAGING);
+        Files.createDirectories(staging);
 
-        String fileName = UUID.randomUUID() + "_" + multipartFile.getOriginalFilename();
-        File dest = new File(directory, fileName);
-        log.info("Файл будет создан по этому пути: {}", dest);
+        Path temporary = Files.createTempFile(staging, "upload-", TEMPORARY_EXTENSION);
+        try {
+            MessageDigest digest = createDigest();
+            try (InputStream input = new DigestInputStream(multipartFile.getInputStream(), digest)) {
+                imageMetrics.written(Files.copy(input, temporary, StandardCopyOption.REPLACE_EXISTING));
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String fileName = hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash;
+            return new StagedImage(temporary, IMAGES + fileName);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+    }
 
-        multipartFile.transferTo(dest);
+    /**
+     * Учитывает ссылку на изображение и переносит файл на место в текущей транзакции, до её фиксации.
+     * Ошибка переноса откатывает транзакцию, поэтому зафиксированная ссылка всегда указывает на существующий файл.
+     * Если транзакция откатится после переноса, удаление файла планируется в отдельной транзакции, а при сбое
+     * приложения файл без ссылок найдёт поиск потерянных изображений.
+     * Уменьшенные версии изображения создаются асинхронно после фиксации.
+     *
+     * @param stagedImage временный файл изображения
+     * @return путь к сохранённому изображению
+     * @throws UncheckedIOException если не удалось перенести файл
+     */
+    @Transactional
+    @Override
+    public String commitImage(StagedImage stagedImage) {
+        // Счётчик увеличивается и файл переносится под блокировкой изображения: фоновое удаление файла
+        // либо завершится до увеличения, и файл будет перенесён заново, либо после фиксации увидит новую ссылку
+        imageReferenceEntityRepository.lock(stagedImage.path());
+        imageReferenceEntityRepository.increment(stagedImage.path());
 
-        return IMAGES + fileName;
+        Path dest = promote(stagedImage);
+        if (dest != null) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        imageVariantGenerator.generate(dest);
+                    } else {
+                        scheduleDeletion(stagedImage.path());
+                    }
+                }
+            });
+        }
+        return stagedImage.path();
     }
 
     /**
@@ -70,25 +229,339 @@ public class ImageServiceImpl implements ImageService {
      *
      * @param filePath путь к файлу изображения
      * @return массив байт найденного изображения
-     * @throws IOException если произошла ошибка при обработке изображения
+     * @throws IOException             если произошла ошибка при обработке изображения
+     * @throws ImageNotFoundException если путь указывает за пределы папки изображений
      */
     @Override
     public byte[] getImage(String filePath) throws IOException {
-        File file = new File(IMAGE_DIRECTORY + imagePath + filePath.replace(IMAGES, ""));
+        Path file = resolve(root(), filePath);
+        if (file == null) {
+            throw new ImageNotFoundException("Изображение не найдено: " + filePath);
+        }
+
+        return Files.readAllBytes(file);
+    }
+
+    /**
+     * Находит файл изображения по указанному пути для отдачи клиенту.
+     * Если запрошена ещё не созданная уменьшенная версия, возвращается оригинал, который нельзя кэшировать бессрочно.
+     *
+     * @param filePath путь к изображению
+     * @return Optional с найденным файлом или пустой Optional, если изображение не найдено
+     * @throws IOException если произошла ошибка при чтении атрибутов файла
+     */
+    @Override
+    public Optional<StoredImage> findImage(String filePath) throws IOException {
+        Path root = root();
+
+        Path file = resolve(root, filePath);
+        if (file != null && Files.isRegularFile(file)) {
+            return Optional.of(new StoredImage(file, etag(file), contentType(file), true));
+        }
+
+        String originalPath = ImageVariant.originalPath(filePath);
+        Path original = originalPath == null ? null : resolve(root, originalPath);
+        if (original != null && Files.isRegularFile(original)) {
+            return Optional.of(new StoredImage(original, etag(original), contentType(original), false));
+        }
 
-        return Files.readAllBytes(file.toPath());
+        return Optional.empty();
     }
 
     /**
-     * Удаляет изображение по указанному пути.
+     * Удаляет ссылку на изображение. Если это была последняя ссылка или изображение сохранено до появления
+     * счётчиков ссылок, в той же транзакции планируется удаление файла. Сам файл удаляется фоновым обработчиком
+     * после фиксации, поэтому при откате транзакции файл остаётся на месте, а при сбое приложения удаление не теряется.
      *
      * @param filePath путь к файлу изображения
-     * @throws IOException если произошла ошибка при обработке изображения
      */
+    @Transactional
+    @Override
+    public void deleteImage(String filePath) {
+        boolean tracked = imageReferenceEntityRepository.decrement(filePath) > 0;
+        if (tracked && imageReferenceEntityRepository.deleteUnreferenced(filePath) == 0) {
+            log.debug("На изображение остались ссылки, файл не удаляется: {}", filePath);
+            return;
+        }
+
+        ImageDeletionEntity imageDeletionEntity = new ImageDeletionEntity();
+        imageDeletionEntity.setPath(filePath);
+        imageDeletionEntity.setCreatedAt(System.currentTimeMillis());
+        imageDeletionEntityRepository.save(imageDeletionEntity);
+    }
+
+    /**
+     * Удаляет файлы изображений, удаление которых запланировано. Изображения пакета блокируются в порядке путей,
+     * как при импорте объявлений, и файл удаляется, только если на него нет ссылок ни в счётчиках, ни в объявлениях,
+     * ни у пользователей: изображения, загруженные до появления счётчиков, могут не иметь записи счётчика.
+     * Записи, файлы которых удалить не удалось, также удаляются: оставшиеся файлы найдёт поиск потерянных изображений.
+     *
+     * @param limit максимальное количество обрабатываемых записей
+     * @return количество обработанных записей
+     */
+    @Transactional
     @Override
-    public void deleteImage(String filePath) throws IOException {
-        Path path = Path.of(IMAGE_DIRECTORY + imagePath + filePath.replace(IMAGES, ""));
+    public int reclaimImages(int limit) {
+        List<ImageDeletionEntity> batch = imageDeletionEntityRepository.lockBatch(limit);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        SortedSet<String> paths = batch.stream().map(ImageDeletionEntity::getPath).collect(Collectors.toCollection(TreeSet::new));
+        imageReferenceEntityRepository.lockAll(paths.toArray(String[]::new));
+        Set<String> inUse = new HashSet<>(imageReferenceEntityRepository.findPathsInUse(paths));
+        for (String filePath : paths) {
+            if (inUse.contains(filePath)) {
+                log.debug("На изображение появилась новая ссылка, файл не удаляется: {}", filePath);
+                continue;
+            }
+            try {
+                deleteFiles(filePath);
+            } catch (IOException e) {
+                log.warn("Не удалось удалить файл изображения {}", filePath, e);
+            }
+        }
+        imageDeletionEntityRepository.deleteAllInBatch(batch);
+        return batch.size();
+    }
 
-        Files.deleteIfExists(path);
+    /**
+     * Обходит папку изображений и планирует удаление файлов, на которые не ссылаются ни счётчики,
+     * ни объявления, ни пользователи. Уменьшенные версии удалённых оригиналов и брошенные временные файлы
+     * удаляются сразу. Файлы моложе заданного возраста пропускаются, так как могут принадлежать
+     * ещё не зафиксированной загрузке.
+     *
+     * @param minAge минимальный возраст файла, моложе которого файл не проверяется
+     * @return количество файлов, удаление которых запланировано
+     * @throws IOException если произошла ошибка при обходе папки изображений
+     */
+    @Override
+    public int sweepOrphans(Duration minAge) throws IOException {
+        Path root = root();
+        if (!Files.isDirectory(root)) {
+            return 0;
+        }
+
+        Instant threshold = Instant.now().minus(minAge);
+        List<String> candidates = new ArrayList<>();
+        int scheduled = 0;
+        try (Stream<Path> files = Files.walk(root)) {
+            Iterator<Path> iterator = files.filter(Files::isRegularFile).iterator();
+            while (iterator.hasNext()) {
+                Path file = iterator.next();
+                if (Files.getLastModifiedTime(file).toInstant().isAfter(threshold)) {
+                    continue;
+                }
+
+                String filePath = IMAGES + root.relativize(file).toString().replace(File.separatorChar, '/');
+                String originalPath = ImageVariant.originalPath(filePath);
+                if (filePath.endsWith(TEMPORARY_EXTENSION)
+                        || originalPath != null && !Files.exists(resolve(root, originalPath))) {
+                    log.info("Удаляется брошенный файл: {}", file);
+                    Files.deleteIfExists(file);
+                } else if (originalPath == null) {
+                    candidates.add(filePath);
+                    if (candidates.size() == SWEEP_BATCH_SIZE) {
+                        scheduled += scheduleOrphans(candidates);
+                        candidates.clear();
+                    }
+                }
+            }
+        }
+        if (!candidates.isEmpty()) {
+            scheduled += scheduleOrphans(candidates);
+        }
+        return scheduled;
+    }
+
+    /**
+     * Планирует удаление файлов из списка, на которые нет ссылок.
+     *
+     * @param candidates пути к проверяемым изображениям
+     * @return количество файлов, удаление которых запланировано
+     */
+    private int scheduleOrphans(List<String> candidates) {
+        Set<String> referenced = new HashSet<>(imageReferenceEntityRepository.findReferencedPaths(candidates));
+        List<ImageDeletionEntity> orphans = candidates.stream()
+                .filter(candidate -> !referenced.contains(candidate))
+                .map(candidate -> {
+                    ImageDeletionEntity imageDeletionEntity = new ImageDeletionEntity();
+                    imageDeletionEntity.setPath(candidate);
+                    imageDeletionEntity.setCreatedAt(System.currentTimeMillis());
+                    return imageDeletionEntity;
+                })
+                .toList();
+        imageDeletionEntityRepository.saveAll(orphans);
+        orphans.forEach(orphan -> log.info("Найдено изображение без ссылок: {}", orphan.getPath()));
+        return orphans.size();
+    }
+
+    /**
+     * Удаляет файл изображения и его уменьшенные версии.
+     * Путь, указывающий за пределы папки изображений, пропускается.
+     *
+     * @param filePath путь к изображению
+     * @throws IOException если произошла ошибка при удалении
+     */
+    private void deleteFiles(String filePath) throws IOException {
+        Path root = root();
+        Path path = resolve(root, filePath);
+        if (path == null) {
+            log.warn("Путь изображения указывает за пределы папки изображений, файл не удаляется: {}", filePath);
+            return;
+        }
+
+        deleteFile(path);
+        for (ImageVariant variant : ImageVariant.values()) {
+            deleteFile(resolve(root, variant.path(filePath)));
+        }
+        log.info("Файл изображения удалён: {}", path);
+    }
+
+    /**
+     * Удаляет файл, если он существует, и учитывает его размер в метриках.
+     *
+     * @param file путь к файлу
+     * @throws IOException если произошла ошибка при удалении
+     */
+    private void deleteFile(Path file) throws IOException {
+        try {
+            long size = Files.size(file);
+            if (Files.deleteIfExists(file)) {
+                imageMetrics.deleted(size);
+            }
+        } catch (NoSuchFileException e) {
+            log.debug("Файл уже удалён: {}", file);
+        }
+    }
+
+    /**
+     * Переносит временный файл изображения на место, если такого файла ещё нет.
+     *
+     * @param stagedImage временный файл изображения
+     * @return путь к перенесённому файлу или null, если изображение уже было сохранено
+     * @throws UncheckedIOException если не удалось перенести файл
+     */
+    private Path promote(StagedImage stagedImage) {
+        Path dest = Path.of(IMAGE_DIRECTORY + imagePath).resolve(stagedImage.path().substring(IMAGES.length()));
+        try {
+            if (Files.exists(dest)) {
+                log.info("Изображение уже сохранено по этому пути: {}", dest);
+                stagedImage.close();
+                return null;
+            }
+            Files.createDirectories(dest.getParent());
+            Files.move(stagedImage.file(), dest, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Файл создан по этому пути: {}", dest);
+            return dest;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось перенести файл изображения " + stagedImage.file() + " в " + dest, e);
+        }
+    }
+
+    /**
+     * Планирует удаление файла, перенесённого в откаченной транзакции. Запись сохраняется в новой транзакции,
+     * так как исходная уже завершена. Фоновый обработчик удалит файл, только если на него нет ссылок.
+     * Если запись сохранить не удалось, файл найдёт поиск потерянных изображений.
+     *
+     * @param filePath путь к изображению
+     */
+    private void scheduleDeletion(String filePath) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                ImageDeletionEntity imageDeletionEntity = new ImageDeletionEntity();
+                imageDeletionEntity.setPath(filePath);
+                imageDeletionEntity.setCreatedAt(System.currentTimeMillis());
+                imageDeletionEntityRepository.save(imageDeletionEntity);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Не удалось запланировать удаление файла изображения {}", filePath, e);
+        }
+    }
+
+    /**
+     * Создаёт алгоритм хеширования содержимого изображений.
+     *
+     * @return экземпляр SHA-256
+     */
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Алгоритм " + HASH_ALGORITHM + " недоступен", e);
+        }
+    }
+
+    /**
+     * Определяет тип содержимого файла. Уменьшенные версии и файлы, сохранённые до хранения по хешу, имеют расширение,
+     * для остальных тип определяется по сигнатуре в начале файла.
+     *
+     * @param file путь к файлу
+     * @return тип содержимого или {@code application/octet-stream}, если тип не распознан
+     * @throws IOException если произошла ошибка при чтении файла
+     */
+    private static MediaType contentType(Path file) throws IOException {
+        Optional<MediaType> byName = MediaTypeFactory.getMediaType(file.getFileName().toString());
+        if (byName.isPresent()) {
+            return byName.get();
+        }
+
+        byte[] header = new byte[SIGNATURE_LENGTH];
+        int length;
+        try (InputStream input = Files.newInputStream(file)) {
+            length = input.readNBytes(header, 0, header.length);
+        }
+        for (Map.Entry<String, MediaType> signature : SIGNATURES.entrySet()) {
+            byte[] prefix = signature.getKey().getBytes(StandardCharsets.ISO_8859_1);
+            if (length >= prefix.length && Arrays.equals(header, 0, prefix.length, prefix, 0, prefix.length)) {
+                return signature.getValue();
+            }
+        }
+        if (length == SIGNATURE_LENGTH && new String(header, 0, 4, StandardCharsets.ISO_8859_1).equals("RIFF")
+                && new String(header, 8, 4, StandardCharsets.ISO_8859_1).equals("WEBP")) {
+            return WEBP;
+        }
+        return MediaType.APPLICATION_OCTET_STREAM;
+    }
+
+    /**
+     * Возвращает абсолютный путь к папке изображений.
+     *
+     * @return нормализованный путь к папке изображений
+     */
+    private Path root() {
+        return Path.of(IMAGE_DIRECTORY + imagePath).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Преобразует путь изображения в путь к файлу внутри папки изображений.
+     *
+     * @param root     папка изображений
+     * @param filePath путь к изображению
+     * @return путь к файлу или null, если путь указывает за пределы папки изображений
+     */
+    private static Path resolve(Path root, String filePath) {
+        if (!filePath.startsWith(IMAGES)) {
+            return null;
+        }
+        Path file = root.resolve(filePath.substring(IMAGES.length())).normalize();
+        return file.startsWith(root) ? file : null;
+    }
+
+    /**
+     * Вычисляет сильный ETag файла. Для файлов, сохранённых по хешу, это имя файла,
+     * для файлов, сохранённых до появления хеширования, — размер и время изменения.
+     *
+     * @param file путь к файлу
+     * @return ETag в кавычках
+     * @throws IOException если произошла ошибка при чтении атрибутов файла
+     */
+    private static String etag(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        if (CONTENT_ADDRESSED_NAME.matcher(name).matches()) {
+            return "\"" + name + "\"";
+        }
+        return "\"" + Long.toHexString(Files.size(file)) + "-" + Long.toHexString(Files.getLastModifiedTime(file).toMillis()) + "\"";
     }
 }
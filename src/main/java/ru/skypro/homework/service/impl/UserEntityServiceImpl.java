@@ -1,29 +1,39 @@
 package ru.skypro.homework.service.impl;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
+import ru.skypro.homework.cache.UserSnapshot;
+import ru.skypro.homework.cache.UserSnapshotCache;
 import ru.skypro.homework.dto.NewPassword;
 import ru.skypro.homework.dto.UpdateUser;
 import ru.skypro.homework.dto.User;
+import ru.skypro.homework.dto.Versioned;
 import ru.skypro.homework.entity.UserEntity;
+import ru.skypro.homework.exception.PreconditionFailedException;
 import ru.skypro.homework.exception.UserEntityNotFoundException;
+import ru.skypro.homework.image.StagedImage;
 import ru.skypro.homework.mapper.UserEntityMapper;
 import ru.skypro.homework.repository.UserEntityRepository;
+import ru.skypro.homework.security.AuthenticationCache;
 import ru.skypro.homework.service.ImageService;
 import ru.skypro.homework.service.UserEntityService;
 
 import java.io.IOException;
+import java.util.Set;
 
 /**
  * Сервис для управления сущностями пользователей.
  * Предоставляет методы для обновления пароля, получения информации о пользователе,
  * обновления профиля и аватара.
  */
+@Timed("service.method")
 @Service
 @RequiredArgsConstructor
 public class UserEntityServiceImpl implements UserEntityService {
@@ -49,7 +59,23 @@ public class UserEntityServiceImpl implements UserEntityService {
     private final ImageService imageService;
 
     /**
-     * Обновляет пароль текущего аутентифицированного пользователя.
+     * Кэш проверенных учётных данных, который сбрасывается при изменении пользователя.
+     */
+    private final AuthenticationCache authenticationCache;
+
+    /**
+     * Кэш снимков пользователей, который сбрасывается при изменении пользователя.
+     */
+    private final UserSnapshotCache userSnapshotCache;
+
+    /**
+     * Шаблон короткой транзакции, которая выполняется после записи загруженного изображения.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Обновляет пароль текущего аутентифицированного пользователя. Поколение токенов увеличивается,
+     * поэтому все выданные ранее токены доступа и обновления перестают приниматься.
      *
      * @param newPassword    данные нового и текущего пароля
      * @param authentication объект аутентификации для получения логина пользователя
@@ -59,46 +85,55 @@ public class UserEntityServiceImpl implements UserEntityService {
     @Transactional
     @Override
     public void setPassword(NewPassword newPassword, Authentication authentication) {
-        UserEntity userEntity = userEntityRepository.findByUsername(authentication.getName()).orElseThrow(() -> new UserEntityNotFoundException("Пользователь не найден"));
+        UserEntity userEntity = findUserEntity(authentication);
 
         if (!passwordEncoder.matches(newPassword.getCurrentPassword(), userEntity.getPassword())) {
             throw new AccessDeniedException("Текущий пароль неверен");
         }
 
         userEntity.setPassword(passwordEncoder.encode(newPassword.getNewPassword()));
+        userEntity.setTokenGeneration(userEntity.getTokenGeneration() + 1);
         userEntityRepository.save(userEntity);
+        authenticationCache.invalidate(userEntity.getUsername());
+        userSnapshotCache.invalidate(userEntity.getUsername());
     }
 
     /**
      * Получает информацию о текущем аутентифицированном пользователе.
      *
      * @param authentication объект аутентификации для получения логина пользователя
-     * @return DTO с данными пользователя
+     * @return DTO с данными пользователя и версией из снимка
      * @throws UserEntityNotFoundException если пользователь не найден
      */
     @Transactional(readOnly = true)
     @Override
-    public User getUser(Authentication authentication) {
-        UserEntity userEntity = userEntityRepository.findByUsername(authentication.getName()).orElseThrow(() -> new UserEntityNotFoundException("Пользователь не найден"));
-
-        return userEntityMapper.toDTO(userEntity);
+    public Versioned<User> getUser(Authentication authentication) {
+        UserSnapshot snapshot = userSnapshotCache.get(authentication.getName());
+        return new Versioned<>(userEntityMapper.toDTO(snapshot), String.valueOf(snapshot.version()));
     }
 
     /**
      * Обновляет информацию о текущем аутентифицированном пользователе.
      *
-     * @param updateUser     данные для обновления (имя, фамилия, телефон)
-     * @param authentication объект аутентификации для получения логина пользователя
+     * @param updateUser       данные для обновления (имя, фамилия, телефон)
+     * @param authentication   объект аутентификации для получения логина пользователя
+     * @param expectedVersions версии пользователя, при которых разрешено обновление, или null без проверки версии
      * @return обновленный DTO пользователя
      * @throws UserEntityNotFoundException если пользователь не найден
+     * @throws PreconditionFailedException если версия пользователя не входит в ожидаемые
      */
     @Transactional
     @Override
-    public UpdateUser updateUser(UpdateUser updateUser, Authentication authentication) {
-        UserEntity userEntity = userEntityRepository.findByUsername(authentication.getName()).orElseThrow(() -> new UserEntityNotFoundException("Пользователь не найден"));
+    public UpdateUser updateUser(UpdateUser updateUser, Authentication authentication, Set<Integer> expectedVersions) {
+        UserEntity userEntity = findUserEntity(authentication);
+        if (expectedVersions != null && !expectedVersions.contains(userEntity.getVersion())) {
+            throw new PreconditionFailedException("Данные пользователя были изменены");
+        }
 
         userEntityMapper.updateUserEntity(updateUser, userEntity);
         userEntityRepository.save(userEntity);
+        authenticationCache.invalidate(userEntity.getUsername());
+        userSnapshotCache.invalidate(userEntity.getUsername());
 
         return updateUser;
     }
@@ -111,24 +146,39 @@ public class UserEntityServiceImpl implements UserEntityService {
      * @throws IOException                 если произошла ошибка при обработке изображения
      * @throws UserEntityNotFoundException если пользователь не найден
      */
-    @Transactional
     @Override
     public void updateUserImage(MultipartFile image, Authentication authentication) throws IOException {
-        UserEntity userEntity = userEntityRepository.findByUsername(authentication.getName()).orElseThrow(() -> new UserEntityNotFoundException("Пользователь не найден"));
-        String userEntityImage = userEntity.getImage();
+        // Файл записывается до начала транзакции, чтобы не удерживать соединение с базой данных
+        try (StagedImage stagedImage = imageService.stageImage(image)) {
+            transactionTemplate.executeWithoutResult(status -> {
+                UserEntity userEntity = findUserEntity(authentication);
+                String userEntityImage = userEntity.getImage();
+                if (stagedImage.path().equals(userEntityImage)) {
+                    // Изображение с тем же содержимым уже сохранено, ссылка на него не меняется
+                    return;
+                }
 
-        String imagePath = imageService.saveImage(image);
-        userEntity.setImage(imagePath);
-        userEntityRepository.save(userEntity);
+                userEntity.setImage(imageService.commitImage(stagedImage));
+                userEntityRepository.save(userEntity);
+                userSnapshotCache.invalidate(userEntity.getUsername());
 
-        if (userEntityImage != null) {
-            new Thread(() -> {
-                try {
-                    Thread.sleep(800);
+                if (userEntityImage != null) {
                     imageService.deleteImage(userEntityImage);
-                } catch (IOException | InterruptedException ignored) {
                 }
-            }).start();
+            });
         }
     }
+
+    /**
+     * Находит сущность текущего аутентифицированного пользователя по идентификатору из снимка.
+     * Сущность по идентификатору берётся из кэша второго уровня без запроса к базе данных.
+     *
+     * @param authentication объект аутентификации для получения логина пользователя
+     * @return сущность пользователя
+     * @throws UserEntityNotFoundException если пользователь не найден
+     */
+    private UserEntity findUserEntity(Authentication authentication) {
+        return userEntityRepository.findById(userSnapshotCache.get(authentication.getName()).id())
+                .orElseThrow(() -> new UserEntityNotFoundException("Пользователь не найден"));
+    }
 }
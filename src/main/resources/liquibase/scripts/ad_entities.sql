@@ -9,4 +9,12 @@ CREATE TABLE ad_entities (
     image VARCHAR(255) NOT NULL,
     author INT NOT NULL,
     FOREIGN KEY (author) REFERENCES user_entities(id)
-);
\ No newline at end of file
+);
+
+-- changeset mkorolkov:2
+ALTER TABLE ad_entities ADD COLUMN search_vector TSVECTOR GENERATED ALWAYS AS (
+    setweight(to_tsvector('russian', title), 'A') || setweight(to_tsvector('russian', description), 'B')
+) STORED;
+
+-- changeset mkorolkov:3
+ALTER TABLE ad_entities ADD COLUMN version INT NOT NULL DEFAULT 0;
@@ -9,4 +9,7 @@ CREATE TABLE comment_entities (
     ad_entity INT NOT NULL,
     FOREIGN KEY (author) REFERENCES user_entities(id),
     FOREIGN KEY (ad_entity) REFERENCES ad_entities(pk)
-);
\ No newline at end of file
+);
+
+-- changeset mkorolkov:2
+ALTER TABLE comment_entities ADD COLUMN version INT NOT NULL DEFAULT 0;
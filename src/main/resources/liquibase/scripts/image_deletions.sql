@@ -0,0 +1,9 @@
+-- liquibase formatted sql
+
+-- changeset mkorolkov:1
+CREATE TABLE image_deletions (
+    id BIGSERIAL PRIMARY KEY,
+    path VARCHAR(255) NOT NULL,
+    created_at BIGINT NOT NULL
+);
+CREATE INDEX image_deletions_path_idx ON image_deletions (path);
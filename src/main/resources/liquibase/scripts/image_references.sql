@@ -0,0 +1,7 @@
+-- liquibase formatted sql
+
+-- changeset mkorolkov:1
+CREATE TABLE image_references (
+    path VARCHAR(255) PRIMARY KEY,
+    ref_count INT NOT NULL CHECK (ref_count >= 0)
+);
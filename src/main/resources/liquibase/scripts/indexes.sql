@@ -0,0 +1,24 @@
+-- liquibase formatted sql
+
+-- changeset mkorolkov:1
+CREATE INDEX comment_entities_ad_entity_created_at_idx ON comment_entities (ad_entity, created_at DESC);
+CREATE INDEX comment_entities_author_idx ON comment_entities (author);
+CREATE INDEX ad_entities_author_idx ON ad_entities (author);
+CREATE INDEX ad_entities_listing_idx ON ad_entities (pk) INCLUDE (author, price, title, image);
+
+-- changeset mkorolkov:2
+DROP INDEX comment_entities_ad_entity_created_at_idx;
+CREATE INDEX comment_entities_ad_entity_created_at_pk_idx ON comment_entities (ad_entity, created_at DESC, pk DESC);
+
+-- changeset mkorolkov:3
+CREATE INDEX ad_entities_image_idx ON ad_entities (image);
+CREATE INDEX user_entities_image_idx ON user_entities (image);
+
+-- changeset mkorolkov:4
+CREATE INDEX ad_entities_search_vector_idx ON ad_entities USING GIN (search_vector);
+
+-- changeset mkorolkov:5
+DROP INDEX ad_entities_author_idx;
+CREATE INDEX ad_entities_author_pk_idx ON ad_entities (author, pk);
+CREATE INDEX ad_entities_price_pk_idx ON ad_entities (price, pk);
+CREATE INDEX ad_entities_author_price_pk_idx ON ad_entities (author, price, pk);
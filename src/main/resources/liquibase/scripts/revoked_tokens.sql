@@ -0,0 +1,11 @@
+-- liquibase formatted sql
+
+-- changeset mkorolkov:1
+CREATE TABLE revoked_tokens (
+    id VARCHAR(36) PRIMARY KEY,
+    expires_at BIGINT NOT NULL,
+    revoked_at BIGINT NOT NULL
+);
+
+CREATE INDEX revoked_tokens_revoked_at_idx ON revoked_tokens (revoked_at);
+CREATE INDEX revoked_tokens_expires_at_idx ON revoked_tokens (expires_at);
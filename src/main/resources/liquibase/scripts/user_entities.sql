@@ -10,4 +10,10 @@ CREATE TABLE user_entities (
     phone VARCHAR(16) NOT NULL CHECK (phone ~ '^\+7\s?\(?[0-9]{3}\)?\s?[0-9]{3}-?[0-9]{2}-?[0-9]{2}$'),
     authority VARCHAR(10) NOT NULL CHECK (authority IN ('ROLE_USER', 'ROLE_ADMIN')),
     image VARCHAR(255)
-);
\ No newline at end of file
+);
+
+-- changeset mkorolkov:2
+ALTER TABLE user_entities ADD COLUMN version INT NOT NULL DEFAULT 0;
+
+-- changeset mkorolkov:3
+ALTER TABLE user_entities ADD COLUMN token_generation INT NOT NULL DEFAULT 0;
@@ -0,0 +1,114 @@
+package ru.skypro.homework.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.skypro.homework.entity.AdEntity;
+import ru.skypro.homework.repository.AdEntityRepository;
+import ru.skypro.homework.util.AdFixture;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет согласование кэша второго уровня между экземплярами приложения через {@code LISTEN/NOTIFY}.
+ * Второй экземпляр имитируется прямыми запросами к базе данных.
+ */
+@Testcontainers
+@SpringBootTest(properties = "second-level-cache.cluster.enabled=true")
+@ActiveProfiles("test")
+class ClusterCacheInvalidatorIT {
+
+    private static final String CHANNEL = "second_level_cache_invalidation";
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Autowired
+    private AdEntityRepository adEntityRepository;
+
+    @BeforeEach
+    void setUp() {
+        // Запускаем PostgreSQL
+        postgres.start();
+
+        // Очищаем БД и кэш
+        jdbcTemplate.execute("TRUNCATE TABLE comment_entities, ad_entities, user_entities, image_references, image_deletions RESTART IDENTITY");
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+
+        // Подготовка данных
+        jdbcTemplate.execute("INSERT INTO user_entities (username, password, first_name, last_name, phone, authority) " +
+                "VALUES ('user1@mail.ru', 'password', 'First', 'Last', '+79811234543', 'ROLE_USER')");
+        jdbcTemplate.execute("INSERT INTO ad_entities (title, description, price, image, author) " +
+                "VALUES ('Sell phone', 'Phone is good', 3000, '/images/1.jpg', 1)");
+    }
+
+    @Test
+    void notification_FromAnotherInstance_EvictsAd() throws InterruptedException {
+        // Подготовка данных
+        assertThat(adEntityRepository.findById(AdFixture.adId)).get().extracting(AdEntity::getTitle).isEqualTo("Sell phone");
+        jdbcTemplate.update("UPDATE ad_entities SET title = 'updTitle' WHERE pk = ?", AdFixture.adId);
+
+        // Выполняем запрос
+        // Уведомление повторяется, так как подписка на канал могла ещё не завершиться
+        String title = null;
+        for (int attempt = 0; attempt < 50 && !"updTitle".equals(title); attempt++) {
+            jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", String.class,
+                    CHANNEL, "other-instance|" + AdEntity.class.getName() + "|" + AdFixture.adId);
+            Thread.sleep(100);
+            title = adEntityRepository.findById(AdFixture.adId).map(AdEntity::getTitle).orElse(null);
+        }
+
+        // Проверяем результат
+        assertThat(title).isEqualTo("updTitle");
+    }
+
+    @Test
+    void updateAd_CommittedChange_NotifiesOtherInstances() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+            // Подготовка данных
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("LISTEN " + CHANNEL);
+            }
+            AdEntity adEntity = adEntityRepository.findById(AdFixture.adId).orElseThrow();
+            adEntity.setTitle("updTitle");
+
+            // Выполняем запрос
+            adEntityRepository.save(adEntity);
+
+            // Проверяем результат
+            PGNotification[] notifications = connection.unwrap(PGConnection.class).getNotifications(5000);
+            assertThat(notifications).isNotNull();
+            assertThat(notifications).extracting(PGNotification::getParameter)
+                    .anyMatch(payload -> payload.endsWith("|" + AdEntity.class.getName() + "|" + AdFixture.adId));
+        }
+    }
+}
@@ -1,36 +1,62 @@
 package ru.skypro.homework.controller;
 
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.http.*;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.skypro.homework.cache.CacheRegions;
 import ru.skypro.homework.dto.*;
+import ru.skypro.homework.exception.ImageNotFoundException;
+import ru.skypro.homework.image.ImageVariant;
+import ru.skypro.homework.image.StagedImage;
 import ru.skypro.homework.service.ImageService;
 import ru.skypro.homework.util.AdFixture;
+import ru.skypro.homework.util.QueryBudget;
+import ru.skypro.homework.util.QueryRecorder;
 import ru.skypro.homework.util.UserFixture;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @Testcontainers
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @ActiveProfiles("test")
+@Import(QueryRecorder.QueryRecorderConfiguration.class)
 class AdControllerIT {
 
     @Container
@@ -48,6 +74,12 @@ class AdControllerIT {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     @Autowired
     private ImageService imageService;
 
@@ -62,7 +94,8 @@ class AdControllerIT {
                 execution.execute(request, body)));
 
         // Очищаем БД
-        jdbcTemplate.execute("TRUNCATE TABLE comment_entities, ad_entities, user_entities RESTART IDENTITY");
+        jdbcTemplate.execute("TRUNCATE TABLE comment_entities, ad_entities, user_entities, image_references, image_deletions RESTART IDENTITY");
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
 
         // Регистрируем пользователя
         Register register = UserFixture.getFirstRegisteredUser();
@@ -89,11 +122,8 @@ class AdControllerIT {
 
         HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(requestBody, generalHeaders);
 
-        ResponseEntity<Ad> response = restTemplate.exchange(url() + "/ads", HttpMethod.POST, requestEntity, Ad.class);
-
-        // Получаем ссылку на добавленное изображение и удаляем его по этому пути из ФС
-        String imagePath = Objects.requireNonNull(response.getBody()).getImage();
-        imageService.deleteImage(imagePath);
+        // Изображение не удаляем: объявление ссылается на него, а одинаковые загрузки хранятся одним файлом
+        restTemplate.exchange(url() + "/ads", HttpMethod.POST, requestEntity, Ad.class);
 
         // Очищаем заголовки в перехватчике запросов
         testRestTemplate.setInterceptors(Collections.singletonList((request, body, execution) ->
@@ -112,11 +142,255 @@ class AdControllerIT {
     }
 
     @Test
+    @QueryBudget(max = 3)
+    void getAllAds_SeveralAuthors_StaysWithinQueryBudget() {
+        // Подготовка данных
+        addAdsOfOtherAuthors(5, 2);
+
+        // Выполняем запрос
+        ResponseEntity<Ads> response = restTemplate.getForEntity(url() + "/ads", Ads.class);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getResults()).hasSize(11);
+        assertThat(response.getBody().getResults()).extracting(Ad::getAuthor).containsOnly(1, 2, 3, 4, 5, 6);
+    }
+
+    @Test
+    void getAllAds_CursorAfterLastAd_ReturnsEmptyPage() {
+        // Выполняем запрос
+        ResponseEntity<Ads> response = restTemplate.getForEntity(url() + "/ads?cursor={cursor}&limit={limit}", Ads.class, AdFixture.adId, 1);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getResults()).isEmpty();
+        assertThat(response.getBody().getNext()).isNull();
+        assertThat(response.getBody().getCount()).isEqualTo(1);
+    }
+
+    @Test
+    void getAllAds_IncorrectCursor_ReturnsBadRequest() {
+        // Выполняем запрос
+        ResponseEntity<Ads> response = restTemplate.getForEntity(url() + "/ads?cursor={cursor}", Ads.class, "abc");
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void getAllAds_PriceRangeSortedByPrice_ReturnsPagesInOrder() {
+        // Подготовка данных
+        jdbcTemplate.execute("INSERT INTO ad_entities (title, description, price, image, author) " +
+                "VALUES ('Sell case', 'Case for phone', 500, '/images/2.jpg', 1), ('Sell charger', 'Charger for phone', 1500, '/images/3.jpg', 1)");
+
+        // Выполняем запрос
+        ResponseEntity<Ads> first = restTemplate.getForEntity(url() + "/ads?maxPrice={maxPrice}&sort={sort}&limit={limit}", Ads.class,
+                2000, "PRICE_DESC", 1);
+        ResponseEntity<Ads> second = restTemplate.getForEntity(url() + "/ads?maxPrice={maxPrice}&sort={sort}&limit={limit}&cursor={cursor}",
+                Ads.class, 2000, "PRICE_DESC", 1, Objects.requireNonNull(first.getBody()).getNext());
+
+        // Проверяем результат
+        assertThat(first.getBody().getResults()).extracting(Ad::getPrice).containsExactly(1500);
+        assertThat(first.getBody().getNext()).isEqualTo("1500_3");
+        assertThat(second.getBody()).isNotNull();
+        assertThat(second.getBody().getResults()).extracting(Ad::getPrice).containsExactly(500);
+        assertThat(second.getBody().getNext()).isNull();
+    }
+
+    @Test
+    void getAllAds_AuthorSortedByNewest_ReturnsAuthorAds() {
+        // Подготовка данных
+        jdbcTemplate.execute("INSERT INTO user_entities (username, password, first_name, last_name, phone, authority) " +
+                "VALUES ('user2@mail.ru', 'password', 'Second', 'Last', '+79811234544', 'ROLE_USER')");
+        jdbcTemplate.execute("INSERT INTO ad_entities (title, description, price, image, author) " +
+                "VALUES ('Sell case', 'Case for phone', 500, '/images/2.jpg', 2), ('Sell charger', 'Charger for phone', 1500, '/images/3.jpg', 1)");
+
+        // Выполняем запрос
+        ResponseEntity<Ads> response = restTemplate.getForEntity(url() + "/ads?author={author}&sort={sort}", Ads.class, 1, "NEWEST");
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getResults()).extracting(Ad::getPk).containsExactly(3, AdFixture.adId);
+        assertThat(response.getBody().getCount()).isEqualTo(2);
+    }
+
+    @Test
+    void getAllAds_IncorrectSort_ReturnsBadRequest() {
+        // Выполняем запрос
+        ResponseEntity<Ads> response = restTemplate.getForEntity(url() + "/ads?sort={sort}", Ads.class, "RANDOM");
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void searchAds_MatchingQuery_ReturnsAdsByRelevance() {
+        // Подготовка данных
+        jdbcTemplate.execute("INSERT INTO ad_entities (title, description, price, image, author) " +
+                "VALUES ('Sell case', 'Case for phone', 500, '/images/2.jpg', 1)");
+
+        // Выполняем запрос
+        ResponseEntity<Ads> first = restTemplate.getForEntity(url() + "/ads/search?q={q}&limit={limit}", Ads.class, "phone", 1);
+        ResponseEntity<Ads> second = restTemplate.getForEntity(url() + "/ads/search?q={q}&limit={limit}&cursor={cursor}", Ads.class,
+                "phone", 1, Objects.requireNonNull(first.getBody()).getNext());
+
+        // Проверяем результат
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(first.getBody().getResults()).extracting(Ad::getPk).containsExactly(AdFixture.adId);
+        assertThat(second.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(second.getBody()).isNotNull();
+        assertThat(second.getBody().getResults()).extracting(Ad::getTitle).containsExactly("Sell case");
+        assertThat(second.getBody().getNext()).isNull();
+    }
+
+    @Test
+    @QueryBudget(max = 1)
+    void searchAds_SeveralAuthors_StaysWithinQueryBudget() {
+        // Подготовка данных
+        addAdsOfOtherAuthors(5, 2);
+
+        // Выполняем запрос
+        ResponseEntity<Ads> response = restTemplate.getForEntity(url() + "/ads/search?q={q}", Ads.class, "phone");
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getResults()).hasSize(11);
+    }
+
+    @Test
+    void searchAds_UpdatedAd_FindsNewText() {
+        // Аутентификация
+        doAuthenticationFirstUser();
+
+        // Подготовка данных
+        restTemplate.exchange(url() + "/ads/{id}", HttpMethod.PATCH, new HttpEntity<>(AdFixture.getUpdateAd()), Ad.class, AdFixture.adId);
+
+        // Выполняем запрос
+        ResponseEntity<Ads> updated = restTemplate.getForEntity(url() + "/ads/search?q={q}", Ads.class, "updDescription");
+        ResponseEntity<Ads> previous = restTemplate.getForEntity(url() + "/ads/search?q={q}", Ads.class, "phone");
+
+        // Проверяем результат
+        assertThat(updated.getBody()).isNotNull();
+        assertThat(updated.getBody().getResults()).extracting(Ad::getPk).containsExactly(AdFixture.adId);
+        assertThat(previous.getBody()).isNotNull();
+        assertThat(previous.getBody().getResults()).isEmpty();
+    }
+
+    @Test
+    void searchAds_IncorrectCursor_ReturnsBadRequest() {
+        // Выполняем запрос
+        ResponseEntity<Ads> response = restTemplate.getForEntity(url() + "/ads/search?q={q}&cursor={cursor}", Ads.class, "phone", "abc");
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void streamAllAds_SuccessfulRequest_ReturnsNdjson() {
+        // Выполняем запрос
+        ResponseEntity<String> response = restTemplate.getForEntity(url() + "/ads/stream", String.class);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_NDJSON);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().lines()).hasSize(1);
+        assertThat(response.getBody()).contains(AdFixture.getCreateAd().getTitle());
+    }
+
+    @Test
+    void exportAds_WithCommentsAndAuthors_ReturnsOneLinePerAd() {
+        // Аутентификация
+        doAuthenticationFirstUser();
+
+        // Подготовка данных
+        addAdsOfOtherAuthors(2, 2);
+        jdbcTemplate.update("INSERT INTO comment_entities (text, created_at, author, ad_entity) VALUES " +
+                "('First comment', 1000, 1, 1), ('Second comment', 2000, 2, 1)");
+
+        // Выполняем запрос
+        ResponseEntity<String> response = restTemplate.getForEntity(url() + "/ads/export?comments=true&authors=true", String.class);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_NDJSON);
+        assertThat(response.getBody()).isNotNull();
+        List<String> lines = response.getBody().lines().toList();
+        assertThat(lines).hasSize(5);
+        assertThat(lines.get(0))
+                .startsWith("{\"pk\":1,\"author\":1,\"authorFirstName\":\"" + UserFixture.getFirstRegisteredUser().getFirstName() + "\"")
+                .containsSubsequence("\"comments\":[", "\"text\":\"Second comment\"", "\"text\":\"First comment\"");
+        assertThat(lines.get(1)).startsWith("{\"pk\":2,").endsWith("\"comments\":[]}");
+    }
+
+    @Test
+    void exportAds_GzipAfterLastPk_ResumesCompressed() throws IOException {
+        // Аутентификация
+        doAuthenticationFirstUser();
+
+        // Подготовка данных
+        addAdsOfOtherAuthors(2, 2);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+
+        // Выполняем запрос
+        ResponseEntity<byte[]> response = restTemplate.exchange(url() + "/ads/export?after=3", HttpMethod.GET,
+                new HttpEntity<>(headers), byte[].class);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(response.getBody()).isNotNull();
+        try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(response.getBody()))) {
+            List<String> lines = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+            assertThat(lines).hasSize(2);
+            assertThat(lines.get(0)).startsWith("{\"pk\":4,").doesNotContain("authorFirstName", "comments");
+            assertThat(lines.get(1)).startsWith("{\"pk\":5,");
+        }
+    }
+
+    @Test
+    void exportAds_GzipRefused_ReturnsUncompressed() {
+        // Аутентификация
+        doAuthenticationFirstUser();
+
+        // Подготовка данных
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "x-gzip, gzip;q=0, *;q=0.5");
+
+        // Выполняем запрос
+        ResponseEntity<String> response = restTemplate.exchange(url() + "/ads/export", HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().lines()).hasSize(1);
+    }
+
+    @Test
+    void exportAds_Unauthenticated_ReturnsUnauthorized() {
+        // Выполняем запрос
+        ResponseEntity<String> response = restTemplate.getForEntity(url() + "/ads/export", String.class);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    @QueryBudget(max = 3)
     void addAd_SuccessfulAdding_ReturnsCreated() throws IOException {
         // Аутентификация
         doAuthenticationFirstUser();
 
         // Подготовка данных
+        addAdsOfOtherAuthors(5, 2);
+        addCommentsOfOtherAuthors(5, 2);
         CreateOrUpdateAd createAd = AdFixture.getCreateAd();
         HttpHeaders headers1 = new HttpHeaders();
         headers1.setContentType(MediaType.APPLICATION_JSON);
@@ -143,6 +417,127 @@ class AdControllerIT {
         assertThat(response.getBody().getTitle()).isEqualTo(AdFixture.getCreateAd().getTitle());
     }
 
+    @Test
+    void addAd_SuccessfulAdding_ReturnsImageVariants() throws IOException {
+        // Аутентификация
+        doAuthenticationFirstUser();
+
+        // Подготовка данных
+        HttpHeaders propertiesHeaders = new HttpHeaders();
+        propertiesHeaders.setContentType(MediaType.APPLICATION_JSON);
+
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("properties", new HttpEntity<>(AdFixture.getCreateAd(), propertiesHeaders));
+        body.add("image", new FileSystemResource("src/test/resources/test.jpg"));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+
+        // Выполняем запрос
+        Ad ad = restTemplate.exchange(url() + "/ads", HttpMethod.POST, new HttpEntity<>(body, headers), Ad.class).getBody();
+        ResponseEntity<ExtendedAd> extendedAd = restTemplate.getForEntity(url() + "/ads/{id}", ExtendedAd.class, Objects.requireNonNull(ad).getPk());
+        ResponseEntity<byte[]> thumbnail = restTemplate.getForEntity(url() + ad.getImageThumbnail(), byte[].class);
+
+        // Удаляем добавленное изображение
+        imageService.deleteImage(ad.getImage());
+
+        // Проверяем результат
+        assertThat(ad.getImageThumbnail()).isEqualTo(ImageVariant.THUMBNAIL.path(ad.getImage()));
+        assertThat(extendedAd.getBody()).isNotNull();
+        assertThat(extendedAd.getBody().getImageDetail()).isEqualTo(ImageVariant.DETAIL.path(ad.getImage()));
+        assertThat(thumbnail.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(thumbnail.getBody()).isNotEmpty();
+    }
+
+    @Test
+    void commitImage_RolledBackTransaction_RemovesPromotedFileAfterReclaim() throws IOException {
+        // Подготовка данных
+        MockMultipartFile image = new MockMultipartFile("image", "rollback.jpg", MediaType.IMAGE_JPEG_VALUE,
+                UUID.randomUUID().toString().getBytes());
+        StagedImage stagedImage = imageService.stageImage(image);
+
+        // Выполняем запрос
+        boolean promotedBeforeCommit;
+        try (stagedImage) {
+            promotedBeforeCommit = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                imageService.commitImage(stagedImage);
+                status.setRollbackOnly();
+                try {
+                    return imageService.findImage(stagedImage.path()).isPresent();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        }
+        boolean keptUntilReclaim = imageService.findImage(stagedImage.path()).isPresent();
+        imageService.reclaimImages(100);
+
+        // Проверяем результат
+        assertThat(promotedBeforeCommit).isTrue();
+        assertThat(keptUntilReclaim).isTrue();
+        assertThat(stagedImage.file()).doesNotExist();
+        assertThat(imageService.findImage(stagedImage.path())).isEmpty();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM image_references WHERE path = ?", Integer.class,
+                stagedImage.path())).isZero();
+    }
+
+    @Test
+    void addAd_SameImageTwice_StoresFileOnce() throws IOException {
+        // Аутентификация
+        doAuthenticationFirstUser();
+
+        // Подготовка данных
+        HttpHeaders propertiesHeaders = new HttpHeaders();
+        propertiesHeaders.setContentType(MediaType.APPLICATION_JSON);
+
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("properties", new HttpEntity<>(AdFixture.getCreateAd(), propertiesHeaders));
+        body.add("image", new FileSystemResource("src/test/resources/test.jpg"));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+
+        // Выполняем запрос
+        Ad first = restTemplate.exchange(url() + "/ads", HttpMethod.POST, new HttpEntity<>(body, headers), Ad.class).getBody();
+        Ad second = restTemplate.exchange(url() + "/ads", HttpMethod.POST, new HttpEntity<>(body, headers), Ad.class).getBody();
+        String imagePath = Objects.requireNonNull(first).getImage();
+        Integer refCount = jdbcTemplate.queryForObject("SELECT ref_count FROM image_references WHERE path = ?", Integer.class, imagePath);
+
+        imageService.deleteImage(imagePath);
+        imageService.deleteImage(imagePath);
+        byte[] imageWithLastReference = imageService.getImage(imagePath);
+        imageService.deleteImage(imagePath);
+
+        // Проверяем результат
+        assertThat(Objects.requireNonNull(second).getImage()).isEqualTo(imagePath);
+        assertThat(refCount).isEqualTo(3);
+        assertThat(imageWithLastReference).isNotEmpty();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM image_references WHERE path = ?", Integer.class, imagePath)).isZero();
+    }
+
+    @Test
+    void stageImage_SameBytesUnderDifferentNames_SharesPathAndSniffsContentType() throws IOException {
+        // Подготовка данных
+        String imagePath = jdbcTemplate.queryForObject("SELECT image FROM ad_entities WHERE pk = ?", String.class, AdFixture.adId);
+        byte[] bytes = Files.readAllBytes(Path.of("src/test/resources/test.jpg"));
+        MockMultipartFile upperCase = new MockMultipartFile("image", "photo.JPEG", MediaType.IMAGE_JPEG_VALUE, bytes);
+        MockMultipartFile withoutExtension = new MockMultipartFile("image", "photo", MediaType.IMAGE_JPEG_VALUE, bytes);
+
+        // Выполняем запрос
+        String upperCasePath;
+        String withoutExtensionPath;
+        try (StagedImage first = imageService.stageImage(upperCase); StagedImage second = imageService.stageImage(withoutExtension)) {
+            upperCasePath = first.path();
+            withoutExtensionPath = second.path();
+        }
+        ResponseEntity<byte[]> response = restTemplate.getForEntity(url() + imagePath, byte[].class);
+
+        // Проверяем результат
+        assertThat(upperCasePath).isEqualTo(imagePath).doesNotContain(".");
+        assertThat(withoutExtensionPath).isEqualTo(imagePath);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.IMAGE_JPEG);
+    }
+
     @Test
     void addAd_WithoutAuthentication_ReturnsUnauthorized() {
         // Подготовка данных
@@ -167,10 +562,15 @@ class AdControllerIT {
     }
 
     @Test
+    @QueryBudget(max = 1)
     void getAds_SuccessfulRequest_ReturnsOk() {
         // Аутентификация
         doAuthenticationFirstUser();
 
+        // Подготовка данных
+        addAdsOfOtherAuthors(5, 2);
+        addCommentsOfOtherAuthors(5, 2);
+
         // Выполняем запрос
         ResponseEntity<ExtendedAd> response = restTemplate.getForEntity(url() + "/ads/{id}", ExtendedAd.class, AdFixture.adId);
 
@@ -192,6 +592,24 @@ class AdControllerIT {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
 
+    @Test
+    void getAds_RepeatedRequest_ReadsAdFromSecondLevelCache() {
+        // Аутентификация
+        doAuthenticationFirstUser();
+
+        // Подготовка данных
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        restTemplate.getForEntity(url() + "/ads/{id}", ExtendedAd.class, AdFixture.adId);
+        long hits = statistics.getDomainDataRegionStatistics(CacheRegions.AD).getHitCount();
+
+        // Выполняем запрос
+        ResponseEntity<ExtendedAd> response = restTemplate.getForEntity(url() + "/ads/{id}", ExtendedAd.class, AdFixture.adId);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(statistics.getDomainDataRegionStatistics(CacheRegions.AD).getHitCount()).isGreaterThan(hits);
+    }
+
     @Test
     void getAds_WithoutAuthentication_ReturnsUnauthorized() {
         // Выполняем запрос
@@ -202,10 +620,34 @@ class AdControllerIT {
     }
 
     @Test
+    void getAds_IfNoneMatchCurrentETag_ReturnsNotModified() {
+        // Аутентификация
+        doAuthenticationFirstUser();
+
+        // Подготовка данных
+        String eTag = restTemplate.getForEntity(url() + "/ads/{id}", ExtendedAd.class, AdFixture.adId).getHeaders().getETag();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+
+        // Выполняем запрос
+        ResponseEntity<ExtendedAd> response = restTemplate.exchange(url() + "/ads/{id}", HttpMethod.GET, new HttpEntity<>(headers), ExtendedAd.class, AdFixture.adId);
+
+        // Проверяем результат
+        assertThat(eTag).isEqualTo("W/\"0.0\"");
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getBody()).isNull();
+    }
+
+    @Test
+    @QueryBudget(max = 7)
     void removeAd_SuccessfulDeleted_ReturnsNoContent() {
         // Аутентификация
         doAuthenticationFirstUser();
 
+        // Подготовка данных
+        addAdsOfOtherAuthors(5, 2);
+        addCommentsOfOtherAuthors(5, 2);
+
         // Выполняем запрос
         ResponseEntity<Void> response = restTemplate.exchange(url() + "/ads/{id}", HttpMethod.DELETE, null, Void.class, AdFixture.adId);
 
@@ -213,6 +655,79 @@ class AdControllerIT {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
     }
 
+    @Test
+    void removeAd_SuccessfulDeleted_DeletesImageFileAfterReclaim() throws IOException {
+        // Аутентификация
+        doAuthenticationFirstUser();
+
+        // Подготовка данных
+        String imagePath = jdbcTemplate.queryForObject("SELECT image FROM ad_entities WHERE pk = ?", String.class, AdFixture.adId);
+        Path file = imageService.findImage(imagePath).orElseThrow().file();
+
+        // Выполняем запрос
+        restTemplate.exchange(url() + "/ads/{id}", HttpMethod.DELETE, null, Void.class, AdFixture.adId);
+
+        // Проверяем результат
+        assertThat(file).exists();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM image_deletions WHERE path = ?", Integer.class, imagePath)).isEqualTo(1);
+        assertThat(imageService.reclaimImages(100)).isEqualTo(1);
+        assertThat(file).doesNotExist();
+    }
+
+    @Test
+    void sweepOrphans_UnreferencedFile_DeletesOnlyOrphan() throws IOException {
+        // Подготовка данных
+        String imagePath = jdbcTemplate.queryForObject("SELECT image FROM ad_entities WHERE pk = ?", String.class, AdFixture.adId);
+        Path referenced = imageService.findImage(imagePath).orElseThrow().file();
+        Path orphan = Files.write(referenced.resolveSibling("orphan.jpg"), new byte[]{1, 2, 3});
+        FileTime modifiedTime = FileTime.from(Instant.now().minus(Duration.ofHours(2)));
+        Files.setLastModifiedTime(referenced, modifiedTime);
+        Files.setLastModifiedTime(orphan, modifiedTime);
+
+        // Выполняем запрос
+        imageService.sweepOrphans(Duration.ofHours(1));
+        imageService.reclaimImages(100);
+
+        // Проверяем результат
+        assertThat(orphan).doesNotExist();
+        assertThat(referenced).exists();
+    }
+
+    @Test
+    void reclaimImages_ImageReferencedByAdWithoutCount_KeepsFile() throws IOException {
+        // Подготовка данных
+        String imagePath = jdbcTemplate.queryForObject("SELECT image FROM ad_entities WHERE pk = ?", String.class, AdFixture.adId);
+        Path file = imageService.findImage(imagePath).orElseThrow().file();
+        jdbcTemplate.update("DELETE FROM image_references WHERE path = ?", imagePath);
+        jdbcTemplate.update("INSERT INTO image_deletions (path, created_at) VALUES (?, ?)", imagePath, System.currentTimeMillis());
+
+        // Выполняем запрос
+        int processed = imageService.reclaimImages(100);
+
+        // Проверяем результат
+        assertThat(processed).isEqualTo(1);
+        assertThat(file).exists();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM image_deletions", Integer.class)).isZero();
+    }
+
+    @Test
+    void reclaimImages_PathOutsideImageDirectory_KeepsFile() throws IOException {
+        // Подготовка данных
+        String imagePath = jdbcTemplate.queryForObject("SELECT image FROM ad_entities WHERE pk = ?", String.class, AdFixture.adId);
+        Path root = imageService.findImage(imagePath).orElseThrow().file().getParent().getParent().getParent();
+        Path outside = Files.write(root.resolveSibling("outside-" + UUID.randomUUID() + ".jpg"), new byte[]{1, 2, 3});
+        String outsidePath = "/images/../" + outside.getFileName();
+        jdbcTemplate.update("INSERT INTO image_deletions (path, created_at) VALUES (?, ?)", outsidePath, System.currentTimeMillis());
+
+        // Выполняем запрос
+        imageService.reclaimImages(100);
+
+        // Проверяем результат
+        assertThat(outside).exists();
+        assertThatThrownBy(() -> imageService.getImage(outsidePath)).isInstanceOf(ImageNotFoundException.class);
+        Files.delete(outside);
+    }
+
     @Test
     void removeAd_IncorrectAdId_ReturnsNotFound() {
         // Аутентификация
@@ -269,11 +784,14 @@ class AdControllerIT {
     }
 
     @Test
+    @QueryBudget(max = 3)
     void updateAds_SuccessfulAdUpdated_ReturnsOk() {
         // Аутентификация
         doAuthenticationFirstUser();
 
         // Подготовка данных
+        addAdsOfOtherAuthors(5, 2);
+        addCommentsOfOtherAuthors(5, 2);
         CreateOrUpdateAd updateAd = AdFixture.getUpdateAd();
 
         // Выполняем запрос
@@ -300,6 +818,29 @@ class AdControllerIT {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
 
+    @Test
+    void updateAds_StaleIfMatch_ReturnsPreconditionFailed() {
+        // Аутентификация
+        doAuthenticationFirstUser();
+
+        // Подготовка данных
+        String eTag = restTemplate.getForEntity(url() + "/ads/{id}", ExtendedAd.class, AdFixture.adId).getHeaders().getETag();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfMatch(eTag);
+        restTemplate.exchange(url() + "/ads/{id}", HttpMethod.PATCH, new HttpEntity<>(AdFixture.getUpdateAd(), headers), Ad.class, AdFixture.adId);
+
+        // Выполняем запрос
+        ResponseEntity<String> response = restTemplate.exchange(url() + "/ads/{id}", HttpMethod.PATCH,
+                new HttpEntity<>(AdFixture.getCreateAd(), headers), String.class, AdFixture.adId);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        ResponseEntity<ExtendedAd> ad = restTemplate.getForEntity(url() + "/ads/{id}", ExtendedAd.class, AdFixture.adId);
+        assertThat(ad.getBody()).isNotNull();
+        assertThat(ad.getBody().getTitle()).isEqualTo(AdFixture.getUpdateAd().getTitle());
+        assertThat(ad.getHeaders().getETag()).isEqualTo("W/\"1.0\"");
+    }
+
     @Test
     void updateAds_WithoutAuthentication_ReturnsUnauthorized() {
         // Подготовка данных
@@ -366,6 +907,25 @@ class AdControllerIT {
         assertThat(response.getBody().getResults().get(0).getTitle()).isEqualTo(AdFixture.getCreateAd().getTitle());
     }
 
+    @Test
+    @QueryBudget(max = 1)
+    void getAdsMe_SeveralAds_StaysWithinQueryBudget() {
+        // Аутентификация
+        doAuthenticationFirstUser();
+
+        // Подготовка данных
+        jdbcTemplate.execute("INSERT INTO ad_entities (title, description, price, image, author) " +
+                "SELECT 'Sell phone ' || g, 'Phone is good', 1000 + g, '/images/' || g || '.jpg', 1 FROM generate_series(1, 10) g");
+
+        // Выполняем запрос
+        ResponseEntity<Ads> response = restTemplate.getForEntity(url() + "/ads/me", Ads.class);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getResults()).hasSize(11);
+    }
+
     @Test
     void getAdsMe_WithoutAuthentication_ReturnsUnauthorized() {
         // Выполняем запрос
@@ -376,11 +936,14 @@ class AdControllerIT {
     }
 
     @Test
+    @QueryBudget(max = 2)
     void updateImage_SuccessfulImageAdUpdated_ReturnsOk() throws IOException {
         // Аутентификация
         doAuthenticationFirstUser();
 
         // Подготовка данных
+        addAdsOfOtherAuthors(5, 2);
+        addCommentsOfOtherAuthors(5, 2);
         MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
         body.add("image", new FileSystemResource("src/test/resources/test.jpg"));
         HttpHeaders headers = new HttpHeaders();
@@ -402,6 +965,36 @@ class AdControllerIT {
         imageService.deleteImage(imagePath);
     }
 
+    @Test
+    void updateImage_ConditionalAndRangeHeaders_ReturnsWholeImage() throws IOException {
+        // Аутентификация
+        doAuthenticationFirstUser();
+
+        // Подготовка данных
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("image", new FileSystemResource("src/test/resources/test.jpg"));
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        headers.setIfNoneMatch("*");
+        headers.setRange(List.of(HttpRange.createByteRange(0, 9)));
+
+        // Выполняем запрос
+        ResponseEntity<byte[]> response = restTemplate.exchange(url() + "/ads/{id}/image", HttpMethod.PATCH, new HttpEntity<>(body, headers),
+                byte[].class, AdFixture.adId);
+
+        // Получаем из БД адрес изображения объявления и получаем её массив байт
+        String imagePath = jdbcTemplate.queryForObject("SELECT image FROM ad_entities WHERE pk = ?", String.class, AdFixture.adId);
+        byte[] image = imageService.getImage(imagePath);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getCacheControl()).doesNotContain("immutable");
+        assertThat(response.getBody()).isEqualTo(image);
+
+        // Удаляем добавленное изображение из ФС
+        imageService.deleteImage(imagePath);
+    }
+
     @Test
     void updateImage_IncorrectAdId_ReturnsNotFound() throws IOException {
         // Аутентификация
@@ -520,10 +1113,166 @@ class AdControllerIT {
         imageService.deleteImage(imagePath);
     }
 
+    @Test
+    void returnAdImage_MatchingETag_ReturnsNotModified() {
+        // Подготовка данных
+        String imagePath = jdbcTemplate.queryForObject("SELECT image FROM ad_entities WHERE pk = ?", String.class, AdFixture.adId);
+        ResponseEntity<byte[]> image = restTemplate.getForEntity(url() + imagePath, byte[].class);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(Objects.requireNonNull(image.getHeaders().getETag()));
+
+        // Выполняем запрос
+        ResponseEntity<byte[]> response = restTemplate.exchange(url() + imagePath, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+
+        // Проверяем результат
+        assertThat(image.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(image.getHeaders().getCacheControl()).contains("immutable");
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    @Test
+    void returnAdImage_Range_ReturnsPartialContent() throws IOException {
+        // Подготовка данных
+        String imagePath = jdbcTemplate.queryForObject("SELECT image FROM ad_entities WHERE pk = ?", String.class, AdFixture.adId);
+        byte[] image = imageService.getImage(imagePath);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setRange(List.of(HttpRange.createByteRange(10, 19)));
+
+        // Выполняем запрос
+        ResponseEntity<byte[]> response = restTemplate.exchange(url() + imagePath, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 10-19/" + image.length);
+        assertThat(response.getBody()).isEqualTo(Arrays.copyOfRange(image, 10, 20));
+    }
+
+    @Test
+    void importAds_NdjsonFromAdmin_AddsValidAdsAndCountsImageReferences() {
+        // Подготовка данных
+        Register register = UserFixture.getRegisteredAdmin();
+        restTemplate.postForEntity(url() + "/register", register, Void.class);
+        String imagePath = jdbcTemplate.queryForObject("SELECT image FROM ad_entities WHERE pk = ?", String.class, AdFixture.adId);
+        String body = String.join("\n",
+                "{\"title\":\"Sell case\",\"description\":\"Case for phone\",\"price\":500,\"image\":\"" + imagePath + "\",\"author\":1}",
+                "{\"title\":\"Sell charger\",\"description\":\"Charger for phone\",\"price\":1500,\"image\":\"" + imagePath + "\",\"author\":1}",
+                "{\"title\":\"Sell cable\",\"description\":\"Cable for phone\",\"price\":100,\"image\":\"" + imagePath + "\",\"author\":99}",
+                "{\"title\":\"Sell\"",
+                "{\"title\":\"Sell stand\",\"description\":\"Stand for phone\",\"price\":300,\"image\":\"/images/missing.jpg\",\"author\":1}");
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_NDJSON);
+
+        // Аутентификация
+        doAuthenticationSecondUserOrAdmin(register);
+
+        // Выполняем запрос
+        ResponseEntity<AdImportResult> response = restTemplate.exchange(url() + "/ads/import", HttpMethod.POST,
+                new HttpEntity<>(body, headers), AdImportResult.class);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getImported()).isEqualTo(2);
+        assertThat(response.getBody().getRejected()).isEqualTo(3);
+        assertThat(response.getBody().getErrors()).containsExactly(
+                "строка 4: некорректная строка", "строка 3: автор не найден", "строка 5: изображение не найдено");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ad_entities", Integer.class)).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject("SELECT ref_count FROM image_references WHERE path = ?", Integer.class, imagePath))
+                .isEqualTo(3);
+        assertThat(restTemplate.getForEntity(url() + "/ads", Ads.class).getBody())
+                .extracting(Ads::getCount).isEqualTo(3);
+    }
+
+    @Test
+    void importAds_ImageWithoutReferenceCount_CountsExistingReferences() {
+        // Подготовка данных
+        Register register = UserFixture.getRegisteredAdmin();
+        restTemplate.postForEntity(url() + "/register", register, Void.class);
+        String imagePath = jdbcTemplate.queryForObject("SELECT image FROM ad_entities WHERE pk = ?", String.class, AdFixture.adId);
+        jdbcTemplate.update("DELETE FROM image_references WHERE path = ?", imagePath);
+        String body = "{\"title\":\"Sell case\",\"description\":\"Case for phone\",\"price\":500,\"image\":\"" + imagePath + "\",\"author\":1}";
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_NDJSON);
+
+        // Аутентификация
+        doAuthenticationSecondUserOrAdmin(register);
+
+        // Выполняем запрос
+        ResponseEntity<AdImportResult> response = restTemplate.exchange(url() + "/ads/import", HttpMethod.POST,
+                new HttpEntity<>(body, headers), AdImportResult.class);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getImported()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT ref_count FROM image_references WHERE path = ?", Integer.class, imagePath))
+                .isEqualTo(2);
+    }
+
+    @Test
+    void importAds_CsvWithQuotedValues_AddsAds() {
+        // Подготовка данных
+        Register register = UserFixture.getRegisteredAdmin();
+        restTemplate.postForEntity(url() + "/register", register, Void.class);
+        String imagePath = jdbcTemplate.queryForObject("SELECT image FROM ad_entities WHERE pk = ?", String.class, AdFixture.adId);
+        String body = "author,title,description,price,image\n" +
+                "1,\"Sell case, red\",\"Case for \"\"phone\"\"\",500," + imagePath + "\n";
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("text/csv"));
+
+        // Аутентификация
+        doAuthenticationSecondUserOrAdmin(register);
+
+        // Выполняем запрос
+        ResponseEntity<AdImportResult> response = restTemplate.exchange(url() + "/ads/import", HttpMethod.POST,
+                new HttpEntity<>(body, headers), AdImportResult.class);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getImported()).isEqualTo(1);
+        assertThat(response.getBody().getRejected()).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT description FROM ad_entities WHERE title = ?", String.class, "Sell case, red"))
+                .isEqualTo("Case for \"phone\"");
+    }
+
+    @Test
+    void importAds_NotAdmin_ReturnsForbidden() {
+        // Аутентификация
+        doAuthenticationFirstUser();
+
+        // Подготовка данных
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_NDJSON);
+
+        // Выполняем запрос
+        ResponseEntity<AdImportResult> response = restTemplate.exchange(url() + "/ads/import", HttpMethod.POST,
+                new HttpEntity<>("", headers), AdImportResult.class);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ad_entities", Integer.class)).isEqualTo(1);
+    }
+
     private String url() {
         return "http://localhost:" + port;
     }
 
+    private void addAdsOfOtherAuthors(int authors, int adsPerAuthor) {
+        jdbcTemplate.update("INSERT INTO user_entities (username, password, first_name, last_name, phone, authority) " +
+                "SELECT 'author' || g || '@mail.ru', 'password', 'First', 'Last', '+79811234543', 'ROLE_USER' " +
+                "FROM generate_series(1, ?) g", authors);
+        jdbcTemplate.update("INSERT INTO ad_entities (title, description, price, image, author) " +
+                "SELECT 'Sell phone ' || g, 'Phone is good', 1000 + g, '/images/' || g || '.jpg', 2 + g % ? " +
+                "FROM generate_series(1, ?) g", authors, authors * adsPerAuthor);
+    }
+
+    private void addCommentsOfOtherAuthors(int authors, int commentsPerAuthor) {
+        jdbcTemplate.update("INSERT INTO comment_entities (text, created_at, author, ad_entity) " +
+                "SELECT 'Comment ' || g, 1000 + g, 2 + g % ?, ? FROM generate_series(1, ?) g",
+                authors, AdFixture.adId, authors * commentsPerAuthor);
+    }
+
     private void doAuthenticationFirstUser() {
         restTemplate.getRestTemplate().setInterceptors(
                 Collections.singletonList((request, body, execution) -> {
@@ -1,12 +1,18 @@
 package ru.skypro.homework.controller;
 
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
@@ -14,10 +20,16 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import ru.skypro.homework.dto.Login;
+import ru.skypro.homework.dto.NewPassword;
+import ru.skypro.homework.dto.RefreshToken;
 import ru.skypro.homework.dto.Register;
+import ru.skypro.homework.dto.Token;
+import ru.skypro.homework.dto.User;
 import ru.skypro.homework.util.UserFixture;
 
 import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -41,6 +53,9 @@ class AuthControllerIT {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @BeforeEach
     void setUp() {
         postgres.start();
@@ -49,7 +64,8 @@ class AuthControllerIT {
                 execution.execute(request, body))
         );
 
-        jdbcTemplate.execute("TRUNCATE TABLE comment_entities, ad_entities, user_entities RESTART IDENTITY");
+        jdbcTemplate.execute("TRUNCATE TABLE comment_entities, ad_entities, user_entities, image_references, image_deletions RESTART IDENTITY");
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
     }
 
     @Test
@@ -129,6 +145,131 @@ class AuthControllerIT {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
     }
 
+    @Test
+    void login_SuccessfulLogin_ReturnsUsableAccessToken() {
+        // Эмулируем регистрацию и логин
+        Register register = UserFixture.getFirstRegisteredUser();
+        restTemplate.postForEntity(url() + "/register", register, Void.class);
+        Token token = doLogin(register);
+
+        // Выполняем запрос с токеном доступа
+        ResponseEntity<User> response = restTemplate.exchange(url() + "/users/me", HttpMethod.GET,
+                new HttpEntity<>(bearer(token.getAccessToken())), User.class);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getEmail()).isEqualTo(register.getUsername());
+    }
+
+    @Test
+    void refresh_UsedRefreshToken_ReturnsUnauthorized() {
+        // Эмулируем регистрацию и логин
+        Register register = UserFixture.getFirstRegisteredUser();
+        restTemplate.postForEntity(url() + "/register", register, Void.class);
+        Token token = doLogin(register);
+
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setRefreshToken(token.getRefreshToken());
+
+        // Выполняем запросы
+        ResponseEntity<Token> first = restTemplate.postForEntity(url() + "/refresh", refreshToken, Token.class);
+        ResponseEntity<Token> second = restTemplate.postForEntity(url() + "/refresh", refreshToken, Token.class);
+
+        // Проверяем результат
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(first.getBody()).isNotNull();
+        assertThat(first.getBody().getAccessToken()).isNotEqualTo(token.getAccessToken());
+        assertThat(second.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    void refresh_ConcurrentRequestsWithSameToken_IssuesTokensOnce() {
+        // Эмулируем регистрацию и логин
+        Register register = UserFixture.getFirstRegisteredUser();
+        restTemplate.postForEntity(url() + "/register", register, Void.class);
+        Token token = doLogin(register);
+
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setRefreshToken(token.getRefreshToken());
+
+        // Выполняем запросы
+        List<HttpStatusCode> statuses = IntStream.range(0, 8).parallel()
+                .mapToObj(i -> restTemplate.postForEntity(url() + "/refresh", refreshToken, Token.class).getStatusCode())
+                .toList();
+
+        // Проверяем результат
+        assertThat(statuses).filteredOn(HttpStatus.OK::equals).hasSize(1);
+        assertThat(statuses).filteredOn(status -> !HttpStatus.OK.equals(status)).containsOnly(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    void setPassword_TokensIssuedBefore_ReturnsUnauthorized() {
+        // Эмулируем регистрацию и логин
+        Register register = UserFixture.getFirstRegisteredUser();
+        restTemplate.postForEntity(url() + "/register", register, Void.class);
+        Token token = doLogin(register);
+
+        NewPassword newPassword = new NewPassword();
+        newPassword.setCurrentPassword(register.getPassword());
+        newPassword.setNewPassword(UserFixture.newPassword);
+
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setRefreshToken(token.getRefreshToken());
+
+        // Выполняем запросы
+        ResponseEntity<Void> setPassword = restTemplate.exchange(url() + "/users/set_password", HttpMethod.POST,
+                new HttpEntity<>(newPassword, bearer(token.getAccessToken())), Void.class);
+        ResponseEntity<User> oldAccess = restTemplate.exchange(url() + "/users/me", HttpMethod.GET,
+                new HttpEntity<>(bearer(token.getAccessToken())), User.class);
+        ResponseEntity<Token> oldRefresh = restTemplate.postForEntity(url() + "/refresh", refreshToken, Token.class);
+
+        register.setPassword(UserFixture.newPassword);
+        Token newToken = doLogin(register);
+        ResponseEntity<User> newAccess = restTemplate.exchange(url() + "/users/me", HttpMethod.GET,
+                new HttpEntity<>(bearer(newToken.getAccessToken())), User.class);
+
+        // Проверяем результат
+        assertThat(setPassword.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(oldAccess.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(oldRefresh.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(newAccess.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void logout_RevokedAccessToken_ReturnsUnauthorized() {
+        // Эмулируем регистрацию и логин
+        Register register = UserFixture.getFirstRegisteredUser();
+        restTemplate.postForEntity(url() + "/register", register, Void.class);
+        Token token = doLogin(register);
+
+        // Выполняем запросы
+        ResponseEntity<Void> logout = restTemplate.exchange(url() + "/logout", HttpMethod.POST,
+                new HttpEntity<>(bearer(token.getAccessToken())), Void.class);
+        ResponseEntity<User> response = restTemplate.exchange(url() + "/users/me", HttpMethod.GET,
+                new HttpEntity<>(bearer(token.getAccessToken())), User.class);
+
+        // Проверяем результат
+        assertThat(logout.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    private Token doLogin(Register register) {
+        Login login = new Login();
+        login.setUsername(register.getUsername());
+        login.setPassword(register.getPassword());
+
+        ResponseEntity<Token> response = restTemplate.postForEntity(url() + "/login", login, Token.class);
+        assertThat(response.getBody()).isNotNull();
+        return response.getBody();
+    }
+
+    private HttpHeaders bearer(String accessToken) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(accessToken);
+        return headers;
+    }
+
     private String url() {
         return "http://localhost:" + port;
     }
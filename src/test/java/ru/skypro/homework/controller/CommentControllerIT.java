@@ -1,11 +1,14 @@
 package ru.skypro.homework.controller;
 
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.http.*;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -17,12 +20,12 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import ru.skypro.homework.dto.*;
-import ru.skypro.homework.service.ImageService;
 import ru.skypro.homework.util.AdFixture;
 import ru.skypro.homework.util.CommentFixer;
+import ru.skypro.homework.util.QueryBudget;
+import ru.skypro.homework.util.QueryRecorder;
 import ru.skypro.homework.util.UserFixture;
 
-import java.io.IOException;
 import java.util.Base64;
 import java.util.Collections;
 import java.util.Objects;
@@ -32,6 +35,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 @Testcontainers
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @ActiveProfiles("test")
+@Import(QueryRecorder.QueryRecorderConfiguration.class)
 class CommentControllerIT {
 
     @Container
@@ -50,10 +54,10 @@ class CommentControllerIT {
     private JdbcTemplate jdbcTemplate;
 
     @Autowired
-    private ImageService imageService;
+    private EntityManagerFactory entityManagerFactory;
 
     @BeforeEach
-    void setUp() throws IOException {
+    void setUp() {
         // Запускаем PostgreSQL
         postgres.start();
 
@@ -63,7 +67,8 @@ class CommentControllerIT {
                 execution.execute(request, body)));
 
         // Очищаем БД
-        jdbcTemplate.execute("TRUNCATE TABLE comment_entities, ad_entities, user_entities RESTART IDENTITY");
+        jdbcTemplate.execute("TRUNCATE TABLE comment_entities, ad_entities, user_entities, image_references, image_deletions RESTART IDENTITY");
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
 
         // Регистрируем пользователя
         Register register = UserFixture.getFirstRegisteredUser();
@@ -90,11 +95,8 @@ class CommentControllerIT {
 
         HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(requestBody, generalHeaders);
 
-        ResponseEntity<Ad> response = restTemplate.exchange(url() + "/ads", HttpMethod.POST, requestEntity, Ad.class);
-
-        // Получаем ссылку на добавленное изображение и удаляем его по этому пути из ФС
-        String imagePath = Objects.requireNonNull(response.getBody()).getImage();
-        imageService.deleteImage(imagePath);
+        // Изображение не удаляем: объявление ссылается на него, а одинаковые загрузки хранятся одним файлом
+        restTemplate.exchange(url() + "/ads", HttpMethod.POST, requestEntity, Ad.class);
 
         // Создаём комментарий
         CreateOrUpdateComment createComment = CommentFixer.getCreateComment();
@@ -120,6 +122,25 @@ class CommentControllerIT {
         assertThat(response.getBody().getResults().get(0).getText()).isEqualTo(CommentFixer.getCreateComment().getText());
     }
 
+    @Test
+    @QueryBudget(max = 1)
+    void getComments_SeveralAuthors_StaysWithinQueryBudget() {
+        // Аутентификация
+        doAuthenticationFirstUser();
+
+        // Подготовка данных
+        addCommentsOfOtherAuthors(5, 2);
+
+        // Выполняем запрос
+        ResponseEntity<Comments> response = restTemplate.getForEntity(url() + "/ads/{id}/comments", Comments.class, AdFixture.adId);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getResults()).hasSize(11);
+        assertThat(response.getBody().getResults()).extracting(Comment::getAuthorFirstName).contains("Author 1", "Author 5");
+    }
+
     @Test
     void getComments_IncorrectAdId_ReturnsNotFound() {
         // Аутентификация
@@ -142,11 +163,49 @@ class CommentControllerIT {
     }
 
     @Test
+    void getComments_PageWithLimit_ReturnsNextPageByCursor() {
+        // Аутентификация
+        doAuthenticationFirstUser();
+
+        // Подготовка данных
+        CreateOrUpdateComment updateComment = CommentFixer.getUpdateComment();
+        restTemplate.postForEntity(url() + "/ads/{id}/comments", updateComment, Comment.class, AdFixture.adId);
+
+        // Выполняем запрос
+        ResponseEntity<Comments> firstPage = restTemplate.getForEntity(url() + "/ads/{id}/comments?limit=1", Comments.class, AdFixture.adId);
+        String next = Objects.requireNonNull(firstPage.getBody()).getNext();
+        ResponseEntity<Comments> secondPage = restTemplate.getForEntity(url() + "/ads/{id}/comments?limit=1&before={before}", Comments.class, AdFixture.adId, next);
+
+        // Проверяем результат
+        assertThat(firstPage.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(firstPage.getBody().getResults()).extracting(Comment::getText).containsExactly(updateComment.getText());
+        assertThat(next).isNotNull();
+        assertThat(secondPage.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(secondPage.getBody()).isNotNull();
+        assertThat(secondPage.getBody().getResults()).extracting(Comment::getText).containsExactly(CommentFixer.getCreateComment().getText());
+        assertThat(secondPage.getBody().getNext()).isNull();
+    }
+
+    @Test
+    void getComments_IncorrectCursor_ReturnsBadRequest() {
+        // Аутентификация
+        doAuthenticationFirstUser();
+
+        // Выполняем запрос
+        ResponseEntity<String> response = restTemplate.getForEntity(url() + "/ads/{id}/comments?before=abc", String.class, AdFixture.adId);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    @QueryBudget(max = 2)
     void addComment_SuccessfulCommentAdded_ReturnsOk() {
         // Аутентификация
         doAuthenticationFirstUser();
 
         // Подготовка данных
+        addCommentsOfOtherAuthors(5, 2);
         CreateOrUpdateComment createComment = CommentFixer.getCreateComment();
 
         // Выполняем запрос
@@ -186,10 +245,14 @@ class CommentControllerIT {
     }
 
     @Test
+    @QueryBudget(max = 2)
     void deleteComment_SuccessfulCommentRemoved_ReturnsOk() {
         // Аутентификация
         doAuthenticationFirstUser();
 
+        // Подготовка данных
+        addCommentsOfOtherAuthors(5, 2);
+
         // Выполняем запрос
         ResponseEntity<Void> response = restTemplate.
                 exchange(url() + "/ads/{adId}/comments/{commentId}", HttpMethod.DELETE, null, Void.class, AdFixture.adId, CommentFixer.commentId);
@@ -271,11 +334,13 @@ class CommentControllerIT {
     }
 
     @Test
+    @QueryBudget(max = 3)
     void updateComment_SuccessfulCommentUpdated_ReturnsOk() {
         // Аутентификация
         doAuthenticationFirstUser();
 
         // Подготовка данных
+        addCommentsOfOtherAuthors(5, 2);
         CreateOrUpdateComment updateComment = CommentFixer.getUpdateComment();
 
         // Выполняем запрос
@@ -288,6 +353,24 @@ class CommentControllerIT {
         assertThat(response.getBody().getText()).isEqualTo(updateComment.getText());
     }
 
+    @Test
+    void updateComment_CurrentIfMatch_ReturnsNewETag() {
+        // Аутентификация
+        doAuthenticationFirstUser();
+
+        // Подготовка данных
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfMatch("W/\"0\"");
+
+        // Выполняем запрос
+        ResponseEntity<Comment> response = restTemplate.exchange(url() + "/ads/{adId}/comments/{commentId}", HttpMethod.PATCH,
+                new HttpEntity<>(CommentFixer.getUpdateComment(), headers), Comment.class, AdFixture.adId, CommentFixer.commentId);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isEqualTo("W/\"1\"");
+    }
+
     @Test
     void updateComment_IncorrectAdId_ReturnsNotFound() {
         // Аутентификация
@@ -379,6 +462,15 @@ class CommentControllerIT {
         return "http://localhost:" + port;
     }
 
+    private void addCommentsOfOtherAuthors(int authors, int commentsPerAuthor) {
+        jdbcTemplate.update("INSERT INTO user_entities (username, password, first_name, last_name, phone, authority) " +
+                "SELECT 'author' || g || '@mail.ru', 'password', 'Author ' || g, 'Last', '+79811234543', 'ROLE_USER' " +
+                "FROM generate_series(1, ?) g", authors);
+        jdbcTemplate.update("INSERT INTO comment_entities (text, created_at, author, ad_entity) " +
+                "SELECT 'Comment text ' || g, 1700000000000 + g, 2 + g % ?, ? FROM generate_series(1, ?) g",
+                authors, AdFixture.adId, authors * commentsPerAuthor);
+    }
+
     private void doAuthenticationFirstUser() {
         restTemplate.getRestTemplate().setInterceptors(
                 Collections.singletonList((request, body, execution) -> {
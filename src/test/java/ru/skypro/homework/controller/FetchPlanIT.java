@@ -0,0 +1,301 @@
+package ru.skypro.homework.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.skypro.homework.cache.UserSnapshotCache;
+import ru.skypro.homework.dto.*;
+import ru.skypro.homework.util.AdFixture;
+import ru.skypro.homework.util.CommentFixer;
+import ru.skypro.homework.util.UserFixture;
+
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет, что сессия Hibernate не открыта на весь запрос (open-in-view отключён), а методы, отдающие данные
+ * связанных сущностей, загружают их явно внутри транзакции. Обращение к ленивой связи вне транзакции
+ * завершается {@code LazyInitializationException}, и ответ вместо 200 становится 500.
+ * Тест есть для каждого метода, ответ которого содержит данные связанной сущности.
+ * Кэши очищаются перед каждым запросом, чтобы связи не попадали в ответ из кэша второго уровня или из снимков пользователей.
+ */
+@Testcontainers
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class FetchPlanIT {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private UserSnapshotCache userSnapshotCache;
+
+    @BeforeEach
+    void setUp() {
+        // Запускаем PostgreSQL
+        postgres.start();
+
+        // Очищаем БД
+        jdbcTemplate.execute("TRUNCATE TABLE comment_entities, ad_entities, user_entities, image_references, image_deletions RESTART IDENTITY");
+        evictCaches();
+
+        // Регистрируем пользователя и устанавливаем заголовок аутентификации
+        Register register = UserFixture.getFirstRegisteredUser();
+        restTemplate.getRestTemplate().setInterceptors(Collections.emptyList());
+        restTemplate.postForEntity(url() + "/register", register, Void.class);
+        restTemplate.getRestTemplate().setInterceptors(Collections.singletonList((request, body, execution) -> {
+            request.getHeaders().add("Authorization", "Basic " + Base64.getEncoder()
+                    .encodeToString((register.getUsername() + ":" + register.getPassword()).getBytes()));
+            return execution.execute(request, body);
+        }));
+
+        // Создаём объявление и комментарий
+        HttpHeaders headersForProperties = new HttpHeaders();
+        headersForProperties.setContentType(MediaType.APPLICATION_JSON);
+        MultiValueMap<String, Object> requestBody = new LinkedMultiValueMap<>();
+        requestBody.add("properties", new HttpEntity<>(AdFixture.getCreateAd(), headersForProperties));
+        requestBody.add("image", new FileSystemResource("src/test/resources/test.jpg"));
+        HttpHeaders generalHeaders = new HttpHeaders();
+        generalHeaders.setContentType(MediaType.MULTIPART_FORM_DATA);
+        restTemplate.exchange(url() + "/ads", HttpMethod.POST, new HttpEntity<>(requestBody, generalHeaders), Ad.class);
+        restTemplate.postForEntity(url() + "/ads/{id}/comments", CommentFixer.getCreateComment(), Comment.class, AdFixture.adId);
+    }
+
+    @Test
+    void openInView_IsDisabled() {
+        // Проверяем результат
+        assertThat(applicationContext.getBeansOfType(OpenEntityManagerInViewInterceptor.class)).isEmpty();
+    }
+
+    @Test
+    void getAds_ColdCaches_LoadsAuthorInsideTransaction() {
+        // Подготовка данных
+        evictCaches();
+
+        // Выполняем запрос
+        ResponseEntity<ExtendedAd> response = restTemplate.getForEntity(url() + "/ads/{id}", ExtendedAd.class, AdFixture.adId);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getAuthorFirstName()).isEqualTo(UserFixture.getFirstRegisteredUser().getFirstName());
+        assertThat(response.getBody().getEmail()).isEqualTo(UserFixture.getFirstRegisteredUser().getUsername());
+    }
+
+    @Test
+    void getAllAds_ColdCaches_ReturnsAuthor() {
+        // Подготовка данных
+        evictCaches();
+
+        // Выполняем запрос
+        ResponseEntity<Ads> response = restTemplate.getForEntity(url() + "/ads", Ads.class);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getResults()).extracting(Ad::getAuthor).containsExactly(1);
+    }
+
+    @Test
+    void searchAds_ColdCaches_ReturnsAuthor() {
+        // Подготовка данных
+        evictCaches();
+
+        // Выполняем запрос
+        ResponseEntity<Ads> response = restTemplate.getForEntity(url() + "/ads/search?q={q}", Ads.class, "phone");
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getResults()).extracting(Ad::getAuthor).containsExactly(1);
+    }
+
+    @Test
+    void streamAllAds_ColdCaches_ReturnsAuthor() {
+        // Подготовка данных
+        evictCaches();
+
+        // Выполняем запрос
+        ResponseEntity<String> response = restTemplate.getForEntity(url() + "/ads/stream", String.class);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().lines()).hasSize(1);
+        assertThat(response.getBody()).contains("\"author\":1");
+    }
+
+    @Test
+    void exportAds_ColdCaches_WritesCommentsAndAuthors() {
+        // Подготовка данных
+        evictCaches();
+
+        // Выполняем запрос
+        ResponseEntity<String> response = restTemplate.getForEntity(url() + "/ads/export?comments=true&authors=true", String.class);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        List<String> lines = response.getBody().lines().toList();
+        assertThat(lines).hasSize(1);
+        assertThat(lines.get(0))
+                .contains("\"authorFirstName\":\"" + UserFixture.getFirstRegisteredUser().getFirstName() + "\"")
+                .containsSubsequence("\"comments\":[", "\"text\":\"" + CommentFixer.getCreateComment().getText() + "\"");
+    }
+
+    @Test
+    void addAd_ColdCaches_ReturnsAuthor() {
+        // Подготовка данных
+        evictCaches();
+        HttpHeaders headersForProperties = new HttpHeaders();
+        headersForProperties.setContentType(MediaType.APPLICATION_JSON);
+        MultiValueMap<String, Object> requestBody = new LinkedMultiValueMap<>();
+        requestBody.add("properties", new HttpEntity<>(AdFixture.getCreateAd(), headersForProperties));
+        requestBody.add("image", new FileSystemResource("src/test/resources/test.jpg"));
+        HttpHeaders generalHeaders = new HttpHeaders();
+        generalHeaders.setContentType(MediaType.MULTIPART_FORM_DATA);
+
+        // Выполняем запрос
+        ResponseEntity<Ad> response = restTemplate.exchange(url() + "/ads", HttpMethod.POST,
+                new HttpEntity<>(requestBody, generalHeaders), Ad.class);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getAuthor()).isEqualTo(1);
+    }
+
+    @Test
+    void getAdsMe_ColdCaches_ReturnsAuthor() {
+        // Подготовка данных
+        evictCaches();
+
+        // Выполняем запрос
+        ResponseEntity<Ads> response = restTemplate.getForEntity(url() + "/ads/me", Ads.class);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getResults()).extracting(Ad::getAuthor).containsExactly(1);
+    }
+
+    @Test
+    void getUser_ColdCaches_ReturnsUser() {
+        // Подготовка данных
+        evictCaches();
+
+        // Выполняем запрос
+        ResponseEntity<User> response = restTemplate.getForEntity(url() + "/users/me", User.class);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getEmail()).isEqualTo(UserFixture.getFirstRegisteredUser().getUsername());
+    }
+
+    @Test
+    void getComments_ColdCaches_ReturnsAuthors() {
+        // Подготовка данных
+        evictCaches();
+
+        // Выполняем запрос
+        ResponseEntity<Comments> response = restTemplate.getForEntity(url() + "/ads/{id}/comments", Comments.class, AdFixture.adId);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getResults()).extracting(Comment::getAuthorFirstName)
+                .containsExactly(UserFixture.getFirstRegisteredUser().getFirstName());
+    }
+
+    @Test
+    void addComment_ColdCaches_ReturnsAuthor() {
+        // Подготовка данных
+        evictCaches();
+
+        // Выполняем запрос
+        ResponseEntity<Comment> response = restTemplate.postForEntity(url() + "/ads/{id}/comments",
+                CommentFixer.getCreateComment(), Comment.class, AdFixture.adId);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getAuthorFirstName()).isEqualTo(UserFixture.getFirstRegisteredUser().getFirstName());
+    }
+
+    @Test
+    void updateComment_ColdCaches_LoadsAuthorInsideTransaction() {
+        // Подготовка данных
+        evictCaches();
+
+        // Выполняем запрос
+        ResponseEntity<Comment> response = restTemplate.exchange(url() + "/ads/{adId}/comments/{commentId}", HttpMethod.PATCH,
+                new HttpEntity<>(CommentFixer.getUpdateComment()), Comment.class, AdFixture.adId, CommentFixer.commentId);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getAuthorFirstName()).isEqualTo(UserFixture.getFirstRegisteredUser().getFirstName());
+    }
+
+    @Test
+    void updateAds_ColdCaches_ReturnsAuthor() {
+        // Подготовка данных
+        evictCaches();
+
+        // Выполняем запрос
+        ResponseEntity<Ad> response = restTemplate.exchange(url() + "/ads/{id}", HttpMethod.PATCH,
+                new HttpEntity<>(AdFixture.getCreateAd()), Ad.class, AdFixture.adId);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getAuthor()).isEqualTo(1);
+    }
+
+    private void evictCaches() {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        userSnapshotCache.invalidate(UserFixture.getFirstRegisteredUser().getUsername());
+    }
+
+    private String url() {
+        return "http://localhost:" + port;
+    }
+}
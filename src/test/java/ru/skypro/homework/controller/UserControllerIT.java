@@ -1,11 +1,14 @@
 package ru.skypro.homework.controller;
 
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.http.*;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -19,7 +22,10 @@ import ru.skypro.homework.dto.NewPassword;
 import ru.skypro.homework.dto.Register;
 import ru.skypro.homework.dto.UpdateUser;
 import ru.skypro.homework.dto.User;
+import ru.skypro.homework.security.AuthenticationCache;
 import ru.skypro.homework.service.ImageService;
+import ru.skypro.homework.util.QueryBudget;
+import ru.skypro.homework.util.QueryRecorder;
 import ru.skypro.homework.util.UserFixture;
 
 import java.io.IOException;
@@ -31,6 +37,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 @Testcontainers
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @ActiveProfiles("test")
+@Import(QueryRecorder.QueryRecorderConfiguration.class)
 class UserControllerIT {
 
     @Container
@@ -48,9 +55,15 @@ class UserControllerIT {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Autowired
     private ImageService imageService;
 
+    @Autowired
+    private AuthenticationCache authenticationCache;
+
     @BeforeEach
     void setUp() {
         // Запускаем PostgreSQL
@@ -62,19 +75,25 @@ class UserControllerIT {
         );
 
         // Очищаем БД
-        jdbcTemplate.execute("TRUNCATE TABLE comment_entities, ad_entities, user_entities RESTART IDENTITY");
+        jdbcTemplate.execute("TRUNCATE TABLE comment_entities, ad_entities, user_entities, image_references, image_deletions RESTART IDENTITY");
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
 
         // Регистрируем пользователя
         Register register = UserFixture.getFirstRegisteredUser();
         restTemplate.postForEntity(url() + "/register", register, Void.class);
+
+        // Удаляем учётные данные, закэшированные в предыдущих тестах: первая аутентификация каждого теста проверяет пароль по БД
+        authenticationCache.invalidate(register.getUsername());
     }
 
     @Test
+    @QueryBudget(max = 4)
     void setPassword_SuccessfulChangedPassword_ReturnsOk() {
         // Аутентификация
         doAuthenticationFirstUser();
 
         // Подготовка данных
+        addAdsAndCommentsOfSeveralAuthors(5, 2);
         NewPassword newPassword = new NewPassword();
         newPassword.setCurrentPassword(UserFixture.getFirstRegisteredUser().getPassword());
         newPassword.setNewPassword(UserFixture.newPassword);
@@ -86,6 +105,26 @@ class UserControllerIT {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
     }
 
+    @Test
+    void setPassword_OldPasswordAfterChange_ReturnsUnauthorized() {
+        // Аутентификация
+        doAuthenticationFirstUser();
+
+        // Подготовка данных
+        NewPassword newPassword = new NewPassword();
+        newPassword.setCurrentPassword(UserFixture.getFirstRegisteredUser().getPassword());
+        newPassword.setNewPassword(UserFixture.newPassword);
+
+        restTemplate.getForEntity(url() + "/users/me", User.class);
+        restTemplate.postForEntity(url() + "/users/set_password", newPassword, Void.class);
+
+        // Выполняем запрос со старым паролем
+        ResponseEntity<User> response = restTemplate.getForEntity(url() + "/users/me", User.class);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
     @Test
     void setPassword_IncorrectCurrentPassword_ReturnsForbidden() {
         // Аутентификация
@@ -118,10 +157,14 @@ class UserControllerIT {
     }
 
     @Test
+    @QueryBudget(max = 3)
     void getUser_SuccessfulRequest_ReturnsOk() {
         // Аутентификация
         doAuthenticationFirstUser();
 
+        // Подготовка данных
+        addAdsAndCommentsOfSeveralAuthors(5, 2);
+
         // Выполняем запрос
         ResponseEntity<User> response = restTemplate.getForEntity(url() + "/users/me", User.class);
 
@@ -141,11 +184,13 @@ class UserControllerIT {
     }
 
     @Test
+    @QueryBudget(max = 4)
     void updateUser_SuccessfulChangedUserData_ReturnsOk() {
         // Аутентификация
         doAuthenticationFirstUser();
 
         // Подготовка данных
+        addAdsAndCommentsOfSeveralAuthors(5, 2);
         UpdateUser updateUser = UserFixture.getUpdateUser();
 
         // Выполняем запрос
@@ -157,6 +202,47 @@ class UserControllerIT {
         assertThat(response.getBody().getFirstName()).isEqualTo(updateUser.getFirstName());
     }
 
+    @Test
+    void updateUser_GetUserAfterChange_ReturnsUpdatedUser() {
+        // Аутентификация
+        doAuthenticationFirstUser();
+
+        // Подготовка данных
+        UpdateUser updateUser = UserFixture.getUpdateUser();
+        restTemplate.getForEntity(url() + "/users/me", User.class);
+
+        // Выполняем запрос
+        restTemplate.exchange(url() + "/users/me", HttpMethod.PATCH, new HttpEntity<>(updateUser), UpdateUser.class);
+        ResponseEntity<User> response = restTemplate.getForEntity(url() + "/users/me", User.class);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getFirstName()).isEqualTo(updateUser.getFirstName());
+        assertThat(response.getBody().getPhone()).isEqualTo(updateUser.getPhone());
+    }
+
+    @Test
+    void updateUser_IfNoneMatchETagBeforeChange_ReturnsUpdatedUser() {
+        // Аутентификация
+        doAuthenticationFirstUser();
+
+        // Подготовка данных
+        UpdateUser updateUser = UserFixture.getUpdateUser();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(restTemplate.getForEntity(url() + "/users/me", User.class).getHeaders().getETag());
+        restTemplate.exchange(url() + "/users/me", HttpMethod.PATCH, new HttpEntity<>(updateUser), UpdateUser.class);
+
+        // Выполняем запрос
+        ResponseEntity<User> response = restTemplate.exchange(url() + "/users/me", HttpMethod.GET, new HttpEntity<>(headers), User.class);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isEqualTo("W/\"1\"");
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getFirstName()).isEqualTo(updateUser.getFirstName());
+    }
+
     @Test
     void updateUser_WithoutAuthentication_ReturnsUnauthorized() {
         // Подготовка данных
@@ -170,11 +256,13 @@ class UserControllerIT {
     }
 
     @Test
+    @QueryBudget(max = 6)
     void updateUserImage_SuccessfulChangedUserImage_ReturnsOk() throws IOException {
         // Аутентификация
         doAuthenticationFirstUser();
 
         // Подготовка данных
+        addAdsAndCommentsOfSeveralAuthors(5, 2);
         MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
         body.add("image", new FileSystemResource("src/test/resources/test.jpg"));
 
@@ -249,6 +337,18 @@ class UserControllerIT {
         return "http://localhost:" + port;
     }
 
+    private void addAdsAndCommentsOfSeveralAuthors(int authors, int adsPerAuthor) {
+        jdbcTemplate.update("INSERT INTO user_entities (username, password, first_name, last_name, phone, authority) " +
+                "SELECT 'author' || g || '@mail.ru', 'password', 'First', 'Last', '+79811234543', 'ROLE_USER' " +
+                "FROM generate_series(1, ?) g", authors);
+        jdbcTemplate.update("INSERT INTO ad_entities (title, description, price, image, author) " +
+                "SELECT 'Sell phone ' || g, 'Phone is good', 1000 + g, '/images/' || g || '.jpg', 1 + g % ? " +
+                "FROM generate_series(1, ?) g", authors + 1, (authors + 1) * adsPerAuthor);
+        jdbcTemplate.update("INSERT INTO comment_entities (text, created_at, author, ad_entity) " +
+                "SELECT 'Comment ' || a.pk || ' ' || u.id, 1000 + u.id, u.id, a.pk " +
+                "FROM ad_entities a CROSS JOIN user_entities u WHERE u.id <> a.author");
+    }
+
     private void doAuthenticationFirstUser() {
         restTemplate.getRestTemplate().setInterceptors(
                 Collections.singletonList((request, body, execution) -> {
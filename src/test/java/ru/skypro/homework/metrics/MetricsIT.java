@@ -0,0 +1,119 @@
+package ru.skypro.homework.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.skypro.homework.image.StagedImage;
+import ru.skypro.homework.service.ImageService;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет публикацию метрик в формате Prometheus на отдельном порту управления.
+ * В тестах Spring Boot экспорт метрик по умолчанию отключён, поэтому он включается явно.
+ */
+@Testcontainers
+@AutoConfigureObservability
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class MetricsIT {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @LocalServerPort
+    private int port;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ImageService imageService;
+
+    @BeforeEach
+    void setUp() {
+        // Запускаем PostgreSQL
+        postgres.start();
+
+        // Очищаем БД и кэш
+        jdbcTemplate.execute("TRUNCATE TABLE comment_entities, ad_entities, user_entities, image_references, image_deletions RESTART IDENTITY");
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+
+    @Test
+    void prometheus_AfterRequest_ExposesRequestServiceAndHibernateMetrics() {
+        // Подготовка данных
+        restTemplate.getForEntity("http://localhost:" + port + "/ads", String.class);
+
+        // Выполняем запрос
+        ResponseEntity<String> response = restTemplate.getForEntity("http://localhost:" + managementPort + "/actuator/prometheus", String.class);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody())
+                .contains("http_server_requests_seconds_bucket")
+                .contains("uri=\"/ads\"")
+                .contains("service_method_seconds_bucket")
+                .contains("method=\"getAllAds\"")
+                .contains("hibernate_request_queries_bucket")
+                .contains("hibernate_statements_total")
+                .contains("hikaricp_connections_acquire_seconds_bucket");
+    }
+
+    @Test
+    void prometheus_OnApplicationPort_IsNotExposed() {
+        // Выполняем запрос
+        ResponseEntity<String> response = restTemplate.getForEntity("http://localhost:" + port + "/actuator/prometheus", String.class);
+
+        // Проверяем результат
+        assertThat(response.getStatusCode()).isNotEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void stageImage_WrittenFile_CountsBytes() throws IOException {
+        // Подготовка данных
+        byte[] content = UUID.randomUUID().toString().getBytes();
+        double before = meterRegistry.get("image.bytes").tag("operation", "written").counter().count();
+
+        // Выполняем запрос
+        try (StagedImage ignored = imageService.stageImage(new MockMultipartFile("image", "image.jpg", "image/jpeg", content))) {
+            // Проверяем результат
+            assertThat(meterRegistry.get("image.bytes").tag("operation", "written").counter().count())
+                    .isEqualTo(before + content.length);
+        }
+    }
+}
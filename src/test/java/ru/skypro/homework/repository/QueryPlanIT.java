@@ -0,0 +1,189 @@
+package ru.skypro.homework.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.skypro.homework.cache.UserSnapshotCache;
+import ru.skypro.homework.dto.AdFilter;
+import ru.skypro.homework.dto.AdSort;
+import ru.skypro.homework.dto.CreateOrUpdateComment;
+import ru.skypro.homework.service.AdEntityService;
+import ru.skypro.homework.service.CommentEntityService;
+import ru.skypro.homework.util.QueryRecorder;
+import ru.skypro.homework.util.QueryRecorder.RecordedQuery;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяет, что запросы, которые выполняют {@code getComments}, {@code getAllAds}, {@code getAdsMe}, {@code searchAds} и {@code isOwner},
+ * используют индексы, а не последовательное сканирование, на наборе данных из миллиона строк,
+ * списки объявлений читают только поля проекции, а {@code addComment} выполняет одни и те же запросы
+ * независимо от количества комментариев объявления.
+ * Запросы перехватываются прокси источника данных вместе с параметрами и передаются в {@code EXPLAIN}.
+ */
+@Testcontainers
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Import(QueryRecorder.QueryRecorderConfiguration.class)
+class QueryPlanIT {
+
+    private static final int USERS = 10_000;
+    private static final int ADS = 1_000_000;
+    private static final int COMMENTS = 1_000_000;
+
+    private static final int AD_ID = 4242;
+    private static final int USER_ID = 1 + AD_ID % USERS;
+    private static final String USERNAME = "user" + USER_ID + "@mail.ru";
+
+    private static final int BUSY_AD_ID = AD_ID + 1;
+    private static final int BUSY_AD_COMMENTS = 100_000;
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AdEntityService adEntityService;
+
+    @Autowired
+    private CommentEntityService commentEntityService;
+
+    @Autowired
+    private UserSnapshotCache userSnapshotCache;
+
+    @BeforeAll
+    void seed() {
+        // Запускаем PostgreSQL
+        postgres.start();
+
+        // Очищаем БД и заполняем её данными
+        jdbcTemplate.execute("TRUNCATE TABLE comment_entities, ad_entities, user_entities RESTART IDENTITY");
+        jdbcTemplate.execute("INSERT INTO user_entities (username, password, first_name, last_name, phone, authority) " +
+                "SELECT 'user' || g || '@mail.ru', 'password', 'First', 'Last', '+79811234543', 'ROLE_USER' " +
+                "FROM generate_series(1, " + USERS + ") g");
+        jdbcTemplate.execute("INSERT INTO ad_entities (title, description, price, image, author) " +
+                "SELECT 'Title ' || g, 'Description ' || g, g % 10000000, '/images/' || g || '.jpg', 1 + g % " + USERS + " " +
+                "FROM generate_series(1, " + ADS + ") g");
+        jdbcTemplate.execute("INSERT INTO comment_entities (text, created_at, author, ad_entity) " +
+                "SELECT 'Comment text ' || g, 1700000000000 + g, 1 + g % " + USERS + ", 1 + g % " + ADS + " " +
+                "FROM generate_series(1, " + COMMENTS + ") g");
+        jdbcTemplate.execute("ANALYZE user_entities, ad_entities, comment_entities");
+    }
+
+    @AfterAll
+    void cleanUp() {
+        jdbcTemplate.execute("TRUNCATE TABLE comment_entities, ad_entities, user_entities RESTART IDENTITY");
+    }
+
+    @Test
+    void getComments_UsesIndexes() {
+        assertNoSequentialScans(record(() -> commentEntityService.getComments(AD_ID, null, null)));
+    }
+
+    @Test
+    void getAdsMe_UsesIndexes() {
+        assertNoSequentialScans(record(() -> adEntityService.getAdsMe(new UsernamePasswordAuthenticationToken(USERNAME, null))));
+    }
+
+    @Test
+    void getAllAds_UsesIndexes() {
+        assertNoSequentialScans(record(() -> adEntityService.getAllAds(new AdFilter(null, null, null, AdSort.NEWEST), String.valueOf(ADS / 2), 10)));
+        assertNoSequentialScans(record(() -> adEntityService.getAllAds(new AdFilter(1000, 5000, null, AdSort.PRICE_ASC), "2000_2000", 10)));
+        assertNoSequentialScans(record(() -> adEntityService.getAllAds(new AdFilter(null, null, USER_ID, AdSort.NEWEST), String.valueOf(ADS / 2), 10)));
+        assertNoSequentialScans(record(() -> adEntityService.getAllAds(new AdFilter(null, 5_000_000, USER_ID, AdSort.PRICE_DESC), "4000000_1", 10)));
+    }
+
+    @Test
+    void getAllAdsAndGetAdsMe_SelectOnlyListingColumns() {
+        // Выполняем запрос
+        List<RecordedQuery> listing = record(() -> adEntityService.getAllAds(new AdFilter(null, null, null, AdSort.NEWEST), null, 10));
+        List<RecordedQuery> adsMe = record(() -> adEntityService.getAdsMe(new UsernamePasswordAuthenticationToken(USERNAME, null)));
+
+        // Проверяем результат
+        assertThat(listing).extracting(RecordedQuery::sql)
+                .anyMatch(sql -> sql.contains("from ad_entities"))
+                .noneMatch(sql -> sql.contains("description"));
+        assertThat(adsMe).extracting(RecordedQuery::sql)
+                .anyMatch(sql -> sql.contains("from ad_entities"))
+                .noneMatch(sql -> sql.contains("description"));
+    }
+
+    @Test
+    void searchAds_UsesIndexes() {
+        assertNoSequentialScans(record(() -> adEntityService.searchAds("Title " + AD_ID, null, null)));
+        assertNoSequentialScans(record(() -> adEntityService.searchAds("Description " + AD_ID, "0.5_" + AD_ID, 10)));
+    }
+
+    @Test
+    void isOwner_UsesIndexes() {
+        assertNoSequentialScans(record(() -> adEntityService.isOwner(USERNAME, AD_ID)));
+        assertNoSequentialScans(record(() -> adEntityService.isOwner("other@mail.ru", AD_ID)));
+    }
+
+    @Test
+    void isCommentOwner_UsesIndexes() {
+        int commentId = AD_ID - 1;
+        assertNoSequentialScans(record(() -> commentEntityService.isOwner(USERNAME, AD_ID, commentId)));
+        assertNoSequentialScans(record(() -> commentEntityService.isOwner("other@mail.ru", AD_ID, commentId)));
+    }
+
+    @Test
+    void addComment_DoesNotDependOnCommentCount() {
+        // Подготовка данных
+        jdbcTemplate.execute("INSERT INTO comment_entities (text, created_at, author, ad_entity) " +
+                "SELECT 'Busy comment ' || g, 1800000000000 + g, 1 + g % " + USERS + ", " + BUSY_AD_ID + " " +
+                "FROM generate_series(1, " + BUSY_AD_COMMENTS + ") g");
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(USERNAME, null);
+        CreateOrUpdateComment createComment = new CreateOrUpdateComment();
+        createComment.setText("Regression comment");
+
+        // Выполняем запрос
+        List<RecordedQuery> quietAd = record(() -> commentEntityService.addComment(AD_ID, createComment, authentication));
+        List<RecordedQuery> busyAd = record(() -> commentEntityService.addComment(BUSY_AD_ID, createComment, authentication));
+
+        // Проверяем результат
+        assertThat(busyAd).extracting(RecordedQuery::sql).containsExactlyElementsOf(quietAd.stream().map(RecordedQuery::sql).toList());
+        assertThat(busyAd).extracting(RecordedQuery::sql)
+                .noneMatch(sql -> sql.startsWith("select") && sql.contains("comment_entities"));
+    }
+
+    private List<RecordedQuery> record(Runnable action) {
+        // Запросы проверяются на холодных кэшах, иначе часть из них не дойдёт до базы данных
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        userSnapshotCache.invalidate(USERNAME);
+        return QueryRecorder.record(action);
+    }
+
+    private void assertNoSequentialScans(List<RecordedQuery> queries) {
+        assertThat(queries).isNotEmpty();
+        for (RecordedQuery query : queries) {
+            String plan = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + query.sql(), String.class, query.parameters().toArray());
+            assertThat(plan)
+                    .as("Запрос выполняет последовательное сканирование:%n%s%n%s", query.sql(), plan)
+                    .doesNotContain("\"Seq Scan\"");
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package ru.skypro.homework.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachingAuthenticationProviderTest {
+
+    private static final String USERNAME = "user@gmail.com";
+
+    private static final String PASSWORD = "password";
+
+    private AuthenticationCache authenticationCache;
+
+    /**
+     * Действие, выполняемое делегатом во время проверки пароля.
+     */
+    private Runnable duringAuthentication;
+
+    private CachingAuthenticationProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        authenticationCache = new AuthenticationCache(100, Duration.ofMinutes(5));
+        duringAuthentication = () -> {
+        };
+        AuthenticationProvider delegate = new AuthenticationProvider() {
+            @Override
+            public Authentication authenticate(Authentication authentication) {
+                duringAuthentication.run();
+                UserDetails principal = User.withUsername(authentication.getName()).password("{noop}" + PASSWORD)
+                        .roles("USER").build();
+                return UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities());
+            }
+
+            @Override
+            public boolean supports(Class<?> authentication) {
+                return true;
+            }
+        };
+        provider = new CachingAuthenticationProvider(delegate, authenticationCache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void authenticate_NoInvalidation_CachesCredentials() {
+        // Выполняем запрос
+        Authentication result = provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated(USERNAME, PASSWORD));
+
+        // Проверяем результат
+        assertThat(result.isAuthenticated()).isTrue();
+        assertThat(authenticationCache.get(USERNAME, PASSWORD)).isNotNull();
+    }
+
+    @Test
+    void authenticate_InvalidatedDuringVerification_DoesNotCacheCredentials() {
+        // Подготовка данных
+        duringAuthentication = () -> authenticationCache.invalidate(USERNAME);
+
+        // Выполняем запрос
+        Authentication result = provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated(USERNAME, PASSWORD));
+
+        // Проверяем результат
+        assertThat(result.isAuthenticated()).isTrue();
+        assertThat(authenticationCache.get(USERNAME, PASSWORD)).isNull();
+    }
+
+    @Test
+    void authenticate_PasswordChangeCommittedDuringVerification_DoesNotCacheCredentials() {
+        // Подготовка данных: смена пароля уже удалила данные из кэша, но её транзакция фиксируется во время проверки
+        TransactionSynchronizationManager.initSynchronization();
+        authenticationCache.invalidate(USERNAME);
+        duringAuthentication = () -> TransactionSynchronizationUtils.invokeAfterCommit(
+                TransactionSynchronizationManager.getSynchronizations());
+
+        // Выполняем запрос
+        provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated(USERNAME, PASSWORD));
+
+        // Проверяем результат
+        assertThat(authenticationCache.get(USERNAME, PASSWORD)).isNull();
+    }
+
+    @Test
+    void authenticate_InvalidatedBeforeVerification_CachesCredentials() {
+        // Подготовка данных
+        authenticationCache.invalidate(USERNAME);
+
+        // Выполняем запрос
+        provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated(USERNAME, PASSWORD));
+
+        // Проверяем результат
+        assertThat(authenticationCache.get(USERNAME, PASSWORD)).isNotNull();
+    }
+}
@@ -0,0 +1,167 @@
+package ru.skypro.homework.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import ru.skypro.homework.dto.AdImportFormat;
+import ru.skypro.homework.dto.AdImportRow;
+import ru.skypro.homework.exception.InvalidImportException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdImportReaderImplTest {
+
+    private static final String HEADER = "title,description,price,image,author\n";
+
+    private static ValidatorFactory validatorFactory;
+
+    private static AdImportReaderImpl adImportReader;
+
+    @BeforeAll
+    static void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        adImportReader = new AdImportReaderImpl(new ObjectMapper(), validatorFactory.getValidator());
+    }
+
+    @AfterAll
+    static void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Test
+    void read_CsvQuotedFields_KeepsCommasAndQuotes() throws IOException {
+        // Подготовка данных
+        String csv = HEADER + "\"Дом, сад\",\"Продаю \"\"почти\"\" новое\",100,/images/a,1\n";
+
+        // Выполняем запрос
+        List<AdImportRow> rows = read(csv, AdImportFormat.CSV);
+
+        // Проверяем результат
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0).isValid()).isTrue();
+        assertThat(rows.get(0).ad().getTitle()).isEqualTo("Дом, сад");
+        assertThat(rows.get(0).ad().getDescription()).isEqualTo("Продаю \"почти\" новое");
+        assertThat(rows.get(0).lineNumber()).isEqualTo(2);
+    }
+
+    @Test
+    void read_CsvEmbeddedNewline_ReadsOneRecordAndCountsLines() throws IOException {
+        // Подготовка данных
+        String csv = HEADER + "Велосипед,\"Первая строка\r\nвторая строка\",100,/images/a,1\r\n"
+                + "Самокат,Почти новый самокат,200,/images/b,1\r\n";
+
+        // Выполняем запрос
+        List<AdImportRow> rows = read(csv, AdImportFormat.CSV);
+
+        // Проверяем результат
+        assertThat(rows).extracting(AdImportRow::lineNumber).containsExactly(2, 4);
+        assertThat(rows).allMatch(AdImportRow::isValid);
+        assertThat(rows.get(0).ad().getDescription()).isEqualTo("Первая строка\r\nвторая строка");
+        assertThat(rows.get(1).ad().getTitle()).isEqualTo("Самокат");
+    }
+
+    @Test
+    void read_CsvWithByteOrderMark_RecognizesFirstColumn() throws IOException {
+        // Подготовка данных
+        String csv = "\uFEFF" + HEADER + "Велосипед,Почти новый велосипед,100,/images/a,1\n";
+
+        // Выполняем запрос
+        List<AdImportRow> rows = read(csv, AdImportFormat.CSV);
+
+        // Проверяем результат
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0).ad().getTitle()).isEqualTo("Велосипед");
+    }
+
+    @Test
+    void read_CsvBadColumnCount_RejectsRow() throws IOException {
+        // Подготовка данных
+        String csv = HEADER
+                + "Велосипед,Почти новый велосипед,100,/images/a\n"
+                + "Велосипед,Почти новый велосипед,100,/images/a,1,лишнее\n"
+                + "Самокат,Почти новый самокат,200,/images/b,1\n";
+
+        // Выполняем запрос
+        List<AdImportRow> rows = read(csv, AdImportFormat.CSV);
+
+        // Проверяем результат
+        assertThat(rows).extracting(AdImportRow::isValid).containsExactly(false, false, true);
+        assertThat(rows.get(0).error()).isEqualTo("неверное количество столбцов: 4 вместо 5");
+        assertThat(rows.get(1).error()).isEqualTo("неверное количество столбцов: 6 вместо 5");
+        assertThat(rows.get(2).lineNumber()).isEqualTo(4);
+    }
+
+    @Test
+    void read_CsvUnclosedQuote_RejectsLastRecord() throws IOException {
+        // Подготовка данных
+        String csv = HEADER + "Велосипед,\"Почти новый велосипед,100,/images/a,1\n";
+
+        // Выполняем запрос
+        List<AdImportRow> rows = read(csv, AdImportFormat.CSV);
+
+        // Проверяем результат
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0).isValid()).isFalse();
+        assertThat(rows.get(0).lineNumber()).isEqualTo(2);
+    }
+
+    @Test
+    void read_CsvInvalidValues_RejectsWithValidationMessage() throws IOException {
+        // Подготовка данных
+        String csv = HEADER + "Велосипед,Почти новый велосипед,-1,/images/a,1\n"
+                + "Велосипед,Почти новый велосипед,сто,/images/a,1\n\n";
+
+        // Выполняем запрос
+        List<AdImportRow> rows = read(csv, AdImportFormat.CSV);
+
+        // Проверяем результат
+        assertThat(rows).extracting(AdImportRow::error)
+                .containsExactly("Цена объявления должна быть 0 или больше", "некорректная строка");
+    }
+
+    @Test
+    void read_CsvMissingColumn_ThrowsInvalidImportException() {
+        // Подготовка данных
+        String csv = "title,description,price,image\n";
+
+        // Выполняем запрос и проверяем результат
+        assertThatThrownBy(() -> read(csv, AdImportFormat.CSV))
+                .isInstanceOf(InvalidImportException.class)
+                .hasMessage("В CSV нет столбца author");
+    }
+
+    @Test
+    void read_NdjsonWithByteOrderMark_ParsesFirstLine() throws IOException {
+        // Подготовка данных
+        String ndjson = "\uFEFF{\"title\":\"Велосипед\",\"description\":\"Почти новый велосипед\",\"price\":100,\"image\":\"/images/a\",\"author\":1}\n"
+                + "\n"
+                + "{не json}\n";
+
+        // Выполняем запрос
+        List<AdImportRow> rows = read(ndjson, AdImportFormat.NDJSON);
+
+        // Проверяем результат
+        assertThat(rows).extracting(AdImportRow::lineNumber).containsExactly(1, 3);
+        assertThat(rows.get(0).isValid()).isTrue();
+        assertThat(rows.get(1).error()).isEqualTo("некорректная строка");
+    }
+
+    private static List<AdImportRow> read(String content, AdImportFormat format) throws IOException {
+        Iterator<AdImportRow> iterator = adImportReader.read(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), format);
+        List<AdImportRow> rows = new ArrayList<>();
+        iterator.forEachRemaining(rows::add);
+        return rows;
+    }
+}
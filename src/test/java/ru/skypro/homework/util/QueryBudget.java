@@ -0,0 +1,24 @@
+package ru.skypro.homework.util;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Ограничивает количество SQL-запросов, которые приложение выполняет при обработке HTTP-запросов теста.
+ * Запросы самого теста (подготовка и проверка данных) не учитываются.
+ * Тестовый контекст должен импортировать {@link QueryRecorder.QueryRecorderConfiguration}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(QueryBudgetExtension.class)
+public @interface QueryBudget {
+
+    /**
+     * Максимальное количество SQL-запросов.
+     */
+    int max();
+}
@@ -0,0 +1,41 @@
+package ru.skypro.homework.util;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Записывает SQL-запросы на время выполнения тестового метода с {@link QueryBudget}
+ * и проверяет, что их количество не превышает бюджет. Запись начинается после {@code @BeforeEach},
+ * поэтому подготовка данных в {@code setUp} не учитывается. При превышении бюджета
+ * в сообщении об ошибке перечисляются все выполненные запросы.
+ */
+public class QueryBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        assertThat(QueryRecorder.isInstalled())
+                .as("Прокси источника данных не подключён: импортируйте QueryRecorder.QueryRecorderConfiguration")
+                .isTrue();
+        QueryRecorder.start(true);
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        List<QueryRecorder.RecordedQuery> queries = QueryRecorder.stop();
+        if (context.getExecutionException().isPresent()) {
+            return;
+        }
+        int max = AnnotatedElementUtils.findMergedAnnotation(context.getRequiredTestMethod(), QueryBudget.class).max();
+        assertThat(queries)
+                .as("Превышен бюджет в %d SQL-запросов, выполнено %d:%n%s", max, queries.size(),
+                        queries.stream().map(String::valueOf).collect(Collectors.joining(System.lineSeparator())))
+                .hasSizeLessThanOrEqualTo(max);
+    }
+}
@@ -0,0 +1,111 @@
+package ru.skypro.homework.util;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Записывает SQL-запросы приложения вместе с параметрами через прокси источника данных.
+ * Прокси подключается импортом {@link QueryRecorderConfiguration} в тестовый контекст.
+ */
+public final class QueryRecorder {
+
+    private static final List<RecordedQuery> RECORDED = new CopyOnWriteArrayList<>();
+    private static volatile boolean recording;
+    private static volatile boolean requestsOnly;
+    private static volatile boolean installed;
+
+    private QueryRecorder() {
+    }
+
+    /**
+     * Начинает запись запросов.
+     *
+     * @param requestsOnly true если записываются только запросы, выполненные при обработке HTTP-запросов,
+     *                     без запросов самого теста и фоновых задач
+     */
+    public static void start(boolean requestsOnly) {
+        RECORDED.clear();
+        QueryRecorder.requestsOnly = requestsOnly;
+        recording = true;
+    }
+
+    /**
+     * Завершает запись запросов.
+     *
+     * @return запросы, выполненные с момента начала записи
+     */
+    public static List<RecordedQuery> stop() {
+        recording = false;
+        return List.copyOf(RECORDED);
+    }
+
+    /**
+     * Записывает все запросы, выполненные действием.
+     *
+     * @param action действие
+     * @return выполненные запросы
+     */
+    public static List<RecordedQuery> record(Runnable action) {
+        start(false);
+        try {
+            action.run();
+        } finally {
+            recording = false;
+        }
+        return List.copyOf(RECORDED);
+    }
+
+    /**
+     * Проверяет, что прокси источника данных подключён хотя бы в одном тестовом контексте.
+     *
+     * @return true если прокси подключён
+     */
+    public static boolean isInstalled() {
+        return installed;
+    }
+
+    public record RecordedQuery(String sql, List<Object> parameters) {
+
+        @Override
+        public String toString() {
+            return parameters.isEmpty() ? sql : sql + " " + parameters;
+        }
+    }
+
+    @TestConfiguration
+    public static class QueryRecorderConfiguration {
+
+        @Bean
+        static BeanPostProcessor queryRecordingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource dataSource)) {
+                        return bean;
+                    }
+                    installed = true;
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .afterQuery((executionInfo, queryInfoList) -> {
+                                if (recording && (!requestsOnly || RequestContextHolder.getRequestAttributes() != null)) {
+                                    queryInfoList.forEach(queryInfo -> RECORDED.add(new RecordedQuery(queryInfo.getQuery(),
+                                            queryInfo.getParametersList().isEmpty() ? List.of()
+                                                    : queryInfo.getParametersList().get(0).stream()
+                                                    .sorted(Comparator.comparingInt(operation -> (Integer) operation.getArgs()[0]))
+                                                    .map(operation -> operation.getArgs()[1])
+                                                    .toList())));
+                                }
+                            })
+                            .build();
+                }
+            };
+        }
+    }
+}